@@ -0,0 +1,49 @@
+#!/bin/bash
+set -e
+
+# Compares extraction throughput on the JDK src.zip corpus between the JIT (java -jar), the instrumented
+# image and the PGO image written by native-image-pgo.sh. Throughput is uncompressed source megabytes per
+# second of wall time, the median over a number of runs.
+#
+# Usage: ./native-image-benchmark.sh [runs]
+
+source "$(dirname "$0")/startup-repo.sh"
+
+RUNS=${1:-3}
+JAR=${JAR:-target/mvn2llm.jar}
+OUTPUT=${OUTPUT:-./mvn2llm}
+PGO_DIR=${PGO_DIR:-target/pgo}
+JVM_OPTIONS="--enable-preview --enable-native-access=ALL-UNNAMED"
+
+if [ ! -f "$JAR" ]; then
+    echo "Error: $JAR not found please run 'mvn package' first"
+    exit 1
+fi
+
+require_java_home
+build_training_repo
+build_corpus_artifact
+start_training_repo
+
+CORPUS_BYTES=$(unzip -Zt "$CORPUS_FILE" | awk '{ for (i = 1; i < NF; i++) if ($(i + 1) == "bytes" && $(i + 2) == "uncompressed,") print $i }')
+
+throughput() {
+    local label=$1
+    shift
+    local millis
+    millis=$(for _ in $(seq 1 "$RUNS"); do time_run "$@" -r "$TRAINING_URL" --no-cache "$TRAINING_CORPUS"; done \
+        | cut -d' ' -f2 | median)
+    printf "%-14s %7s ms  %7s MB/s\n" "$label" "$millis" \
+        "$(awk -v bytes="$CORPUS_BYTES" -v ms="$millis" 'BEGIN { printf "%.1f", bytes / 1048576 / (ms / 1000) }')"
+}
+
+echo "Median of $RUNS runs over $(( CORPUS_BYTES / 1048576 )) MB of sources"
+throughput "jit" "$JAVA_HOME/bin/java" $JVM_OPTIONS -jar "$JAR"
+if [ -x "$PGO_DIR/mvn2llm-instrumented" ]; then
+    throughput "instrumented" "$PGO_DIR/mvn2llm-instrumented"
+fi
+if [ -x "$OUTPUT" ]; then
+    throughput "pgo" "$OUTPUT"
+else
+    echo "No PGO image at $OUTPUT, run ./native-image-pgo.sh to include it"
+fi
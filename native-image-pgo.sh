@@ -0,0 +1,68 @@
+#!/bin/bash
+set -e
+
+# Builds the native image with profile-guided optimisation. An instrumented image is built first and run
+# offline against the stand-in repository: the JDK's own src.zip as a large corpus, a SNAPSHOT for the
+# metadata path and a directory walk. The profiles it dumps drive the optimised rebuild. PGO needs Oracle
+# GraalVM; GraalVM Community Edition rejects --pgo-instrument.
+#
+# Usage: ./native-image-pgo.sh [extra native-image flags such as --static]
+#   JAR=target/mvn2llm.jar and OUTPUT=./mvn2llm can be overridden from the environment.
+
+source "$(dirname "$0")/startup-repo.sh"
+
+# Check if GRAALVM_HOME is set
+if [ -z "$GRAALVM_HOME" ]; then
+    echo "Error: GRAALVM_HOME is not set. Please run install-native-image.sh first"
+    exit 1
+fi
+
+JAR=${JAR:-target/mvn2llm.jar}
+OUTPUT=${OUTPUT:-./mvn2llm}
+PGO_DIR=${PGO_DIR:-target/pgo}
+INSTRUMENTED="$PGO_DIR/mvn2llm-instrumented"
+
+# Check if the JAR file exists
+if [ ! -f "$JAR" ]; then
+    echo "Error: $JAR not found please run 'mvn package' first"
+    exit 1
+fi
+
+JAVA_HOME=$GRAALVM_HOME
+require_java_home
+build_training_repo
+build_corpus_artifact
+rm -rf "$PGO_DIR"
+mkdir -p "$PGO_DIR"
+
+native_image() {
+    "$GRAALVM_HOME/bin/native-image" \
+        --no-fallback \
+        --enable-preview \
+        --enable-native-access=ALL-UNNAMED \
+        -H:+ReportExceptionStackTraces \
+        -H:+AddAllCharsets \
+        "$@" \
+        -jar "$JAR"
+}
+
+echo "Building instrumented image..."
+native_image --pgo-instrument "$@" -o "$INSTRUMENTED"
+
+echo "Collecting profiles..."
+start_training_repo
+profile_run() {
+    local name=$1
+    shift
+    "$INSTRUMENTED" -XX:ProfilesDumpFile="$PGO_DIR/$name.iprof" "$@" > /dev/null
+}
+profile_run corpus -r "$TRAINING_URL" --no-cache "$TRAINING_CORPUS"
+profile_run snapshot -r "$TRAINING_URL" --no-cache "$TRAINING_SNAPSHOT"
+profile_run directory -d src/main/java
+stop_training_repo
+
+PROFILES=$(ls "$PGO_DIR"/*.iprof | paste -sd, -)
+echo "Building optimised image with $PROFILES..."
+native_image --pgo="$PROFILES" "$@" -o "$OUTPUT"
+
+echo "PGO native image complete: $OUTPUT"
@@ -2,5 +2,8 @@ package io.github.simbo1905.mvn2llm;
 
 public enum ArtefactType {
     JAR,
-    ZIP
+    ZIP,
+    TAR_GZ,
+    DIRECTORY,
+    REACTOR
 }
\ No newline at end of file
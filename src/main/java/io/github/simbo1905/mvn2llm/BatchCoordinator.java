@@ -0,0 +1,183 @@
+package io.github.simbo1905.mvn2llm;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/// Splits a long list of coordinates into shards and runs each shard in a worker process of its own.
+///
+/// One JVM extracting thousands of artifacts ends up collecting garbage more than it extracts, and a crash loses
+/// everything. Here a worker is a fresh process that reads its shard from stdin and writes docs to a temp file,
+/// so its heap dies with it. A worker that exits abnormally has its shard queued again, up to
+/// [#MAX_ATTEMPTS] times. Shards are written to the output in order, each as soon as the shards before it are
+/// written. Workers share the entry cache, which is safe across processes because every entry is written to a
+/// temp file and renamed into place.
+final class BatchCoordinator {
+  private static final Logger LOGGER = Logger.getLogger(BatchCoordinator.class.getName());
+
+  static final int MAX_ATTEMPTS = 3;
+
+  private final List<String> workerCommand;
+  private final int workers;
+  private final int shardSize;
+
+  /// `workerCommand` launches one worker, such as [#selfCommand()] followed by `worker` and the options.
+  BatchCoordinator(List<String> workerCommand, int workers, int shardSize) {
+    if (workers < 1 || shardSize < 1) {
+      throw new IllegalArgumentException("Workers and shard size must be at least 1");
+    }
+    this.workerCommand = List.copyOf(workerCommand);
+    this.workers = workers;
+    this.shardSize = shardSize;
+  }
+
+  record Shard(int index, List<String> coordinates, AtomicInteger attempts) {
+  }
+
+  /// Runs every shard and writes their output to `out` in coordinate order. Shards that failed on every
+  /// attempt are left out and reported in the exception thrown at the end, after everything else is written.
+  void run(List<String> coordinates, OutputStream out) throws IOException, InterruptedException {
+    final var shards = new ArrayList<Shard>();
+    for (int from = 0; from < coordinates.size(); from += shardSize) {
+      shards.add(new Shard(shards.size(), List.copyOf(coordinates.subList(from, Math.min(from + shardSize,
+          coordinates.size()))), new AtomicInteger()));
+    }
+    LOGGER.fine("Running %d coordinates as %d shards on %d workers".formatted(coordinates.size(), shards.size(), workers));
+    final var pending = new ConcurrentLinkedQueue<>(shards);
+    final var output = new OrderedOutput(shards.size(), out);
+    final var directory = Files.createTempDirectory("mvn2llm-batch");
+    try (final var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      final var slots = new ArrayList<Future<?>>();
+      for (int i = 0; i < Math.min(workers, shards.size()); i++) {
+        slots.add(executor.submit(() -> {
+          Shard shard;
+          while ((shard = pending.poll()) != null) {
+            runShard(shard, directory, pending, output);
+          }
+          return null;
+        }));
+      }
+      for (final var slot : slots) {
+        try {
+          slot.get();
+        } catch (ExecutionException e) {
+          throw new IOException("Batch worker slot failed", e.getCause());
+        }
+      }
+    } finally {
+      try (final var leftovers = Files.list(directory)) {
+        for (final var file : leftovers.toList()) {
+          Files.deleteIfExists(file);
+        }
+      }
+      Files.deleteIfExists(directory);
+    }
+    if (!output.failed().isEmpty()) {
+      throw new IOException("%d of %d shards failed after %d attempts: %s".formatted(
+          output.failed().size(), shards.size(), MAX_ATTEMPTS, output.failed()));
+    }
+  }
+
+  private void runShard(Shard shard, Path directory, ConcurrentLinkedQueue<Shard> pending, OrderedOutput output)
+      throws IOException, InterruptedException {
+    final var attempt = shard.attempts().incrementAndGet();
+    final var file = directory.resolve("shard-%d-%d.out".formatted(shard.index(), attempt));
+    LOGGER.fine("Starting shard %d attempt %d with %d coordinates".formatted(shard.index(), attempt, shard.coordinates().size()));
+    final var process = new ProcessBuilder(workerCommand)
+        .redirectOutput(file.toFile())
+        .redirectError(ProcessBuilder.Redirect.INHERIT)
+        .start();
+    try (final var stdin = process.getOutputStream()) {
+      stdin.write((String.join("\n", shard.coordinates()) + "\n").getBytes(StandardCharsets.UTF_8));
+    } catch (IOException e) {
+      // a worker that dies before reading its shard closes the pipe, and its exit status says what happened
+      LOGGER.fine("Worker for shard %d stopped reading: %s".formatted(shard.index(), e.getMessage()));
+    }
+    final var exit = process.waitFor();
+    if (exit == 0) {
+      output.complete(shard.index(), file);
+      return;
+    }
+    Files.deleteIfExists(file);
+    if (attempt < MAX_ATTEMPTS) {
+      LOGGER.warning("Worker for shard %d exited with %d, reassigning it".formatted(shard.index(), exit));
+      pending.add(shard);
+    } else {
+      LOGGER.severe("Worker for shard %d exited with %d on attempt %d, giving up on %s".formatted(
+          shard.index(), exit, attempt, shard.coordinates()));
+      output.fail(shard.index());
+    }
+  }
+
+  /// The command that starts this same program: the native binary itself, or the running `java` with this
+  /// class path and main class.
+  static List<String> selfCommand() {
+    if (JavaDocExtractor.isNativeImage()) {
+      return List.of(ProcessHandle.current().info().command()
+          .orElseThrow(() -> new IllegalStateException("Cannot find own executable")));
+    }
+    final var command = new ArrayList<String>();
+    command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+    if (ManagementFactory.getRuntimeMXBean().getInputArguments().contains("--enable-preview")) {
+      command.add("--enable-preview");
+    }
+    command.add("-cp");
+    command.add(System.getProperty("java.class.path"));
+    command.add(JavaDocExtractor.class.getName());
+    return command;
+  }
+
+  /// Copies each shard's file to the output once every shard before it has been copied or given up on.
+  private static final class OrderedOutput {
+    private final Path[] files;
+    private final boolean[] done;
+    private final List<Integer> failed = new ArrayList<>();
+    private final OutputStream out;
+    private int next = 0;
+
+    OrderedOutput(int shards, OutputStream out) {
+      this.files = new Path[shards];
+      this.done = new boolean[shards];
+      this.out = out;
+    }
+
+    synchronized void complete(int index, Path file) throws IOException {
+      files[index] = file;
+      done[index] = true;
+      drain();
+    }
+
+    synchronized void fail(int index) throws IOException {
+      failed.add(index);
+      done[index] = true;
+      drain();
+    }
+
+    synchronized List<Integer> failed() {
+      return List.copyOf(failed);
+    }
+
+    private void drain() throws IOException {
+      while (next < done.length && done[next]) {
+        if (files[next] != null) {
+          Files.copy(files[next], out);
+          Files.delete(files[next]);
+          files[next] = null;
+        }
+        next++;
+      }
+      out.flush();
+    }
+  }
+}
@@ -0,0 +1,386 @@
+package io.github.simbo1905.mvn2llm;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+
+/// A ZIP archive read straight from memory: a [ByteBuffer] holding a small download, or a whole file mapped into
+/// a [MemorySegment].
+///
+/// The central directory is parsed once up front into [Entry] objects, which are ordinary [ZipEntry]s with the
+/// CRC, sizes and method filled in so the entry cache and the limits treat them like entries of a
+/// [java.util.zip.ZipFile]. Each [#getInputStream] hands a `ByteBuffer` view of its compressed bytes to an
+/// [Inflater], which reads a mapped file's pages in place rather than copying them through a buffer. Nothing is
+/// shared between streams and there is no lock, so unlike a `ZipFile` one instance serves every worker thread
+/// at once. ZIP64 is read, as a mapped file may be larger than 4GB. Encrypted entries and compression methods
+/// other than stored and deflated are rejected; the caller falls back to a `ZipFile` for those.
+final class BufferedZip implements EntryReader {
+  private static final int LOCAL_HEADER = 0x04034b50;
+  private static final int CENTRAL_HEADER = 0x02014b50;
+  private static final int END_HEADER = 0x06054b50;
+  private static final int ZIP64_END_HEADER = 0x06064b50;
+  private static final int ZIP64_LOCATOR = 0x07064b50;
+  private static final int ZIP64_EXTRA = 0x0001;
+  private static final int LOCAL_HEADER_SIZE = 30;
+  private static final int CENTRAL_HEADER_SIZE = 46;
+  private static final int END_SIZE = 22;
+  private static final int ZIP64_END_SIZE = 56;
+  private static final int ZIP64_LOCATOR_SIZE = 20;
+
+  private static final ValueLayout.OfShort SHORT = ValueLayout.JAVA_SHORT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+  private static final ValueLayout.OfInt INT = ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+  private static final ValueLayout.OfLong LONG = ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+
+  /// The most compressed bytes handed to an inflater at once, as a `ByteBuffer` view is indexed by `int`.
+  private static final long MAX_VIEW = 1 << 30;
+
+  /// Whether an [Inflater] accepts a view of a shared arena's memory, found out by the first [#map]. `null`
+  /// until then.
+  private static volatile Boolean mappable = null;
+
+  /// One idle inflater per thread. A stream takes it while it is open, so a thread that opens a second stream
+  /// before closing the first gets a new inflater rather than sharing one.
+  private static final ThreadLocal<Inflater> IDLE = new ThreadLocal<>();
+
+  private final MemorySegment segment;
+  private final Arena arena;
+  private final List<Entry> entries;
+
+  /// An entry located by the offset of its local header.
+  static final class Entry extends ZipEntry {
+    private final long localHeaderOffset;
+
+    Entry(String name, long localHeaderOffset) {
+      super(name);
+      this.localHeaderOffset = localHeaderOffset;
+    }
+  }
+
+  private BufferedZip(MemorySegment segment, Arena arena, List<Entry> entries) {
+    this.segment = segment;
+    this.arena = arena;
+    this.entries = entries;
+  }
+
+  /// Parses the central directory of the whole of `bytes`, from its position to its limit.
+  static BufferedZip read(ByteBuffer bytes) throws ZipException {
+    final var segment = MemorySegment.ofBuffer(bytes);
+    return new BufferedZip(segment, null, parse(segment));
+  }
+
+  /// Maps the whole of `file` read-only. The mapping lasts until [#close()], and every stream must be closed
+  /// before then. Throws a `ZipException` where the runtime's inflater cannot read mapped memory, so the caller
+  /// falls back to a `ZipFile`.
+  static BufferedZip map(Path file) throws IOException {
+    if (!canMap()) {
+      throw new ZipException("The inflater of Java %d cannot read a mapped file".formatted(Runtime.version().feature()));
+    }
+    final var arena = Arena.ofShared();
+    try (final var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      final var segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), arena);
+      return new BufferedZip(segment, arena, parse(segment));
+    } catch (IOException | RuntimeException e) {
+      arena.close();
+      throw e;
+    }
+  }
+
+  private static List<Entry> parse(MemorySegment segment) throws ZipException {
+    final var end = findEnd(segment);
+    long count = u16(segment, end + 10);
+    var directorySize = u32(segment, end + 12);
+    var directoryOffset = u32(segment, end + 16);
+    var directoryLimit = end;
+    if (count == 0xFFFF || directorySize == 0xFFFFFFFFL || directoryOffset == 0xFFFFFFFFL) {
+      final var locator = end - ZIP64_LOCATOR_SIZE;
+      if (locator < 0 || segment.get(INT, locator) != ZIP64_LOCATOR) {
+        throw new ZipException("No ZIP64 end of central directory locator");
+      }
+      final var zip64End = segment.get(LONG, locator + 8);
+      if (zip64End < 0 || zip64End + ZIP64_END_SIZE > locator || segment.get(INT, zip64End) != ZIP64_END_HEADER) {
+        throw new ZipException("Bad ZIP64 end of central directory record");
+      }
+      count = segment.get(LONG, zip64End + 32);
+      directorySize = segment.get(LONG, zip64End + 40);
+      directoryOffset = segment.get(LONG, zip64End + 48);
+      directoryLimit = zip64End;
+    }
+    if (count < 0 || count > Integer.MAX_VALUE || directorySize < 0 || directoryOffset < 0
+        || directoryOffset + directorySize > directoryLimit) {
+      throw new ZipException("Central directory outside the archive");
+    }
+    final var entries = new ArrayList<Entry>((int) count);
+    var at = directoryOffset;
+    for (long i = 0; i < count; i++) {
+      if (at + CENTRAL_HEADER_SIZE > directoryLimit || segment.get(INT, at) != CENTRAL_HEADER) {
+        throw new ZipException("Bad central directory header at " + at);
+      }
+      final var flags = u16(segment, at + 8);
+      final var method = u16(segment, at + 10);
+      final var crc = u32(segment, at + 16);
+      var compressedSize = u32(segment, at + 20);
+      var size = u32(segment, at + 24);
+      final var nameLength = u16(segment, at + 28);
+      final var extraLength = u16(segment, at + 30);
+      final var commentLength = u16(segment, at + 32);
+      var offset = u32(segment, at + 42);
+      final var next = at + CENTRAL_HEADER_SIZE + nameLength + extraLength + commentLength;
+      if (next > directoryLimit) {
+        throw new ZipException("Central directory header at %d runs past the directory".formatted(at));
+      }
+      if ((flags & 1) != 0) {
+        throw new ZipException("Encrypted entries are not supported");
+      }
+      if (method != ZipEntry.STORED && method != ZipEntry.DEFLATED) {
+        throw new ZipException("Unsupported compression method %d".formatted(method));
+      }
+      // a ZIP64 extra field holds, in this order, whichever of the three did not fit in 32 bits
+      var extra = at + CENTRAL_HEADER_SIZE + nameLength;
+      final var extraEnd = extra + extraLength;
+      while (extra + 4 <= extraEnd) {
+        final var id = u16(segment, extra);
+        final var length = u16(segment, extra + 2);
+        if (id == ZIP64_EXTRA) {
+          var field = extra + 4;
+          final var fieldEnd = Math.min(field + length, extraEnd);
+          if (size == 0xFFFFFFFFL && field + 8 <= fieldEnd) {
+            size = segment.get(LONG, field);
+            field += 8;
+          }
+          if (compressedSize == 0xFFFFFFFFL && field + 8 <= fieldEnd) {
+            compressedSize = segment.get(LONG, field);
+            field += 8;
+          }
+          if (offset == 0xFFFFFFFFL && field + 8 <= fieldEnd) {
+            offset = segment.get(LONG, field);
+          }
+          break;
+        }
+        extra += 4 + length;
+      }
+      if (compressedSize == 0xFFFFFFFFL || size == 0xFFFFFFFFL || offset == 0xFFFFFFFFL
+          || compressedSize < 0 || size < 0 || offset < 0) {
+        throw new ZipException("Bad ZIP64 sizes for the entry at " + at);
+      }
+      final var nameBytes = new byte[nameLength];
+      MemorySegment.copy(segment, ValueLayout.JAVA_BYTE, at + CENTRAL_HEADER_SIZE, nameBytes, 0, nameLength);
+      // bit 11 marks UTF-8 names, and without it the JDK reads them as UTF-8 anyway
+      final var entry = new Entry(new String(nameBytes, StandardCharsets.UTF_8), offset);
+      entry.setMethod(method);
+      entry.setCrc(crc);
+      entry.setCompressedSize(compressedSize);
+      entry.setSize(size);
+      entries.add(entry);
+      at = next;
+    }
+    return List.copyOf(entries);
+  }
+
+  /// Scans back from the end for the end of central directory record, which may be followed by a comment.
+  private static long findEnd(MemorySegment segment) throws ZipException {
+    final var lowest = Math.max(0, segment.byteSize() - END_SIZE - 0xFFFF);
+    for (var at = segment.byteSize() - END_SIZE; at >= lowest; at--) {
+      if (segment.get(INT, at) == END_HEADER) {
+        return at;
+      }
+    }
+    throw new ZipException("No end of central directory record");
+  }
+
+  /// Java 21 refuses a buffer of a shared arena in native calls, which [#map] needs the inflater to accept.
+  static boolean canMap() {
+    if (mappable == null) {
+      mappable = probe();
+    }
+    return mappable;
+  }
+
+  private static boolean probe() {
+    final var inflater = new Inflater(true);
+    try (final var arena = Arena.ofShared()) {
+      inflater.setInput(arena.allocate(1).asByteBuffer());
+      inflater.inflate(new byte[1]);
+      return true;
+    } catch (DataFormatException e) {
+      return true;
+    } catch (RuntimeException e) {
+      return false;
+    } finally {
+      inflater.end();
+    }
+  }
+
+  private static int u16(MemorySegment segment, long at) {
+    return Short.toUnsignedInt(segment.get(SHORT, at));
+  }
+
+  private static long u32(MemorySegment segment, long at) {
+    return Integer.toUnsignedLong(segment.get(INT, at));
+  }
+
+  @Override
+  public List<Entry> entries() {
+    return entries;
+  }
+
+  @Override
+  public InputStream getInputStream(ZipEntry zipEntry) throws IOException {
+    if (!(zipEntry instanceof Entry entry)) {
+      throw new IllegalArgumentException("Not an entry of this archive: " + zipEntry.getName());
+    }
+    final var at = entry.localHeaderOffset;
+    if (at + LOCAL_HEADER_SIZE > segment.byteSize() || segment.get(INT, at) != LOCAL_HEADER) {
+      throw new ZipException("Bad local header for " + entry.getName());
+    }
+    // the local name and extra field lengths can differ from the central directory's copies
+    final var start = at + LOCAL_HEADER_SIZE + u16(segment, at + 26) + u16(segment, at + 28);
+    if (start + entry.getCompressedSize() > segment.byteSize()) {
+      throw new EOFException("Entry %s runs past the end of the archive".formatted(entry.getName()));
+    }
+    final var data = segment.asSlice(start, entry.getCompressedSize());
+    if (entry.getMethod() == ZipEntry.STORED) {
+      return new SliceInputStream(data);
+    }
+    return new SliceInflaterInputStream(data);
+  }
+
+  /// Unmaps a mapped file. The buffer of [#read] belongs to the caller, so there is nothing to release for it.
+  @Override
+  public void close() {
+    if (arena != null) {
+      arena.close();
+    }
+  }
+
+  private static final class SliceInputStream extends InputStream {
+    private final MemorySegment slice;
+    private long position = 0;
+
+    SliceInputStream(MemorySegment slice) {
+      this.slice = slice;
+    }
+
+    @Override
+    public int read() {
+      return position < slice.byteSize() ? slice.get(ValueLayout.JAVA_BYTE, position++) & 0xFF : -1;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) {
+      if (length == 0) {
+        return 0;
+      }
+      if (position >= slice.byteSize()) {
+        return -1;
+      }
+      final var n = (int) Math.min(length, slice.byteSize() - position);
+      MemorySegment.copy(slice, ValueLayout.JAVA_BYTE, position, bytes, offset, n);
+      position += n;
+      return n;
+    }
+
+    @Override
+    public int available() {
+      return (int) Math.min(Integer.MAX_VALUE, slice.byteSize() - position);
+    }
+  }
+
+  /// Inflates raw deflate data from `ByteBuffer` views of the slice. It uses the thread's idle inflater when
+  /// there is one and hands it back on close. Like
+  /// [java.util.zip.ZipFile] it feeds one dummy byte at the end, which `nowrap` mode needs.
+  private static final class SliceInflaterInputStream extends InputStream {
+    private final MemorySegment slice;
+    private final Inflater inflater;
+    private long position = 0;
+    private boolean dummyFed = false;
+    private boolean closed = false;
+
+    SliceInflaterInputStream(MemorySegment slice) {
+      this.slice = slice;
+      final var idle = IDLE.get();
+      if (idle != null) {
+        IDLE.remove();
+        this.inflater = idle;
+      } else {
+        this.inflater = new Inflater(true);
+      }
+    }
+
+    @Override
+    public int read() throws IOException {
+      final var one = new byte[1];
+      return read(one, 0, 1) == -1 ? -1 : one[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) throws IOException {
+      if (closed) {
+        throw new IOException("Stream closed");
+      }
+      if (length == 0) {
+        return 0;
+      }
+      try {
+        while (true) {
+          final var n = inflater.inflate(bytes, offset, length);
+          if (n > 0) {
+            return n;
+          }
+          if (inflater.finished()) {
+            return -1;
+          }
+          if (inflater.needsDictionary()) {
+            throw new ZipException("Deflated entry needs a preset dictionary");
+          }
+          if (inflater.needsInput()) {
+            fill();
+          }
+        }
+      } catch (DataFormatException e) {
+        throw new ZipException(e.getMessage() != null ? e.getMessage() : "Invalid deflated entry");
+      }
+    }
+
+    private void fill() throws EOFException {
+      if (position < slice.byteSize()) {
+        final var length = Math.min(MAX_VIEW, slice.byteSize() - position);
+        inflater.setInput(slice.asSlice(position, length).asByteBuffer());
+        position += length;
+      } else if (!dummyFed) {
+        dummyFed = true;
+        inflater.setInput(new byte[1]);
+      } else {
+        throw new EOFException("Unexpected end of deflated entry");
+      }
+    }
+
+    @Override
+    public void close() {
+      if (!closed) {
+        closed = true;
+        // reset also drops the view, so an idle inflater never holds on to a mapping
+        inflater.reset();
+        if (IDLE.get() == null) {
+          IDLE.set(inflater);
+        } else {
+          inflater.end();
+        }
+      }
+    }
+  }
+}
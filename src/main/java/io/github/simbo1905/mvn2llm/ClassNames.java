@@ -0,0 +1,38 @@
+package io.github.simbo1905.mvn2llm;
+
+/// Derives fully qualified class names from archive entry names.
+class ClassNames {
+  // source roots we strip when an archive holds a whole project rather than a sources JAR
+  private static final String[] SOURCE_ROOTS = {"src/main/java/", "src/test/java/", "src/java/"};
+  // a bare `src/` is too common a package name to strip anywhere but at the very start
+  private static final String BARE_ROOT = "src/";
+  private ClassNames() {
+  }
+
+  /// `com/example/Foo.java` becomes `com.example.Foo`. A source root is dropped when the name starts with it or
+  /// with one top-level directory and then it, as in `repo-main/src/main/java/com/example/Foo.java`, so a
+  /// package that happens to be called `src` is kept. The `META-INF/versions/N/` of a multi-release variant is
+  /// dropped too. Returns `null` for names that are not `.java` files.
+  static String fromEntryName(String entryName) {
+    if (!entryName.endsWith(".java")) {
+      return null;
+    }
+    final var base = MultiRelease.baseName(entryName);
+    final var path = base.substring(0, base.length() - ".java".length());
+    return stripSourceRoot(path).replace('/', '.');
+  }
+
+  private static String stripSourceRoot(String path) {
+    final var slash = path.indexOf('/');
+    final var afterTopLevel = slash >= 0 ? path.substring(slash + 1) : "";
+    for (final var root : SOURCE_ROOTS) {
+      if (path.startsWith(root)) {
+        return path.substring(root.length());
+      }
+      if (afterTopLevel.startsWith(root)) {
+        return afterTopLevel.substring(root.length());
+      }
+    }
+    return path.startsWith(BARE_ROOT) ? path.substring(BARE_ROOT.length()) : path;
+  }
+}
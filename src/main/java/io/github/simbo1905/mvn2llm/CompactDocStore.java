@@ -0,0 +1,196 @@
+package io.github.simbo1905.mvn2llm;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/// A compact, append-only store of extracted records for keeping large artifacts in memory.
+///
+/// File names are deduplicated to an int id. Documentation and signature text is encoded once as UTF-8 into a
+/// shared byte arena, which may be off-heap, and each record is five ints: file id plus offset and length of
+/// the doc and of the signature. [#get(int)] returns a [View] flyweight that decodes text on demand.
+class CompactDocStore extends AbstractList<CompactDocStore.View> {
+  private static final Logger LOGGER = Logger.getLogger(CompactDocStore.class.getName());
+
+  private static final int FIELDS = 5;
+  private static final int FILE_ID = 0;
+  private static final int DOC_OFFSET = 1;
+  private static final int DOC_LENGTH = 2;
+  private static final int SIG_OFFSET = 3;
+  private static final int SIG_LENGTH = 4;
+
+  private final boolean direct;
+  private final List<String> fileNames = new ArrayList<>();
+  private final Map<String, Integer> fileIds = new HashMap<>();
+  private int[] records = new int[FIELDS * 8];
+  private int size = 0;
+  private ByteBuffer arena;
+
+  CompactDocStore(boolean direct, int initialCapacity) {
+    this.direct = direct;
+    this.arena = allocate(Math.max(initialCapacity, 16));
+  }
+
+  static CompactDocStore of(List<? extends JavaDocView> docs, boolean direct) {
+    // sized for ASCII text which is the common case, anything else grows the arena
+    var capacity = 0L;
+    for (final var doc : docs) {
+      capacity += doc.documentation().length() + doc.memberSignature().length();
+    }
+    final var store = new CompactDocStore(direct, (int) Math.min(capacity, Integer.MAX_VALUE / 2));
+    docs.forEach(store::add);
+    if (LOGGER.isLoggable(Level.FINE)) {
+      LOGGER.fine("Compact store holds %d records in %d bytes, about %d bytes as records".formatted(
+          store.size(), store.footprintBytes(), estimateRecordHeapBytes(docs)));
+    }
+    return store;
+  }
+
+  void add(JavaDocView doc) {
+    final var fileId = fileIds.computeIfAbsent(doc.fileName(), name -> {
+      fileNames.add(name);
+      return fileNames.size() - 1;
+    });
+    final var docBytes = doc.documentation().getBytes(StandardCharsets.UTF_8);
+    final var sigBytes = doc.memberSignature().getBytes(StandardCharsets.UTF_8);
+    ensureArena(docBytes.length + sigBytes.length);
+    ensureRecords();
+    final var base = size * FIELDS;
+    records[base + FILE_ID] = fileId;
+    records[base + DOC_OFFSET] = arena.position();
+    records[base + DOC_LENGTH] = docBytes.length;
+    arena.put(docBytes);
+    records[base + SIG_OFFSET] = arena.position();
+    records[base + SIG_LENGTH] = sigBytes.length;
+    arena.put(sigBytes);
+    size++;
+  }
+
+  @Override
+  public View get(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException(index);
+    }
+    return new View(this, index);
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  int fileCount() {
+    return fileNames.size();
+  }
+
+  /// Bytes held by this store: the arena capacity, the record table and the deduplicated file names.
+  long footprintBytes() {
+    long bytes = arena.capacity() + (long) records.length * Integer.BYTES;
+    for (final var name : fileNames) {
+      bytes += stringBytes(name) + 2L * Integer.BYTES;
+    }
+    return bytes;
+  }
+
+  /// A rough lower bound for the heap the same records take as separate objects with their own strings.
+  static long estimateRecordHeapBytes(List<? extends JavaDocView> docs) {
+    long bytes = 0;
+    for (final var doc : docs) {
+      bytes += 24 + stringBytes(doc.fileName()) + stringBytes(doc.documentation()) + stringBytes(doc.memberSignature());
+    }
+    return bytes;
+  }
+
+  private static long stringBytes(String s) {
+    // object header and fields plus the backing array header, assuming compact latin-1 strings
+    return 24 + 16 + s.length();
+  }
+
+  private String decode(int offset, int length) {
+    if (arena.hasArray()) {
+      return new String(arena.array(), arena.arrayOffset() + offset, length, StandardCharsets.UTF_8);
+    }
+    return StandardCharsets.UTF_8.decode(arena.slice(offset, length)).toString();
+  }
+
+  private void ensureArena(int needed) {
+    if (arena.remaining() >= needed) {
+      return;
+    }
+    var capacity = arena.capacity();
+    while (capacity - arena.position() < needed) {
+      if (capacity > Integer.MAX_VALUE / 2) {
+        throw new IllegalStateException("Compact store arena exceeds 2GB");
+      }
+      capacity *= 2;
+    }
+    final var grown = allocate(capacity);
+    grown.put(arena.flip());
+    arena = grown;
+  }
+
+  private void ensureRecords() {
+    if ((size + 1) * FIELDS > records.length) {
+      records = Arrays.copyOf(records, records.length * 2);
+    }
+  }
+
+  private ByteBuffer allocate(int capacity) {
+    return direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+  }
+
+  /// A flyweight over one record of the store. The strings are decoded on each call and not retained.
+  static final class View implements JavaDocView {
+    private final CompactDocStore store;
+    private final int index;
+
+    private View(CompactDocStore store, int index) {
+      this.store = store;
+      this.index = index;
+    }
+
+    @Override
+    public String fileName() {
+      return store.fileNames.get(store.records[index * FIELDS + FILE_ID]);
+    }
+
+    @Override
+    public String documentation() {
+      final var base = index * FIELDS;
+      return store.decode(store.records[base + DOC_OFFSET], store.records[base + DOC_LENGTH]);
+    }
+
+    @Override
+    public String memberSignature() {
+      final var base = index * FIELDS;
+      return store.decode(store.records[base + SIG_OFFSET], store.records[base + SIG_LENGTH]);
+    }
+
+    JavaDocInfo toJavaDocInfo() {
+      return new JavaDocInfo(fileName(), documentation(), memberSignature());
+    }
+
+    // equal by content so that two stores holding the same records compare equal
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof View other && toJavaDocInfo().equals(other.toJavaDocInfo());
+    }
+
+    @Override
+    public int hashCode() {
+      return toJavaDocInfo().hashCode();
+    }
+
+    @Override
+    public String toString() {
+      return JavaDocView.format(this);
+    }
+  }
+}
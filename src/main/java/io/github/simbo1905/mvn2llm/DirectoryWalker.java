@@ -0,0 +1,141 @@
+package io.github.simbo1905.mvn2llm;
+
+import java.io.IOException;
+import java.io.Serial;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.logging.Logger;
+
+/// Walks a local source tree and extracts JavaDoc from every `.java` file without an archive round trip.
+/// Directories are listed in parallel on the common fork/join pool and files are read through a `FileChannel`,
+/// memory-mapping anything large enough for the mapping cost to pay off.
+class DirectoryWalker {
+  private static final Logger LOGGER = Logger.getLogger(DirectoryWalker.class.getName());
+
+  /// Below this size a plain channel read into a heap buffer is cheaper than setting up a mapping.
+  static final long MAP_THRESHOLD = 64 * 1024;
+
+  private DirectoryWalker() {
+  }
+
+  static List<JavaDocInfo> extractJavaDocs(Path root) {
+    return extractJavaDocs(root, ExtractionLimits.DEFAULTS.budget());
+  }
+
+  static List<JavaDocInfo> extractJavaDocs(Path root, ExtractionLimits.Budget budget) {
+    LOGGER.fine("Processing directory: %s".formatted(root));
+    final var docs = findJavaFiles(root).parallelStream()
+        .map(file -> extractJavaDocFromFile(root, file, budget))
+        .flatMap(List::stream)
+        .toList();
+    if (budget.skippedCount() > 0) {
+      LOGGER.warning("Skipped %d files over the extraction limits".formatted(budget.skippedCount()));
+    }
+    return docs;
+  }
+
+  /// Returns every `.java` file below `root` sorted by path so the output order is stable between runs.
+  static List<Path> findJavaFiles(Path root) {
+    if (!Files.isDirectory(root)) {
+      throw new IllegalArgumentException("Not a directory: " + root);
+    }
+    final var files = new ArrayList<>(ForkJoinPool.commonPool().invoke(new ListTask(root)));
+    files.sort(Comparator.naturalOrder());
+    return files;
+  }
+
+  static List<JavaDocInfo> extractJavaDocFromFile(Path root, Path file, ExtractionLimits.Budget budget) {
+    final var entryName = entryName(root, file);
+    try {
+      // a local file's size is exact so checking it up front is as good as counting while reading
+      final var size = Files.size(file);
+      budget.checkDeclared(entryName, size);
+      budget.consume(entryName, size);
+      return extractJavaDocFromBuffer(entryName, readBytes(file), budget.limits(), budget.options());
+    } catch (ExtractionLimits.LimitExceededException e) {
+      LOGGER.warning("Skipping %s: %s".formatted(entryName, e.getMessage()));
+      budget.skipped();
+      return Collections.emptyList();
+    } catch (IOException | UncheckedIOException e) {
+      LOGGER.warning("Failed to process file %s: %s".formatted(entryName, e.getMessage()));
+      return Collections.emptyList();
+    }
+  }
+
+  static List<JavaDocInfo> extractJavaDocFromBuffer(String entryName, ByteBuffer buffer, ExtractionLimits limits,
+                                                    ExtractionOptions options) {
+    LOGGER.fine("Extracting JavaDoc from: %s".formatted(entryName));
+    final var stateMachine = new LinePushStateMachine(entryName, limits, options);
+    StandardCharsets.UTF_8.decode(buffer).toString().lines().forEach(stateMachine::apply);
+    return stateMachine.results;
+  }
+
+  /// The file name we report is the path relative to the root with forward slashes, just like a zip entry name.
+  static String entryName(Path root, Path file) {
+    return root.relativize(file).toString().replace('\\', '/');
+  }
+
+  static ByteBuffer readBytes(Path file) throws IOException {
+    try (final var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      final var size = channel.size();
+      if (size > Integer.MAX_VALUE) {
+        throw new IOException("File too large: " + file);
+      }
+      if (size >= MAP_THRESHOLD) {
+        return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+      }
+      final var buffer = ByteBuffer.allocate((int) size);
+      while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+        // keep reading until the buffer is full or we hit EOF
+      }
+      return buffer.flip();
+    }
+  }
+
+  /// Lists one directory and forks a subtask per subdirectory.
+  private static class ListTask extends RecursiveTask<List<Path>> {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    // tasks are never serialized, the field is only transient to keep the serial lint quiet
+    private final transient Path dir;
+
+    ListTask(Path dir) {
+      this.dir = dir;
+    }
+
+    @Override
+    protected List<Path> compute() {
+      final var files = new ArrayList<Path>();
+      final var subtasks = new ArrayList<ListTask>();
+      try (final var children = Files.newDirectoryStream(dir)) {
+        for (final var child : children) {
+          // do not follow symlinked directories as they can form cycles
+          if (Files.isDirectory(child, LinkOption.NOFOLLOW_LINKS)) {
+            final var task = new ListTask(child);
+            task.fork();
+            subtasks.add(task);
+          } else if (child.getFileName().toString().endsWith(".java")) {
+            files.add(child);
+          }
+        }
+      } catch (IOException e) {
+        LOGGER.warning("Failed to list directory %s: %s".formatted(dir, e.getMessage()));
+      }
+      subtasks.forEach(task -> files.addAll(task.join()));
+      return files;
+    }
+  }
+}
@@ -0,0 +1,208 @@
+package io.github.simbo1905.mvn2llm;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+/// Keeps the extracted docs of a local directory in memory and re-parses only the files that change.
+/// After the initial full scan each batch of file system events is turned into a list of [Change]s, one per
+/// file whose content hash actually changed, so the work per save is proportional to the edit. A file is hashed
+/// before it is parsed, and one whose hash is unchanged is not parsed again. Each file is held to the entry size
+/// and length limits, but not to the total size limit, which a watch that runs for hours would soon reach. A file
+/// that can no longer be read or has grown over a limit is reported as removed. Overloads are collapsed within
+/// each file when asked; a token budget covers a whole extraction, so `--watch` does not accept one.
+class DirectoryWatcher implements AutoCloseable {
+  private static final Logger LOGGER = Logger.getLogger(DirectoryWatcher.class.getName());
+
+  /// Editors often save a file as several writes or a write plus a rename, so we wait for events to go quiet.
+  static final long QUIET_PERIOD_MILLIS = 50;
+
+  /// Docs are held in a [CompactDocStore] as a live workspace can stay in memory for hours.
+  record FileState(byte[] hash, CompactDocStore docs) {
+  }
+
+  record Change(String fileName, List<? extends JavaDocView> docs, boolean removed) {
+    @Override
+    public String toString() {
+      final var sb = new StringBuilder();
+      sb.append(removed ? "Removed: " : "Updated: ").append(fileName).append('\n');
+      docs.forEach(doc -> sb.append(doc).append('\n'));
+      return sb.toString();
+    }
+  }
+
+  private final Path root;
+  private final ExtractionLimits limits;
+  private final ExtractionOptions options;
+  private final WatchService watchService;
+  private final Map<WatchKey, Path> keys = new HashMap<>();
+  private final Map<Path, FileState> files = new TreeMap<>();
+
+  DirectoryWatcher(Path root) throws IOException {
+    this(root, ExtractionLimits.DEFAULTS, ExtractionOptions.DEFAULTS);
+  }
+
+  DirectoryWatcher(Path root, ExtractionLimits limits, ExtractionOptions options) throws IOException {
+    this.root = root;
+    this.limits = limits;
+    this.options = options;
+    this.watchService = root.getFileSystem().newWatchService();
+  }
+
+  /// Registers the whole tree with the watch service and extracts every file once.
+  List<CompactDocStore.View> initialScan() throws IOException {
+    register(root);
+    final var loaded = new ConcurrentHashMap<Path, FileState>();
+    DirectoryWalker.findJavaFiles(root).parallelStream()
+        .forEach(file -> load(file, null).ifPresent(state -> loaded.put(file, state)));
+    files.putAll(loaded);
+    return files.values().stream().flatMap(state -> state.docs().stream()).toList();
+  }
+
+  /// Blocks forever delivering a [Change] for each file whose content differs from what we last saw.
+  void watch(Consumer<Change> sink) throws IOException, InterruptedException {
+    while (true) {
+      final var changed = new TreeSet<Path>();
+      var key = watchService.take();
+      while (key != null) {
+        drain(key, changed);
+        key = watchService.poll(QUIET_PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+      }
+      refresh(changed).forEach(sink);
+    }
+  }
+
+  /// Re-reads the given paths and returns the changes against the cached state in path order.
+  List<Change> refresh(Collection<Path> paths) {
+    final var changes = new ArrayList<Change>();
+    for (final var file : new TreeSet<>(paths)) {
+      final var name = DirectoryWalker.entryName(root, file);
+      if (!Files.isRegularFile(file)) {
+        if (files.remove(file) != null) {
+          changes.add(new Change(name, List.of(), true));
+        }
+        continue;
+      }
+      final var previous = files.get(file);
+      final var current = load(file, previous);
+      if (current.isEmpty()) {
+        // its old docs would be stale, the next event for the file loads it again
+        if (files.remove(file) != null) {
+          changes.add(new Change(name, List.of(), true));
+        }
+        continue;
+      }
+      if (current.get() == previous) {
+        continue;
+      }
+      files.put(file, current.get());
+      changes.add(new Change(name, current.get().docs(), false));
+    }
+    return changes;
+  }
+
+  private void drain(WatchKey key, Set<Path> changed) throws IOException {
+    final var dir = keys.get(key);
+    for (final var event : key.pollEvents()) {
+      if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+        LOGGER.fine("Watch events overflowed, rescanning %s".formatted(root));
+        changed.addAll(files.keySet());
+        changed.addAll(DirectoryWalker.findJavaFiles(root));
+        continue;
+      }
+      if (dir == null) {
+        continue;
+      }
+      final var child = dir.resolve((Path) event.context());
+      if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE
+          && Files.isDirectory(child, LinkOption.NOFOLLOW_LINKS)) {
+        register(child);
+        changed.addAll(DirectoryWalker.findJavaFiles(child));
+      } else if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+        // a deleted directory does not report its children so drop everything we know below it
+        files.keySet().stream().filter(file -> file.startsWith(child)).forEach(changed::add);
+      } else if (child.getFileName().toString().endsWith(".java")) {
+        changed.add(child);
+      }
+    }
+    if (!key.reset()) {
+      keys.remove(key);
+    }
+  }
+
+  private void register(Path start) throws IOException {
+    Files.walkFileTree(start, new SimpleFileVisitor<>() {
+      @Override
+      public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+        final var key = dir.register(watchService,
+            StandardWatchEventKinds.ENTRY_CREATE,
+            StandardWatchEventKinds.ENTRY_MODIFY,
+            StandardWatchEventKinds.ENTRY_DELETE);
+        keys.put(key, dir);
+        return FileVisitResult.CONTINUE;
+      }
+    });
+  }
+
+  /// Returns `previous` itself when the content hashes the same, without parsing the file.
+  private Optional<FileState> load(Path file, FileState previous) {
+    final var name = DirectoryWalker.entryName(root, file);
+    try {
+      limits.budget(options).checkDeclared(name, Files.size(file));
+      final var buffer = DirectoryWalker.readBytes(file);
+      final var digest = sha256();
+      digest.update(buffer.duplicate());
+      final var hash = digest.digest();
+      if (previous != null && Arrays.equals(previous.hash(), hash)) {
+        LOGGER.fine("Unchanged content: %s".formatted(name));
+        return Optional.of(previous);
+      }
+      final var parsed = DirectoryWalker.extractJavaDocFromBuffer(name, buffer, limits, options);
+      final var docs = options.collapse() ? OverloadCollapser.collapse(parsed) : parsed;
+      return Optional.of(new FileState(hash, CompactDocStore.of(docs, false)));
+    } catch (ExtractionLimits.LimitExceededException e) {
+      LOGGER.warning("Skipping %s: %s".formatted(name, e.getMessage()));
+      return Optional.empty();
+    } catch (IOException e) {
+      // the file may have been deleted or be mid-write, the next event will pick it up again
+      LOGGER.warning("Failed to process file %s: %s".formatted(name, e.getMessage()));
+      return Optional.empty();
+    }
+  }
+
+  private static MessageDigest sha256() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is required by every Java platform", e);
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    watchService.close();
+  }
+}
@@ -0,0 +1,430 @@
+package io.github.simbo1905.mvn2llm;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.logging.Logger;
+
+/// An on-disk full-text index over extracted records with BM25 ranking.
+///
+/// Every indexed extraction becomes one immutable segment file. A segment holds a record table, a sorted term
+/// table of fixed-width slots for binary search, the postings of each term as (record id, term frequency) pairs
+/// and the UTF-8 record text. Queries memory-map each segment and only touch the slots, postings and records
+/// they need, so answering does not re-scan any text.
+///
+/// The header names the source the segment was extracted from. Indexing a source again writes a new segment and
+/// deletes the earlier ones for that source, and a query only reads the newest segment of each source in case a
+/// concurrent run left an older one behind.
+///
+/// Segment layout, all integers big-endian:
+/// ```
+/// header:   magic:int version:int records:int terms:int totalLength:long
+///           recordTable:long termTable:long termText:long postings:long text:long
+///           source as length:int + UTF-8 bytes
+/// records:  (textOffset:long length:int)*          length is the record's token count
+/// terms:    (textOffset:long textLength:int docFreq:int postingsOffset:long)*   sorted by term bytes
+/// postings: (recordId:int termFreq:int)*
+/// text:     (fileName, documentation, signature) each as length:int + UTF-8 bytes
+/// ```
+class DocIndex {
+  private static final Logger LOGGER = Logger.getLogger(DocIndex.class.getName());
+
+  static final int MAGIC = 0x6d32_6978;
+  static final int VERSION = 2;
+  static final String SUFFIX = ".seg";
+
+  private static final int HEADER_BYTES = 4 + 4 + 4 + 4 + 8 + 8 * 5;
+  private static final int RECORD_SLOT = 8 + 4;
+  private static final int TERM_SLOT = 8 + 4 + 4 + 8;
+
+  // standard BM25 parameters
+  static final double K1 = 1.2;
+  static final double B = 0.75;
+
+  record Hit(double score, String source, JavaDocInfo doc) {
+    @Override
+    public String toString() {
+      return "Match %.3f %s%n%s".formatted(score, source, doc);
+    }
+  }
+
+  private DocIndex() {
+  }
+
+  static Path defaultDirectory() {
+    return EntryCache.defaultRoot().resolve("index");
+  }
+
+  /// Splits text into lower-case alphanumeric tokens. Identifiers are also split at camel case humps so that
+  /// `onBackpressureDrop` is found by `backpressure`.
+  static List<String> tokenize(String text) {
+    final var tokens = new ArrayList<String>();
+    int start = -1;
+    for (int i = 0; i <= text.length(); i++) {
+      final var ch = i < text.length() ? text.charAt(i) : ' ';
+      if (Character.isLetterOrDigit(ch)) {
+        if (start < 0) {
+          start = i;
+        }
+      } else if (start >= 0) {
+        addToken(text.substring(start, i), tokens);
+        start = -1;
+      }
+    }
+    return tokens;
+  }
+
+  private static void addToken(String word, List<String> tokens) {
+    if (word.length() < 2) {
+      return;
+    }
+    tokens.add(word.toLowerCase());
+    int from = 0;
+    for (int i = 1; i < word.length(); i++) {
+      if (Character.isUpperCase(word.charAt(i)) && Character.isLowerCase(word.charAt(i - 1))) {
+        addPart(word.substring(from, i), tokens);
+        from = i;
+      }
+    }
+    if (from > 0) {
+      addPart(word.substring(from), tokens);
+    }
+  }
+
+  private static void addPart(String part, List<String> tokens) {
+    if (part.length() >= 2) {
+      tokens.add(part.toLowerCase());
+    }
+  }
+
+  /// Writes the records as a new segment in `directory`, replacing any earlier segment of the same `source`, and
+  /// returns its path.
+  static Path addSegment(Path directory, String source, List<? extends JavaDocView> docs) throws IOException {
+    Files.createDirectories(directory);
+    final var postings = new TreeMap<String, List<int[]>>(DocIndex::compareUtf8);
+    final var lengths = new int[docs.size()];
+    long totalLength = 0;
+    for (int id = 0; id < docs.size(); id++) {
+      final var doc = docs.get(id);
+      final var tokens = tokenize(doc.documentation() + " " + doc.memberSignature());
+      lengths[id] = tokens.size();
+      totalLength += tokens.size();
+      final var counts = new HashMap<String, Integer>();
+      tokens.forEach(token -> counts.merge(token, 1, Integer::sum));
+      for (final var entry : counts.entrySet()) {
+        postings.computeIfAbsent(entry.getKey(), _ -> new ArrayList<>()).add(new int[]{id, entry.getValue()});
+      }
+    }
+
+    final var sourceBytes = source.getBytes(StandardCharsets.UTF_8);
+    final var text = new ByteArrayOutputStream();
+    final var textOffsets = new long[docs.size()];
+    for (int id = 0; id < docs.size(); id++) {
+      final var doc = docs.get(id);
+      textOffsets[id] = text.size();
+      writeBlob(text, doc.fileName().getBytes(StandardCharsets.UTF_8));
+      writeBlob(text, doc.documentation().getBytes(StandardCharsets.UTF_8));
+      writeBlob(text, doc.memberSignature().getBytes(StandardCharsets.UTF_8));
+    }
+
+    final var termText = new ByteArrayOutputStream();
+    final var recordTable = (long) HEADER_BYTES + 4 + sourceBytes.length;
+    final var termTable = recordTable + (long) RECORD_SLOT * docs.size();
+    final var termTextOffset = termTable + (long) TERM_SLOT * postings.size();
+    long postingsBytes = 0;
+    for (final var entry : postings.entrySet()) {
+      termText.writeBytes(entry.getKey().getBytes(StandardCharsets.UTF_8));
+      postingsBytes += 8L * entry.getValue().size();
+    }
+    final var postingsOffset = termTextOffset + termText.size();
+    final var textOffset = postingsOffset + postingsBytes;
+    final var totalBytes = textOffset + text.size();
+    if (totalBytes > Integer.MAX_VALUE) {
+      throw new IOException("Index segment would exceed 2GB, index fewer records at a time");
+    }
+
+    final var out = ByteBuffer.allocate((int) totalBytes).order(ByteOrder.BIG_ENDIAN);
+    out.putInt(MAGIC).putInt(VERSION).putInt(docs.size()).putInt(postings.size()).putLong(totalLength);
+    out.putLong(recordTable).putLong(termTable).putLong(termTextOffset).putLong(postingsOffset).putLong(textOffset);
+    out.putInt(sourceBytes.length).put(sourceBytes);
+    for (int id = 0; id < docs.size(); id++) {
+      out.putLong(textOffsets[id]).putInt(lengths[id]);
+    }
+    long termCursor = 0;
+    long postingsCursor = 0;
+    for (final var entry : postings.entrySet()) {
+      final var termLength = entry.getKey().getBytes(StandardCharsets.UTF_8).length;
+      out.putLong(termCursor).putInt(termLength).putInt(entry.getValue().size()).putLong(postingsCursor);
+      termCursor += termLength;
+      postingsCursor += 8L * entry.getValue().size();
+    }
+    out.put(termText.toByteArray());
+    for (final var list : postings.values()) {
+      for (final var posting : list) {
+        out.putInt(posting[0]).putInt(posting[1]);
+      }
+    }
+    out.put(text.toByteArray());
+
+    final var segment = directory.resolve("%d-%08x%s".formatted(System.currentTimeMillis(), System.nanoTime() & 0xffffffffL, SUFFIX));
+    final var temp = Files.createTempFile(directory, "segment", ".tmp");
+    try {
+      Files.write(temp, out.array());
+      try {
+        Files.move(temp, segment, StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(temp, segment);
+      }
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+    LOGGER.fine("Indexed %d records with %d terms into %s".formatted(docs.size(), postings.size(), segment));
+    for (final var older : segmentsOf(directory, source)) {
+      if (!older.equals(segment)) {
+        Files.deleteIfExists(older);
+        LOGGER.fine("Replaced index segment %s".formatted(older));
+      }
+    }
+    return segment;
+  }
+
+  /// Every readable segment in `directory` whose header names `source`. Only the header is read, and nothing is
+  /// mapped, as a file that is still mapped cannot be deleted on Windows.
+  private static List<Path> segmentsOf(Path directory, String source) throws IOException {
+    final var sourceBytes = source.getBytes(StandardCharsets.UTF_8);
+    final var matching = new ArrayList<Path>();
+    try (final var files = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+      for (final var file : files) {
+        try (final var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+          final var header = ByteBuffer.allocate(HEADER_BYTES + 4 + sourceBytes.length);
+          while (header.hasRemaining() && channel.read(header) >= 0) {
+            // keep reading until the header is full or we hit EOF
+          }
+          if (!header.hasRemaining() && header.getInt(0) == MAGIC && header.getInt(4) == VERSION
+              && header.getInt(HEADER_BYTES) == sourceBytes.length
+              && header.slice(HEADER_BYTES + 4, sourceBytes.length).equals(ByteBuffer.wrap(sourceBytes))) {
+            matching.add(file);
+          }
+        } catch (IOException e) {
+          // an unreadable segment is skipped by queries too, and may be being deleted by another run
+        }
+      }
+    }
+    return matching;
+  }
+
+  /// Returns the `k` best records for the query across every segment in `directory`.
+  static List<Hit> query(Path directory, String query, int k) throws IOException {
+    final var terms = new LinkedHashSet<>(tokenize(query));
+    if (terms.isEmpty() || !Files.isDirectory(directory)) {
+      return List.of();
+    }
+    final var segments = openSegments(directory);
+    // BM25 statistics are global so that scores from different segments are comparable
+    long records = 0;
+    long totalLength = 0;
+    final var docFreqs = new HashMap<String, Long>();
+    for (final var segment : segments) {
+      records += segment.records();
+      totalLength += segment.totalLength();
+      for (final var term : terms) {
+        final var slot = segment.findTerm(term);
+        if (slot >= 0) {
+          docFreqs.merge(term, (long) segment.docFreq(slot), Long::sum);
+        }
+      }
+    }
+    if (records == 0) {
+      return List.of();
+    }
+    final var averageLength = Math.max(1.0, (double) totalLength / records);
+
+    record Candidate(Segment segment, int id, double score) {
+    }
+    final var top = new PriorityQueue<Candidate>(Comparator.comparingDouble(Candidate::score));
+    for (final var segment : segments) {
+      final var scores = new HashMap<Integer, Double>();
+      for (final var term : terms) {
+        final var slot = segment.findTerm(term);
+        if (slot < 0) {
+          continue;
+        }
+        final var df = docFreqs.get(term);
+        final var idf = Math.log(1 + (records - df + 0.5) / (df + 0.5));
+        segment.forEachPosting(slot, (id, tf) -> {
+          final var norm = K1 * (1 - B + B * segment.length(id) / averageLength);
+          scores.merge(id, idf * tf * (K1 + 1) / (tf + norm), Double::sum);
+        });
+      }
+      for (final var entry : scores.entrySet()) {
+        top.add(new Candidate(segment, entry.getKey(), entry.getValue()));
+        if (top.size() > k) {
+          top.poll();
+        }
+      }
+    }
+    final var hits = new ArrayList<Hit>(top.size());
+    while (!top.isEmpty()) {
+      final var candidate = top.poll();
+      hits.add(candidate.segment().hit(candidate.id(), candidate.score()));
+    }
+    hits.sort(Comparator.comparingDouble(Hit::score).reversed());
+    return hits;
+  }
+
+  /// The newest segment of each source. Segment names start with their creation time, so the newest sorts last.
+  private static List<Segment> openSegments(Path directory) throws IOException {
+    final var newest = new HashMap<String, Segment>();
+    final var names = new HashMap<String, String>();
+    try (final var files = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+      for (final var file : files) {
+        try {
+          final var segment = Segment.open(file);
+          final var name = file.getFileName().toString();
+          final var previous = names.get(segment.source());
+          if (previous == null || previous.compareTo(name) < 0) {
+            newest.put(segment.source(), segment);
+            names.put(segment.source(), name);
+          }
+        } catch (IOException e) {
+          LOGGER.warning("Skipping unreadable index segment %s: %s".formatted(file, e.getMessage()));
+        }
+      }
+    }
+    return new ArrayList<>(newest.values());
+  }
+
+  private static void writeBlob(ByteArrayOutputStream out, byte[] bytes) {
+    out.write(bytes.length >>> 24);
+    out.write(bytes.length >>> 16);
+    out.write(bytes.length >>> 8);
+    out.write(bytes.length);
+    out.writeBytes(bytes);
+  }
+
+  /// Orders strings by their UTF-8 bytes, which is the order the term table is searched in.
+  static int compareUtf8(String a, String b) {
+    return Arrays.compareUnsigned(a.getBytes(StandardCharsets.UTF_8), b.getBytes(StandardCharsets.UTF_8));
+  }
+
+  interface PostingVisitor {
+    void visit(int id, int termFreq);
+  }
+
+  /// A read-only memory-mapped view of one segment file.
+  record Segment(MappedByteBuffer map, String source, int records, int terms, long totalLength,
+                 int recordTable, int termTable, int termText, int postings, int text) {
+
+    /// Checks every header field against the size of the file, so a truncated or corrupt segment fails here
+    /// with an [IOException] rather than later with an unchecked exception in the middle of a query.
+    static Segment open(Path file) throws IOException {
+      try (final var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+        final var map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        final var limit = map.limit();
+        if (limit < HEADER_BYTES + 4 || map.getInt(0) != MAGIC || map.getInt(4) != VERSION) {
+          throw new IOException("not a version %d index segment".formatted(VERSION));
+        }
+        final var sourceLength = map.getInt(HEADER_BYTES);
+        final var records = map.getInt(8);
+        final var terms = map.getInt(12);
+        final var recordTable = map.getLong(24);
+        final var termTable = map.getLong(32);
+        final var termText = map.getLong(40);
+        final var postings = map.getLong(48);
+        final var text = map.getLong(56);
+        // the sections follow one another in this order, and the two tables are exactly as long as their counts
+        if (sourceLength < 0 || records < 0 || terms < 0
+            || recordTable != (long) HEADER_BYTES + 4 + sourceLength
+            || termTable != recordTable + (long) RECORD_SLOT * records
+            || termText < termTable + (long) TERM_SLOT * terms
+            || postings < termText || text < postings || text > limit) {
+          throw new IOException("corrupt index segment header");
+        }
+        final var source = new byte[sourceLength];
+        map.get(HEADER_BYTES + 4, source);
+        return new Segment(map, new String(source, StandardCharsets.UTF_8), records, terms, map.getLong(16),
+            (int) recordTable, (int) termTable, (int) termText, (int) postings, (int) text);
+      }
+    }
+
+    int length(int id) {
+      return map.getInt(recordTable + id * RECORD_SLOT + 8);
+    }
+
+    int docFreq(int slot) {
+      return map.getInt(termTable + slot * TERM_SLOT + 12);
+    }
+
+    /// Binary search over the sorted term slots comparing raw UTF-8 bytes in the mapping.
+    int findTerm(String term) {
+      final var key = term.getBytes(StandardCharsets.UTF_8);
+      int low = 0;
+      int high = terms - 1;
+      while (low <= high) {
+        final var mid = (low + high) >>> 1;
+        final var cmp = compareTerm(mid, key);
+        if (cmp < 0) {
+          low = mid + 1;
+        } else if (cmp > 0) {
+          high = mid - 1;
+        } else {
+          return mid;
+        }
+      }
+      return -1;
+    }
+
+    private int compareTerm(int slot, byte[] key) {
+      final var base = termTable + slot * TERM_SLOT;
+      final var offset = termText + (int) map.getLong(base);
+      final var length = map.getInt(base + 8);
+      final var common = Math.min(length, key.length);
+      for (int i = 0; i < common; i++) {
+        final var cmp = Integer.compare(map.get(offset + i) & 0xff, key[i] & 0xff);
+        if (cmp != 0) {
+          return cmp;
+        }
+      }
+      return Integer.compare(length, key.length);
+    }
+
+    void forEachPosting(int slot, PostingVisitor visitor) {
+      final var base = termTable + slot * TERM_SLOT;
+      final var count = map.getInt(base + 12);
+      var offset = postings + (int) map.getLong(base + 16);
+      for (int i = 0; i < count; i++, offset += 8) {
+        visitor.visit(map.getInt(offset), map.getInt(offset + 4));
+      }
+    }
+
+    Hit hit(int id, double score) {
+      var offset = text + (int) map.getLong(recordTable + id * RECORD_SLOT);
+      final var fields = new String[3];
+      for (int i = 0; i < fields.length; i++) {
+        final var length = map.getInt(offset);
+        final var bytes = new byte[length];
+        map.get(offset + 4, bytes);
+        fields[i] = new String(bytes, StandardCharsets.UTF_8);
+        offset += 4 + length;
+      }
+      return new Hit(score, source, new JavaDocInfo(fields[0], fields[1], fields[2]));
+    }
+  }
+}
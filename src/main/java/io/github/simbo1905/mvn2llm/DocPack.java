@@ -0,0 +1,234 @@
+package io.github.simbo1905.mvn2llm;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.logging.Logger;
+
+/// A single-file, memory-mappable bundle of pre-extracted documentation for offline build agents.
+///
+/// Classes are stored in a table sorted by the UTF-8 bytes of their fully qualified name, each slot pointing
+/// at a contiguous range of records, so a lookup is a binary search over the mapping that decodes only the
+/// records of the class asked for.
+///
+/// Layout, all integers big-endian and all offsets relative to the start of the file:
+/// ```
+/// header:  magic:int version:int classes:int records:int classTable:int recordTable:int text:int reserved:int
+/// classes: (nameOffset:int nameLength:int sourceOffset:int sourceLength:int firstRecord:int recordCount:int)*
+/// records: (textOffset:int)*
+/// text:    class names and sources as raw UTF-8, then each record as fileName, documentation and signature
+///          each prefixed by its length:int
+/// ```
+record DocPack(MappedByteBuffer map, int classes, int records, int classTable, int recordTable) {
+  private static final Logger LOGGER = Logger.getLogger(DocPack.class.getName());
+
+  static final int MAGIC = 0x6d32_6470;
+  static final int VERSION = 1;
+
+  private static final int HEADER_BYTES = 8 * 4;
+  private static final int CLASS_SLOT = 6 * 4;
+  private static final int RECORD_SLOT = 4;
+
+  /// The docs extracted from one coordinate.
+  record Section(String source, List<? extends JavaDocView> docs) {
+  }
+
+  private record ClassGroup(String name, String source, List<JavaDocView> docs) {
+  }
+
+  static void write(Path file, List<Section> sections) throws IOException {
+    final var groups = new ArrayList<ClassGroup>();
+    for (final var section : sections) {
+      final var byClass = new LinkedHashMap<String, ClassGroup>();
+      for (final var doc : section.docs()) {
+        final var className = ClassNames.fromEntryName(doc.fileName());
+        final var key = className != null ? className : doc.fileName();
+        byClass.computeIfAbsent(key, name -> new ClassGroup(name, section.source(), new ArrayList<>())).docs().add(doc);
+      }
+      groups.addAll(byClass.values());
+    }
+    // stable so that a class present in several coordinates keeps the order the coordinates were given in
+    groups.sort(Comparator.comparing(ClassGroup::name, DocIndex::compareUtf8));
+
+    final var recordCount = groups.stream().mapToInt(group -> group.docs().size()).sum();
+    final var classTable = HEADER_BYTES;
+    final var recordTable = classTable + CLASS_SLOT * groups.size();
+    final var textStart = recordTable + (long) RECORD_SLOT * recordCount;
+
+    final var text = new ByteArrayOutputStream();
+    final var slots = ByteBuffer.allocate(CLASS_SLOT * groups.size());
+    final var recordOffsets = ByteBuffer.allocate(RECORD_SLOT * recordCount);
+    final var sourceOffsets = new LinkedHashMap<String, Integer>();
+    var nextRecord = 0;
+    for (final var group : groups) {
+      final var name = group.name().getBytes(StandardCharsets.UTF_8);
+      final var nameOffset = offset(textStart, text);
+      text.writeBytes(name);
+      final var source = group.source().getBytes(StandardCharsets.UTF_8);
+      var sourceOffset = sourceOffsets.get(group.source());
+      if (sourceOffset == null) {
+        sourceOffset = offset(textStart, text);
+        sourceOffsets.put(group.source(), sourceOffset);
+        text.writeBytes(source);
+      }
+      slots.putInt(nameOffset).putInt(name.length).putInt(sourceOffset).putInt(source.length)
+          .putInt(nextRecord).putInt(group.docs().size());
+      nextRecord += group.docs().size();
+    }
+    for (final var group : groups) {
+      for (final var doc : group.docs()) {
+        recordOffsets.putInt(offset(textStart, text));
+        writeBlob(text, doc.fileName());
+        writeBlob(text, doc.documentation());
+        writeBlob(text, doc.memberSignature());
+      }
+    }
+
+    final var header = ByteBuffer.allocate(HEADER_BYTES)
+        .putInt(MAGIC).putInt(VERSION).putInt(groups.size()).putInt(recordCount)
+        .putInt(classTable).putInt(recordTable).putInt((int) textStart).putInt(0);
+
+    final var directory = file.toAbsolutePath().getParent();
+    Files.createDirectories(directory);
+    // not createTempFile, its owner-only permissions would follow the pack we are about to ship
+    final var temp = directory.resolve("%s.%d.tmp".formatted(file.getFileName(), ProcessHandle.current().pid()));
+    try {
+      try (final var channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.CREATE_NEW)) {
+        for (final var buffer : List.of(header.flip(), slots.flip(), recordOffsets.flip(), ByteBuffer.wrap(text.toByteArray()))) {
+          while (buffer.hasRemaining()) {
+            channel.write(buffer);
+          }
+        }
+      }
+      try {
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+    LOGGER.fine("Packed %d classes and %d records into %s".formatted(groups.size(), recordCount, file));
+  }
+
+  static DocPack open(Path file) throws IOException {
+    try (final var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      final var map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      if (map.limit() < HEADER_BYTES || map.getInt(0) != MAGIC) {
+        throw new IOException("Not a doc pack: " + file);
+      }
+      if (map.getInt(4) != VERSION) {
+        throw new IOException("Unsupported doc pack version %d in %s".formatted(map.getInt(4), file));
+      }
+      return new DocPack(map, map.getInt(8), map.getInt(12), map.getInt(16), map.getInt(20));
+    }
+  }
+
+  /// Returns the docs of one class, from every coordinate that contains it, decoding nothing else.
+  List<JavaDocInfo> lookup(String className) {
+    final var key = className.getBytes(StandardCharsets.UTF_8);
+    var low = 0;
+    var high = classes - 1;
+    var found = -1;
+    while (low <= high) {
+      final var mid = (low + high) >>> 1;
+      final var cmp = compareName(mid, key);
+      if (cmp < 0) {
+        low = mid + 1;
+      } else if (cmp > 0) {
+        high = mid - 1;
+      } else {
+        found = mid;
+        // keep going left so we start at the first of any duplicates
+        high = mid - 1;
+      }
+    }
+    final var docs = new ArrayList<JavaDocInfo>();
+    for (var slot = found; slot >= 0 && slot < classes && compareName(slot, key) == 0; slot++) {
+      final var base = classTable + slot * CLASS_SLOT;
+      final var first = map.getInt(base + 16);
+      final var count = map.getInt(base + 20);
+      for (var record = first; record < first + count; record++) {
+        docs.add(record(record));
+      }
+    }
+    return docs;
+  }
+
+  List<JavaDocInfo> all() {
+    final var docs = new ArrayList<JavaDocInfo>(records);
+    for (var record = 0; record < records; record++) {
+      docs.add(record(record));
+    }
+    return docs;
+  }
+
+  List<String> classNames() {
+    final var names = new ArrayList<String>(classes);
+    for (var slot = 0; slot < classes; slot++) {
+      final var base = classTable + slot * CLASS_SLOT;
+      names.add(string(map.getInt(base), map.getInt(base + 4)));
+    }
+    return names;
+  }
+
+  private JavaDocInfo record(int record) {
+    var offset = map.getInt(recordTable + record * RECORD_SLOT);
+    final var fields = new String[3];
+    for (var i = 0; i < fields.length; i++) {
+      final var length = map.getInt(offset);
+      fields[i] = string(offset + 4, length);
+      offset += 4 + length;
+    }
+    return new JavaDocInfo(fields[0], fields[1], fields[2]);
+  }
+
+  private int compareName(int slot, byte[] key) {
+    final var base = classTable + slot * CLASS_SLOT;
+    final var offset = map.getInt(base);
+    final var length = map.getInt(base + 4);
+    final var common = Math.min(length, key.length);
+    for (var i = 0; i < common; i++) {
+      final var cmp = Integer.compare(map.get(offset + i) & 0xff, key[i] & 0xff);
+      if (cmp != 0) {
+        return cmp;
+      }
+    }
+    return Integer.compare(length, key.length);
+  }
+
+  private String string(int offset, int length) {
+    final var bytes = new byte[length];
+    map.get(offset, bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private static int offset(long textStart, ByteArrayOutputStream text) throws IOException {
+    final var offset = textStart + text.size();
+    if (offset > Integer.MAX_VALUE) {
+      throw new IOException("Doc pack would exceed 2GB, pack fewer coordinates per file");
+    }
+    return (int) offset;
+  }
+
+  private static void writeBlob(ByteArrayOutputStream out, String value) {
+    final var bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.write(bytes.length >>> 24);
+    out.write(bytes.length >>> 16);
+    out.write(bytes.length >>> 8);
+    out.write(bytes.length);
+    out.writeBytes(bytes);
+  }
+}
@@ -0,0 +1,212 @@
+package io.github.simbo1905.mvn2llm;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+import java.util.zip.ZipEntry;
+
+/// A persistent cache of parse results for individual archive entries keyed by (CRC-32, size, name).
+///
+/// The zip central directory carries the CRC and uncompressed size of every entry, so a hit skips both
+/// inflation and the state machine. Consecutive releases of a library share most files byte for byte so
+/// re-extracting a new patch release only pays for the entries that changed. Each entry is its own small file
+/// written to a temp name and atomically renamed, so concurrent processes can share one cache directory.
+///
+/// Each file also records the longest doc comment and signature its entry had, so a run with tighter length
+/// limits sees a miss for an entry those limits would cut and parses it again.
+class EntryCache {
+  private static final Logger LOGGER = Logger.getLogger(EntryCache.class.getName());
+
+  /// Bump when the state machine output or the file layout changes so old results are not reused.
+  static final int FORMAT_VERSION = 2;
+  private static final int MAGIC = 0x6d32_6c63;
+
+  private static final EntryCache DISABLED = new EntryCache(null);
+
+  private final Path directory;
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+
+  private EntryCache(Path directory) {
+    this.directory = directory;
+  }
+
+  static EntryCache disabled() {
+    return DISABLED;
+  }
+
+  static EntryCache open(Path cacheRoot) throws IOException {
+    return open(cacheRoot, false);
+  }
+
+  /// Public-only results are a subset of the full ones, so they live in a directory of their own rather than
+  /// one run answering the other from the cache.
+  static EntryCache open(Path cacheRoot, boolean publicOnly) throws IOException {
+    final var directory = cacheRoot.resolve("entries").resolve("v" + FORMAT_VERSION + (publicOnly ? "-public" : ""));
+    Files.createDirectories(directory);
+    LOGGER.fine("Using entry cache: %s".formatted(directory));
+    return new EntryCache(directory);
+  }
+
+  /// `$XDG_CACHE_HOME/mvn2llm` when set, otherwise `~/.cache/mvn2llm`.
+  static Path defaultRoot() {
+    final var xdg = System.getenv("XDG_CACHE_HOME");
+    final var base = xdg != null && !xdg.isBlank()
+        ? Path.of(xdg)
+        : Path.of(System.getProperty("user.home"), ".cache");
+    return base.resolve("mvn2llm");
+  }
+
+  boolean enabled() {
+    return directory != null;
+  }
+
+  /// Where the entries are kept, which is also where the [SymbolTable] over them lives. `null` when disabled.
+  Path directory() {
+    return directory;
+  }
+
+  /// Whatever was cached for the entry, whatever limits it would be extracted under.
+  Optional<List<JavaDocInfo>> get(ZipEntry entry) {
+    return get(entry, Integer.MAX_VALUE, Integer.MAX_VALUE);
+  }
+
+  /// What was cached for the entry if extracting it under `limits` would give the same records.
+  Optional<List<JavaDocInfo>> get(ZipEntry entry, ExtractionLimits limits) {
+    return get(entry, limits.maxDocChars(), limits.maxSignatureChars());
+  }
+
+  private Optional<List<JavaDocInfo>> get(ZipEntry entry, int maxDocChars, int maxSignatureChars) {
+    if (!cacheable(entry)) {
+      return Optional.empty();
+    }
+    final var file = pathFor(entry);
+    try (final var channel = Files.newByteChannel(file);
+         final var in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)))) {
+      // every length is checked against the file size so a corrupt one cannot make us allocate more than that
+      final var size = channel.size();
+      if (in.readInt() != MAGIC) {
+        throw new IOException("Not a cache file");
+      }
+      if (!in.readUTF().equals(entry.getName()) || in.readInt() > maxDocChars || in.readInt() > maxSignatureChars) {
+        misses.incrementAndGet();
+        return Optional.empty();
+      }
+      final var count = checkedLength(in.readInt(), size / (2 * Integer.BYTES));
+      final var docs = new ArrayList<JavaDocInfo>(count);
+      for (int i = 0; i < count; i++) {
+        docs.add(new JavaDocInfo(entry.getName(), readString(in, size), readString(in, size)));
+      }
+      hits.incrementAndGet();
+      return Optional.of(docs);
+    } catch (NoSuchFileException e) {
+      misses.incrementAndGet();
+      return Optional.empty();
+    } catch (IOException e) {
+      // a truncated or corrupt file would fail the same way on every run, so it goes and the next put rewrites it
+      LOGGER.fine("Deleting unreadable cache file %s: %s".formatted(file, e.getMessage()));
+      delete(file);
+      misses.incrementAndGet();
+      return Optional.empty();
+    }
+  }
+
+  /// `longestDoc` and `longestSignature` are those of the parse that gave `docs`, which must not have been cut
+  /// short by a length limit.
+  void put(ZipEntry entry, List<JavaDocInfo> docs, int longestDoc, int longestSignature) {
+    if (!cacheable(entry)) {
+      return;
+    }
+    final var file = pathFor(entry);
+    try {
+      Files.createDirectories(file.getParent());
+      final var temp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+      try {
+        try (final var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+          out.writeInt(MAGIC);
+          out.writeUTF(entry.getName());
+          out.writeInt(longestDoc);
+          out.writeInt(longestSignature);
+          out.writeInt(docs.size());
+          for (final var doc : docs) {
+            writeString(out, doc.documentation());
+            writeString(out, doc.memberSignature());
+          }
+        }
+        moveIntoPlace(temp, file);
+      } finally {
+        Files.deleteIfExists(temp);
+      }
+    } catch (IOException e) {
+      // a cache we cannot write to only costs us the speed up
+      LOGGER.fine("Failed to write cache file %s: %s".formatted(file, e.getMessage()));
+    }
+  }
+
+  long hits() {
+    return hits.get();
+  }
+
+  long misses() {
+    return misses.get();
+  }
+
+  private boolean cacheable(ZipEntry entry) {
+    return directory != null && entry.getCrc() != -1 && entry.getSize() != -1;
+  }
+
+  Path pathFor(ZipEntry entry) {
+    final var key = "%08x-%x-%08x".formatted(entry.getCrc(), entry.getSize(), entry.getName().hashCode());
+    // fan out on the low CRC byte so no single directory gets huge
+    return directory.resolve(key.substring(6, 8)).resolve(key);
+  }
+
+  private static void moveIntoPlace(Path temp, Path file) throws IOException {
+    try {
+      Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    } catch (AtomicMoveNotSupportedException e) {
+      Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+
+  private static void writeString(DataOutputStream out, String value) throws IOException {
+    final var bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static String readString(DataInputStream in, long fileSize) throws IOException {
+    final var bytes = new byte[checkedLength(in.readInt(), fileSize)];
+    in.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private static int checkedLength(int length, long max) throws IOException {
+    if (length < 0 || length > max) {
+      throw new IOException("Corrupt length %d".formatted(length));
+    }
+    return length;
+  }
+
+  private static void delete(Path file) {
+    try {
+      Files.deleteIfExists(file);
+    } catch (IOException e) {
+      LOGGER.fine("Failed to delete cache file %s: %s".formatted(file, e.getMessage()));
+    }
+  }
+}
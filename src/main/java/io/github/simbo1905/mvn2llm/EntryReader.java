@@ -0,0 +1,38 @@
+package io.github.simbo1905.mvn2llm;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/// Random access to the entries of one archive, whether it is a file on disk or bytes already in memory.
+interface EntryReader extends Closeable {
+
+  /// The entries in central directory order.
+  List<? extends ZipEntry> entries();
+
+  /// The inflated content of one of [#entries()]. Safe to call from several threads at once only where the
+  /// implementation says so.
+  InputStream getInputStream(ZipEntry entry) throws IOException;
+
+  static EntryReader of(ZipFile zip) {
+    return new EntryReader() {
+      @Override
+      public List<? extends ZipEntry> entries() {
+        return zip.stream().toList();
+      }
+
+      @Override
+      public InputStream getInputStream(ZipEntry entry) throws IOException {
+        return zip.getInputStream(entry);
+      }
+
+      @Override
+      public void close() throws IOException {
+        zip.close();
+      }
+    };
+  }
+}
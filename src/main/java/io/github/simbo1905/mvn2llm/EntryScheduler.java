@@ -0,0 +1,235 @@
+package io.github.simbo1905.mvn2llm;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.jar.JarFile;
+import java.util.logging.Logger;
+import java.util.stream.IntStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+
+/// Parses the `.java` entries of one archive on a work-stealing pool.
+///
+/// Sources JARs are skewed, a few files of ten thousand lines among thousands of `package-info.java`, so
+/// splitting the entries evenly leaves one thread working through a giant file at the end. Instead the entries
+/// are queued largest first by the uncompressed size in the central directory, so the small ones fill in the
+/// gaps at the tail. An archive on disk is mapped into memory as a [BufferedZip], and all the workers share it
+/// without a lock, as they do an archive downloaded into memory. When it cannot be mapped, such as an archive
+/// with encrypted entries, every worker opens its own [ZipFile] instead, and so has its own file channel and
+/// inflater cache rather than contending on one. Results pass through a reorder buffer so they come out in entry
+/// order.
+final class EntryScheduler {
+  private static final Logger LOGGER = Logger.getLogger(EntryScheduler.class.getName());
+
+  /// Below this many entries the pool costs more than it saves.
+  static final int MIN_PARALLEL_ENTRIES = 32;
+
+  /// Opens a reader for one worker. A reader that is safe to share may be handed out more than once.
+  private interface Opener {
+    EntryReader open() throws IOException;
+  }
+
+  private final String archive;
+  private final Opener opener;
+  private final Path mappable;
+  private final EntryCache cache;
+  private final ExtractionLimits.Budget budget;
+  private final int threads;
+
+  private EntryScheduler(String archive, Opener opener, Path mappable, EntryCache cache,
+                         ExtractionLimits.Budget budget, int threads) {
+    this.archive = archive;
+    this.opener = opener;
+    this.mappable = mappable;
+    this.cache = cache;
+    this.budget = budget;
+    this.threads = threads;
+  }
+
+  EntryScheduler(Path archive, ArtefactType type, EntryCache cache, ExtractionLimits.Budget budget, int threads) {
+    this(archive.toString(), () -> EntryReader.of(type == ArtefactType.JAR
+        ? new JarFile(archive.toFile())
+        : new ZipFile(archive.toFile())), archive, cache, budget, threads);
+  }
+
+  EntryScheduler(Path archive, ArtefactType type, EntryCache cache, ExtractionLimits.Budget budget) {
+    this(archive, type, cache, budget, Runtime.getRuntime().availableProcessors());
+  }
+
+  /// Every worker reads the same in-memory archive, as [BufferedZip] streams do not share any state.
+  EntryScheduler(String name, BufferedZip zip, EntryCache cache, ExtractionLimits.Budget budget, int threads) {
+    this(name, () -> zip, null, cache, budget, threads);
+  }
+
+  EntryScheduler(String name, BufferedZip zip, EntryCache cache, ExtractionLimits.Budget budget) {
+    this(name, zip, cache, budget, Runtime.getRuntime().availableProcessors());
+  }
+
+  List<JavaDocInfo> extract() throws IOException, InterruptedException {
+    final var list = new ArrayList<JavaDocInfo>();
+    extract(list::addAll);
+    return list;
+  }
+
+  /// Passes the records of each entry to `sink` in central directory order. The sink may be called from any
+  /// worker but never from two at once.
+  void extract(Consumer<List<JavaDocInfo>> sink) throws IOException, InterruptedException {
+    extractEntries((_, docs) -> sink.accept(docs));
+  }
+
+  /// As [#extract(Consumer)], along with the entry the records came from.
+  void extractEntries(BiConsumer<ZipEntry, List<JavaDocInfo>> sink) throws IOException, InterruptedException {
+    try (final var zip = openFirst()) {
+      var entries = MultiRelease.select(
+          zip.entries().stream().filter(entry -> entry.getName().endsWith(".java")).toList(), budget.options().release());
+      if (budgeted()) {
+        // shallow packages first so a token budget fills with the top-level API before it cancels the rest
+        entries = entries.stream().sorted(Comparator.comparingInt(entry -> TokenBudget.depth(entry.getName()))).toList();
+      }
+      if (threads <= 1 || entries.size() < MIN_PARALLEL_ENTRIES) {
+        LOGGER.fine("Parsing %d entries of %s on one thread".formatted(entries.size(), archive));
+        for (final var entry : entries) {
+          if (budget.exhausted()) {
+            warnStopped();
+            break;
+          }
+          sink.accept(entry, JavaDocExtractor.extractJavaDocFromEntry(zip, entry, cache, budget));
+        }
+      } else {
+        extractInParallel(zip, entries, sink);
+      }
+    }
+    if (cache.enabled()) {
+      LOGGER.fine("Entry cache: %d hits, %d misses".formatted(cache.hits(), cache.misses()));
+    }
+    if (budget.skippedCount() > 0) {
+      LOGGER.warning("Skipped %d entries over the extraction limits".formatted(budget.skippedCount()));
+    }
+  }
+
+  private void extractInParallel(EntryReader first, List<? extends ZipEntry> entries,
+                                 BiConsumer<ZipEntry, List<JavaDocInfo>> sink) throws IOException, InterruptedException {
+    // under a token budget the entries are already in priority order and the sink decides when to stop
+    final var order = budgeted()
+        ? IntStream.range(0, entries.size()).boxed().toList()
+        : IntStream.range(0, entries.size()).boxed()
+            .sorted(Comparator.comparingLong((Integer i) -> entries.get(i).getSize()).reversed())
+            .toList();
+    LOGGER.fine("Parsing %d entries of %s on %d threads, largest %d bytes".formatted(
+        entries.size(), archive, threads, entries.get(order.getFirst()).getSize()));
+
+    // the buffer hands results over in entry order, one at a time, so a plain counter names each one's entry
+    final var delivered = new int[1];
+    final var buffer = new ReorderBuffer(entries.size(), docs -> sink.accept(entries.get(delivered[0]++), docs));
+    final var handles = new ConcurrentLinkedQueue<EntryReader>();
+    final var local = ThreadLocal.<EntryReader>withInitial(() -> {
+      if (first instanceof BufferedZip) {
+        return first;
+      }
+      try {
+        final var zip = opener.open();
+        handles.add(zip);
+        return zip;
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    });
+    final var stopLogged = new AtomicBoolean();
+    // the work-stealing pool runs in FIFO mode, so entries start in the order they are submitted
+    final var pool = Executors.newWorkStealingPool(threads);
+    try {
+      final var futures = new ArrayList<Future<?>>(order.size());
+      for (final var index : order) {
+        futures.add(pool.submit(() -> {
+          final var entry = entries.get(index);
+          if (!budget.exhausted()) {
+            buffer.complete(index, JavaDocExtractor.extractJavaDocFromEntry(local.get(), entry, cache, budget));
+            return;
+          }
+          if (stopLogged.compareAndSet(false, true)) {
+            warnStopped();
+          }
+          buffer.complete(index, Collections.emptyList());
+        }));
+      }
+      for (final var future : futures) {
+        future.get();
+      }
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof UncheckedIOException io) {
+        throw io.getCause();
+      }
+      throw new IOException("Failed to parse %s".formatted(archive), e.getCause());
+    } finally {
+      pool.shutdownNow();
+      pool.awaitTermination(1, TimeUnit.MINUTES);
+      for (final var handle : handles) {
+        handle.close();
+      }
+    }
+  }
+
+  /// Maps an archive on disk when it can, as [BufferedZip] streams do not share any state. Native images keep
+  /// to [ZipFile], as their support for mapped memory segments varies by GraalVM release.
+  private EntryReader openFirst() throws IOException {
+    if (mappable != null && !JavaDocExtractor.isNativeImage()) {
+      try {
+        return BufferedZip.map(mappable);
+      } catch (ZipException e) {
+        LOGGER.fine("Reading %s with ZipFile instead: %s".formatted(archive, e.getMessage()));
+      }
+    }
+    return opener.open();
+  }
+
+  private boolean budgeted() {
+    return budget.options().maxTokens() > 0;
+  }
+
+  private void warnStopped() {
+    if (budget.cancelled()) {
+      LOGGER.fine("Cancelled the remaining entries of %s".formatted(archive));
+      return;
+    }
+    LOGGER.warning("Stopped after %d inflated bytes, the total extraction limit".formatted(budget.inflatedBytes()));
+  }
+
+  /// Holds the results of entries that finished ahead of an earlier one, and hands each contiguous run from
+  /// the front to the sink as soon as the gap before it closes. Slots are released once handed over.
+  static final class ReorderBuffer {
+    private final List<List<JavaDocInfo>> slots;
+    private final Consumer<List<JavaDocInfo>> sink;
+    private int next = 0;
+
+    ReorderBuffer(int size, Consumer<List<JavaDocInfo>> sink) {
+      this.slots = new ArrayList<>(Collections.nCopies(size, null));
+      this.sink = sink;
+    }
+
+    synchronized void complete(int index, List<JavaDocInfo> docs) {
+      slots.set(index, docs);
+      while (next < slots.size() && slots.get(next) != null) {
+        sink.accept(slots.set(next, null));
+        next++;
+      }
+    }
+
+    synchronized int pending() {
+      return (int) slots.stream().skip(next).filter(slot -> slot != null).count();
+    }
+  }
+}
@@ -0,0 +1,230 @@
+package io.github.simbo1905.mvn2llm;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serial;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/// Caps that stop one hostile or simply enormous archive from exhausting the memory of a shared extraction
+/// service. Sizes are checked against the bytes actually inflated while streaming, never only against the sizes
+/// an archive claims, and an entry that goes over is skipped and reported rather than failing the run. What is
+/// read and printed within these caps is up to the [ExtractionOptions].
+///
+/// @param maxEntryBytes       uncompressed bytes of any one entry
+/// @param maxTotalBytes       uncompressed bytes of all entries of one extraction, after which it stops early
+/// @param maxCompressionRatio uncompressed to compressed ratio of an entry once it passes [#RATIO_GRACE_BYTES]
+/// @param maxDocChars         characters kept of one doc comment, longer comments are truncated
+/// @param maxSignatureChars   characters of one member signature, longer ones are dropped with their doc
+record ExtractionLimits(long maxEntryBytes, long maxTotalBytes, int maxCompressionRatio, int maxDocChars,
+                        int maxSignatureChars) {
+
+  static final ExtractionLimits DEFAULTS = new ExtractionLimits(64L << 20, 16L << 30, 200, 256 * 1024, 64 * 1024);
+
+  /// Small files of repetitive text legitimately compress far better than a zip bomb needs, so the ratio is
+  /// only enforced once an entry has inflated this much.
+  static final long RATIO_GRACE_BYTES = 1L << 20;
+
+  ExtractionLimits {
+    if (maxEntryBytes < 1 || maxTotalBytes < 1 || maxCompressionRatio < 1 || maxDocChars < 1 || maxSignatureChars < 1) {
+      throw new IllegalArgumentException("Extraction limits must be positive");
+    }
+  }
+
+  /// Returns a copy with the limit named by a command line flag set to `value`.
+  ExtractionLimits withFlag(String flag, String value) {
+    try {
+      return switch (flag) {
+        case "--max-entry-size" ->
+            new ExtractionLimits(parseSize(value), maxTotalBytes, maxCompressionRatio, maxDocChars, maxSignatureChars);
+        case "--max-total-size" ->
+            new ExtractionLimits(maxEntryBytes, parseSize(value), maxCompressionRatio, maxDocChars, maxSignatureChars);
+        case "--max-ratio" ->
+            new ExtractionLimits(maxEntryBytes, maxTotalBytes, Integer.parseInt(value), maxDocChars, maxSignatureChars);
+        case "--max-doc-length" ->
+            new ExtractionLimits(maxEntryBytes, maxTotalBytes, maxCompressionRatio, Integer.parseInt(value), maxSignatureChars);
+        case "--max-signature-length" ->
+            new ExtractionLimits(maxEntryBytes, maxTotalBytes, maxCompressionRatio, maxDocChars, Integer.parseInt(value));
+        default -> throw new IllegalArgumentException("Unknown limit: " + flag);
+      };
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Invalid value for %s: %s".formatted(flag, value));
+    }
+  }
+
+  /// Parses a byte count with an optional `k`, `m` or `g` binary suffix such as `64m`.
+  static long parseSize(String value) {
+    final var lower = value.strip().toLowerCase(Locale.ROOT);
+    if (lower.isEmpty()) {
+      throw new NumberFormatException("Empty size");
+    }
+    final var unit = switch (lower.charAt(lower.length() - 1)) {
+      case 'k' -> 1L << 10;
+      case 'm' -> 1L << 20;
+      case 'g' -> 1L << 30;
+      default -> 1L;
+    };
+    final var digits = unit == 1L ? lower : lower.substring(0, lower.length() - 1);
+    return Math.multiplyExact(Long.parseLong(digits), unit);
+  }
+
+  Budget budget() {
+    return budget(ExtractionOptions.DEFAULTS);
+  }
+
+  Budget budget(ExtractionOptions options) {
+    return new Budget(this, options);
+  }
+
+  /// Thrown from a guarded stream when a limit is hit. `total` says the whole extraction should stop.
+  static final class LimitExceededException extends IOException {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final boolean total;
+
+    LimitExceededException(String message, boolean total) {
+      super(message);
+      this.total = total;
+    }
+
+    boolean total() {
+      return total;
+    }
+  }
+
+  /// The running totals of one extraction, shared by every thread that inflates for it, along with the options
+  /// that extraction runs with.
+  static final class Budget {
+    private final ExtractionLimits limits;
+    private final ExtractionOptions options;
+    private final AtomicLong inflated = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    private volatile boolean cancelled = false;
+
+    private Budget(ExtractionLimits limits, ExtractionOptions options) {
+      this.limits = limits;
+      this.options = options;
+    }
+
+    ExtractionLimits limits() {
+      return limits;
+    }
+
+    ExtractionOptions options() {
+      return options;
+    }
+
+    /// Fails fast on the size an archive declares so an honest oversized entry is never inflated at all.
+    void checkDeclared(String name, long size) throws LimitExceededException {
+      if (size > limits.maxEntryBytes) {
+        throw new LimitExceededException("%s declares %d bytes, over the %d byte entry limit".formatted(
+            name, size, limits.maxEntryBytes), false);
+      }
+      if (inflated.get() >= limits.maxTotalBytes) {
+        throw new LimitExceededException("total limit of %d inflated bytes reached".formatted(limits.maxTotalBytes), true);
+      }
+    }
+
+    /// Wraps the inflated bytes of one entry. `entryLimit` is usually [#maxEntryBytes] but a stream that
+    /// carries a whole archive passes `Long.MAX_VALUE` and checks its members itself.
+    InputStream guard(String name, InputStream in, long entryLimit, LongSupplier compressedBytes) {
+      return new GuardedInputStream(in, name, entryLimit, compressedBytes);
+    }
+
+    InputStream guard(String name, InputStream in, long compressedSize) {
+      return guard(name, in, limits.maxEntryBytes, () -> compressedSize);
+    }
+
+    /// True once the total is reached or the extraction was [cancelled][#cancel()], after which no further
+    /// entry should be started.
+    boolean exhausted() {
+      return cancelled || inflated.get() >= limits.maxTotalBytes;
+    }
+
+    /// Stops the extraction early without counting as a limit being hit, such as when the output is full.
+    void cancel() {
+      cancelled = true;
+    }
+
+    boolean cancelled() {
+      return cancelled;
+    }
+
+    /// Counts bytes read without a guarded stream, such as a local file.
+    void consume(String name, long bytes) throws LimitExceededException {
+      if (inflated.addAndGet(bytes) > limits.maxTotalBytes) {
+        throw new LimitExceededException("%s passes the total limit of %d inflated bytes".formatted(
+            name, limits.maxTotalBytes), true);
+      }
+    }
+
+    void skipped() {
+      skipped.incrementAndGet();
+    }
+
+    long skippedCount() {
+      return skipped.get();
+    }
+
+    long inflatedBytes() {
+      return inflated.get();
+    }
+
+    private final class GuardedInputStream extends FilterInputStream {
+      private final String name;
+      private final long entryLimit;
+      private final LongSupplier compressedBytes;
+      private long count;
+
+      GuardedInputStream(InputStream in, String name, long entryLimit, LongSupplier compressedBytes) {
+        super(in);
+        this.name = name;
+        this.entryLimit = entryLimit;
+        this.compressedBytes = compressedBytes;
+      }
+
+      @Override
+      public int read() throws IOException {
+        final var b = super.read();
+        if (b >= 0) {
+          counted(1);
+        }
+        return b;
+      }
+
+      @Override
+      public int read(byte[] buffer, int offset, int length) throws IOException {
+        final var n = super.read(buffer, offset, length);
+        if (n > 0) {
+          counted(n);
+        }
+        return n;
+      }
+
+      @Override
+      public long skip(long n) throws IOException {
+        final var skipped = super.skip(n);
+        if (skipped > 0) {
+          counted(skipped);
+        }
+        return skipped;
+      }
+
+      private void counted(long n) throws LimitExceededException {
+        count += n;
+        if (count > entryLimit) {
+          throw new LimitExceededException("%s inflates past the %d byte entry limit".formatted(name, entryLimit), false);
+        }
+        consume(name, n);
+        final var compressed = compressedBytes.getAsLong();
+        if (count > RATIO_GRACE_BYTES && compressed > 0 && count / compressed > limits.maxCompressionRatio) {
+          throw new LimitExceededException("%s inflates more than %d:1, possibly a zip bomb".formatted(
+              name, limits.maxCompressionRatio), entryLimit == Long.MAX_VALUE);
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,60 @@
+package io.github.simbo1905.mvn2llm;
+
+/// What an extraction reads and prints, as opposed to the [ExtractionLimits] that keep it safe. Each option
+/// has a wither, so a new option is one more component and one more wither rather than an edit to every
+/// construction.
+///
+/// @param publicOnly       drop every member that is not public API as soon as its signature ends
+/// @param release          the Java release whose variant of each file a multi-release archive yields
+/// @param maxTokens        approximate output tokens of one extraction, or `0` for no limit; see [TokenBudget]
+/// @param maxInMemoryBytes largest download that is extracted from memory rather than from a temp file
+/// @param collapse         merge overloads that share a doc and members that only inherit theirs; see
+///                         [OverloadCollapser]
+record ExtractionOptions(boolean publicOnly, int release, long maxTokens, long maxInMemoryBytes, boolean collapse) {
+
+  static final ExtractionOptions DEFAULTS = new ExtractionOptions(false, Runtime.version().feature(), 0, 32L << 20,
+      false);
+
+  ExtractionOptions {
+    if (maxTokens < 0 || maxInMemoryBytes < 0) {
+      throw new IllegalArgumentException("Token budget and in-memory size must not be negative");
+    }
+    if (release < 8) {
+      throw new IllegalArgumentException("Release must be 8 or later: " + release);
+    }
+  }
+
+  /// Returns a copy with the option named by a command line flag that takes a value set to `value`.
+  ExtractionOptions withFlag(String flag, String value) {
+    try {
+      return switch (flag) {
+        case "--release" -> withRelease(Integer.parseInt(value));
+        case "--max-tokens" -> withMaxTokens(Long.parseLong(value));
+        case "--in-memory-max" -> withMaxInMemoryBytes(ExtractionLimits.parseSize(value));
+        default -> throw new IllegalArgumentException("Unknown option: " + flag);
+      };
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Invalid value for %s: %s".formatted(flag, value));
+    }
+  }
+
+  ExtractionOptions withPublicOnly(boolean publicOnly) {
+    return new ExtractionOptions(publicOnly, release, maxTokens, maxInMemoryBytes, collapse);
+  }
+
+  ExtractionOptions withRelease(int release) {
+    return new ExtractionOptions(publicOnly, release, maxTokens, maxInMemoryBytes, collapse);
+  }
+
+  ExtractionOptions withMaxTokens(long maxTokens) {
+    return new ExtractionOptions(publicOnly, release, maxTokens, maxInMemoryBytes, collapse);
+  }
+
+  ExtractionOptions withMaxInMemoryBytes(long maxInMemoryBytes) {
+    return new ExtractionOptions(publicOnly, release, maxTokens, maxInMemoryBytes, collapse);
+  }
+
+  ExtractionOptions withCollapse(boolean collapse) {
+    return new ExtractionOptions(publicOnly, release, maxTokens, maxInMemoryBytes, collapse);
+  }
+}
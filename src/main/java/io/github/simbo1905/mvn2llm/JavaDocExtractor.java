@@ -10,71 +10,352 @@ package io.github.simbo1905.mvn2llm;
  */
 
 import java.io.BufferedReader;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.PrintStream;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Enumeration;
 import java.util.List;
-import java.util.jar.JarEntry;
-import java.util.jar.JarFile;
+import java.util.concurrent.Executors;
+import java.util.function.BiConsumer;
+import java.util.function.UnaryOperator;
 import java.util.logging.ConsoleHandler;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
 import java.util.zip.ZipFile;
 
 public class JavaDocExtractor {
   private static final Logger LOGGER = Logger.getLogger(JavaDocExtractor.class.getName());
+  // Held strongly so the level and handler we configure apply to every class in the package
+  private static final Logger PACKAGE_LOGGER = Logger.getLogger(JavaDocExtractor.class.getPackageName());
 
   public static void main(String[] args) {
+    final int status;
+    try {
+      status = run(args);
+    } catch (Exception e) {
+      LOGGER.log(Level.SEVERE, "Error processing request", e);
+      System.exit(1);
+      return;
+    }
+    if (status != 0) {
+      System.exit(status);
+    }
+  }
+
+  /// Everything [#main] does other than exiting, so a failure reaches the caller as an exception and a test can
+  /// run the command line in-process. Returns the exit status, only after the `finally` that finishes a gzip
+  /// stream has run.
+  static int run(String[] args) throws Exception {
+    PrintStream compressed = null;
     try {
       MainArguments arguments = MainArguments.parse(args);
       if (arguments.help()) {
         arguments.printHelp();
-        return;
+        return 0;
       }
       configureLogging(arguments.logLevel());
       LOGGER.fine("MainArguments: %s".formatted(arguments));
 
-      // HTTP client should follow redirects
-      HttpClient.Builder clientBuilder = HttpClient.newBuilder()
-          .followRedirects(HttpClient.Redirect.NORMAL);
+      if (arguments.gzip()) {
+        // not autoflushing so that println leaves full blocks for the compressor rather than one line each
+        compressed = new PrintStream(new ParallelGzipOutputStream(new FileOutputStream(FileDescriptor.out)), false,
+            System.out.charset());
+        System.setOut(compressed);
+      }
 
-      // HTTP client should use the proxy if specified
-      if (arguments.proxy()) {
-        final var proxySelector = ProxyConfig.create(arguments).toProxySelector();
-        clientBuilder = clientBuilder.proxy(proxySelector);
+      if (arguments.queryMode()) {
+        final var hits = DocIndex.query(indexDirectory(arguments), String.join(" ", arguments.operands()), arguments.topK());
+        hits.forEach(System.out::println);
+        return 0;
       }
 
-      Path sourceFile = null;
-      try {
-        if (arguments.artefactType() == ArtefactType.JAR) {
-          final var mavenCoordinate = MavenCoordinate.parse(arguments.coordinate());
-          LOGGER.fine("Parsed mvn coordinate: %s".formatted(mavenCoordinate));
-          sourceFile = downloadSourceJar(clientBuilder, arguments.repo(), mavenCoordinate);
-        } else {
-          LOGGER.fine("Parsed zip url: %s".formatted(arguments.artefactUrl()));
-          sourceFile = downloadZipFile(clientBuilder, arguments.artefactUrl());
+      if ("lookup".equals(arguments.command())) {
+        final var pack = DocPack.open(Path.of(arguments.operands().getFirst()));
+        final var className = arguments.operands().getLast();
+        final var docs = pack.lookup(className);
+        if (docs.isEmpty()) {
+          LOGGER.warning("Class not found in doc pack: " + className);
+          return 1;
         }
-
-        final var docs = JavaDocExtractor.extractJavaDocs(sourceFile, arguments.artefactType());
         docs.forEach(System.out::println);
+        return 0;
+      }
+
+      if ("which".equals(arguments.command())) {
+        final var cache = entryCache(arguments);
+        final var className = arguments.operands().getFirst();
+        final var table = SymbolTable.open(cache.directory().resolve(SymbolTable.FILE_NAME));
+        final var symbols = table == null ? List.<SymbolTable.Symbol>of() : table.lookup(className);
+        if (symbols.isEmpty()) {
+          LOGGER.warning("Class not found in any extracted coordinate: " + className);
+          return 1;
+        }
+        for (final var symbol : symbols) {
+          System.out.println("Artifact: %s (%s)%n".formatted(symbol.coordinate(), symbol.entryName()));
+          final var docs = cache.get(symbol.entry());
+          if (docs.isEmpty() || docs.get().size() < symbol.firstRecord() + symbol.recordCount()) {
+            LOGGER.warning("Docs of %s are no longer cached, extract %s again".formatted(className, symbol.coordinate()));
+            continue;
+          }
+          docs.get().subList(symbol.firstRecord(), symbol.firstRecord() + symbol.recordCount()).forEach(System.out::println);
+        }
+        return 0;
+      }
+
+      if ("unpack".equals(arguments.command())) {
+        DocPack.open(Path.of(arguments.operands().getFirst())).all().forEach(System.out::println);
+        return 0;
+      }
+
+      if ("pack".equals(arguments.command())) {
+        final var cache = entryCache(arguments);
+        final var builder = clientBuilder(arguments);
+        final var sections = new ArrayList<DocPack.Section>();
+        try (final var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+          final var futures = arguments.operands().stream()
+              .map(MavenCoordinate::parse)
+              .map(coordinate -> executor.submit(() -> inStore(extractCoordinate(builder, arguments.repo(), coordinate,
+                  cache, arguments.limits(), arguments.options()))))
+              .toList();
+          for (int i = 0; i < futures.size(); i++) {
+            sections.add(new DocPack.Section(arguments.operands().get(i), futures.get(i).get()));
+          }
+        }
+        DocPack.write(Path.of(arguments.output()), sections);
+        return 0;
+      }
+
+      if ("batch".equals(arguments.command())) {
+        final var coordinates = arguments.operands().isEmpty() ? readCoordinates() : arguments.operands();
+        final var command = new ArrayList<>(BatchCoordinator.selfCommand());
+        command.addAll(arguments.workerArguments());
+        new BatchCoordinator(command, arguments.workers(), arguments.shardSize()).run(coordinates, System.out);
+        return 0;
+      }
+
+      if ("worker".equals(arguments.command())) {
+        final var cache = entryCache(arguments);
+        final var builder = clientBuilder(arguments);
+        for (final var coordinate : readCoordinates()) {
+          try {
+            final var docs = extractCoordinate(builder, arguments.repo(), MavenCoordinate.parse(coordinate), cache,
+                arguments.limits(), arguments.options());
+            System.out.println("Artifact: %s%n".formatted(coordinate));
+            docs.forEach(System.out::println);
+          } catch (Exception e) {
+            // a missing artifact would fail again on every retry, so only a crash of the whole worker retries
+            LOGGER.severe("Failed to extract %s: %s".formatted(coordinate, e));
+          }
+        }
+        System.out.flush();
+        return 0;
+      }
+
+      if (arguments.watch()) {
+        LOGGER.fine("Watching source directory: %s".formatted(arguments.sourceDirectory()));
+        try (final var watcher = new DirectoryWatcher(Path.of(arguments.sourceDirectory()), arguments.limits(),
+            arguments.options())) {
+          watcher.initialScan().forEach(System.out::println);
+          System.out.flush();
+          watcher.watch(change -> {
+            System.out.print(change);
+            System.out.flush();
+          });
+        }
+        return 0;
+      }
+
+      if (arguments.artefactType() == ArtefactType.REACTOR) {
+        final var stateDirectory = arguments.noCache() ? null
+            : arguments.cacheDir() != null ? Path.of(arguments.cacheDir()) : EntryCache.defaultRoot();
+        final var reactor = MavenReactor.open(Path.of(arguments.sourceDirectory()), stateDirectory);
+        reactor.extract(arguments.limits(), arguments.options(), (module, docs) -> {
+          System.out.println("Module: %s (%s)%n".formatted(module.name(), module.path()));
+          emit(arguments, module.name(), compact(docs, arguments.options()));
+        });
+        return 0;
+      }
+
+      if (arguments.artefactType() == ArtefactType.DIRECTORY) {
+        LOGGER.fine("Parsed source directory: %s".formatted(arguments.sourceDirectory()));
+        final var docs = JavaDocExtractor.extractJavaDocs(Path.of(arguments.sourceDirectory()), ArtefactType.DIRECTORY,
+            EntryCache.disabled(), arguments.limits(), arguments.options());
+        emit(arguments, arguments.sourceDirectory(), docs);
+        return 0;
+      }
+
+      if (arguments.artefactType() == ArtefactType.TAR_GZ) {
+        LOGGER.fine("Parsed tar.gz url: %s".formatted(arguments.artefactUrl()));
+        final var docs = streamTarGz(clientBuilder(arguments), arguments.artefactUrl(), arguments.limits(),
+            arguments.options());
+        emit(arguments, arguments.artefactUrl(), docs);
+        return 0;
+      }
+
+      if (arguments.diffVersion() != null) {
+        final var older = MavenCoordinate.parse(arguments.coordinate());
+        final var newer = new MavenCoordinate(older.groupId(), older.artifactId(), arguments.diffVersion());
+        LOGGER.fine("Diffing %s against %s".formatted(older, newer));
+        final var cache = entryCache(arguments);
+        final var builder = clientBuilder(arguments);
+        try (final var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+          final var olderDocs = executor.submit(() -> inStore(extractCoordinate(builder, arguments.repo(), older, cache,
+              arguments.limits(), arguments.options())));
+          final var newerDocs = executor.submit(() -> inStore(extractCoordinate(builder, arguments.repo(), newer, cache,
+              arguments.limits(), arguments.options())));
+          VersionDiff.diff(olderDocs.get(), newerDocs.get(), System.out::println);
+        }
+        return 0;
+      }
+
+      if (arguments.artefactType() == ArtefactType.JAR) {
+        final var mavenCoordinate = MavenCoordinate.parse(arguments.coordinate());
+        LOGGER.fine("Parsed mvn coordinate: %s".formatted(mavenCoordinate));
+        final var docs = extractCoordinate(clientBuilder(arguments), arguments.repo(), mavenCoordinate, entryCache(arguments),
+            arguments.limits(), arguments.options());
+        emit(arguments, arguments.coordinate(), docs);
+        return 0;
+      }
+
+      Path sourceFile = null;
+      try {
+        LOGGER.fine("Parsed zip url: %s".formatted(arguments.artefactUrl()));
+        sourceFile = downloadZipFile(clientBuilder(arguments), arguments.artefactUrl());
+        final var docs = JavaDocExtractor.extractJavaDocs(sourceFile, arguments.artefactType(), entryCache(arguments),
+            arguments.limits(), arguments.options());
+        emit(arguments, arguments.artefactUrl(), docs);
       } finally {
         if (sourceFile != null) {
           Files.deleteIfExists(sourceFile);
           LOGGER.fine("Cleaned up temporary files");
         }
       }
-    } catch (Exception e) {
-      LOGGER.log(Level.SEVERE, "Error processing request", e);
-      System.exit(1);
+    } finally {
+      if (compressed != null) {
+        // writes the last block and the gzip trailer
+        compressed.close();
+      }
+    }
+    return 0;
+  }
+
+  /// Only called on the branches that go to the network, so that directory, query and doc pack runs never
+  /// load the `java.net.http` stack and pay for its class loading at startup.
+  private static HttpClient.Builder clientBuilder(MainArguments arguments) {
+    // HTTP client should follow redirects
+    final var builder = HttpClient.newBuilder()
+        .followRedirects(HttpClient.Redirect.NORMAL);
+
+    // HTTP client should use the proxy if specified, other than for the NO_PROXY hosts
+    final var proxies = ProxyConfig.create(arguments);
+    if (proxies.enabled()) {
+      builder.proxy(proxies.toProxySelector());
+      proxies.authenticator().ifPresent(authenticator -> {
+        // the JDK refuses Basic credentials for an HTTPS tunnel unless told otherwise, and corporate proxies
+        // mostly ask for Basic
+        if (System.getProperty("jdk.http.auth.tunneling.disabledSchemes") == null) {
+          System.setProperty("jdk.http.auth.tunneling.disabledSchemes", "");
+        }
+        builder.authenticator(authenticator);
+      });
+    }
+    return builder;
+  }
+
+  /// Prints the docs and, when asked, adds them to the full-text index as a new segment tagged with `source`.
+  private static void emit(MainArguments arguments, String source, List<? extends JavaDocView> docs) throws IOException {
+    docs.forEach(System.out::println);
+    if (arguments.index()) {
+      DocIndex.addSegment(indexDirectory(arguments), source, docs);
+    }
+  }
+
+  private static Path indexDirectory(MainArguments arguments) {
+    return arguments.indexDir() != null ? Path.of(arguments.indexDir()) : DocIndex.defaultDirectory();
+  }
+
+  private static EntryCache entryCache(MainArguments arguments) throws IOException {
+    if (arguments.noCache()) {
+      return EntryCache.disabled();
+    }
+    return EntryCache.open(arguments.cacheDir() != null ? Path.of(arguments.cacheDir()) : EntryCache.defaultRoot(),
+        arguments.options().publicOnly());
+  }
+
+  /// One coordinate per non-blank line of stdin, for a coordinate list too long for the command line.
+  private static List<String> readCoordinates() throws IOException {
+    final var reader = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+    return reader.lines().map(String::strip).filter(line -> !line.isEmpty()).toList();
+  }
+
+  /// For branches that hold several coordinates' docs at once: each task packs its own result as soon as it is
+  /// extracted, so a finished coordinate waiting on a slower one is a byte arena rather than a list of records.
+  private static CompactDocStore inStore(List<JavaDocInfo> docs) {
+    return CompactDocStore.of(docs, false);
+  }
+
+  /// Downloads the sources JAR of one coordinate and extracts it, from memory when it is no bigger than
+  /// [ExtractionOptions#maxInMemoryBytes()] and otherwise from a temp file that is always removed.
+  static List<JavaDocInfo> extractCoordinate(
+      HttpClient.Builder builder,
+      String repo,
+      MavenCoordinate coordinate,
+      EntryCache cache,
+      ExtractionLimits limits,
+      ExtractionOptions options) throws Exception {
+    Path sourceFile = null;
+    // a token budget leaves entries out, and the table replaces everything it knew about the coordinate
+    final var symbols = cache.enabled() && options.maxTokens() == 0 ? new SymbolTable.Collector(coordinate.toCoordinate()) : null;
+    final BiConsumer<ZipEntry, List<JavaDocInfo>> observer = symbols != null ? symbols::accept : (_, _) -> {
+    };
+    try {
+      final var download = downloadSourceJar(builder, repo, coordinate, options.maxInMemoryBytes());
+      sourceFile = download.file();
+      List<JavaDocInfo> docs = null;
+      if (download.bytes() != null) {
+        try {
+          final var zip = BufferedZip.read(download.bytes());
+          LOGGER.fine("Processing %s in memory".formatted(coordinate));
+          final var budget = limits.budget(options);
+          docs = extractEntries(new EntryScheduler(coordinate.toString(), zip, cache, budget), budget, observer);
+        } catch (ZipException e) {
+          LOGGER.fine("Reading %s from a file instead: %s".formatted(coordinate, e.getMessage()));
+          sourceFile = Files.createTempFile("maven-source", ".jar");
+          try (final var channel = FileChannel.open(sourceFile, StandardOpenOption.WRITE)) {
+            channel.write(download.bytes());
+          }
+        }
+      }
+      if (docs == null) {
+        LOGGER.fine("Processing %s file: %s".formatted(ArtefactType.JAR, sourceFile));
+        final var budget = limits.budget(options);
+        docs = extractEntries(new EntryScheduler(sourceFile, ArtefactType.JAR, cache, budget), budget, observer);
+      }
+      if (symbols != null) {
+        recordSymbols(cache, coordinate, symbols);
+      }
+      return docs;
+    } finally {
+      if (sourceFile != null) {
+        Files.deleteIfExists(sourceFile);
+        LOGGER.fine("Cleaned up temporary files");
+      }
     }
   }
 
@@ -115,10 +396,35 @@ public class JavaDocExtractor {
     }
   }
 
-  private static Path downloadSourceJar(
+  private static List<JavaDocInfo> streamTarGz(HttpClient.Builder builder, String url, ExtractionLimits limits,
+                                               ExtractionOptions options) throws IOException, InterruptedException {
+    LOGGER.fine("Streaming source tar.gz from: %s".formatted(url));
+
+    try (final var client = builder.build()) {
+      final var request = HttpRequest.newBuilder()
+          .uri(URI.create(url))
+          .GET()
+          .build();
+
+      final var response = client.send(request, HttpResponse.BodyHandlers.ofInputStream());
+      if (response.statusCode() == 404) {
+        response.body().close();
+        LOGGER.severe("Could not resolve URL. URL not found: " + url);
+        throw new IOException("Source tar.gz not found");
+      } else if (response.statusCode() != 200) {
+        response.body().close();
+        throw new IOException("Failed to download tar.gz. Status code: " + response.statusCode());
+      }
+
+      return compact(TarGzExtractor.extractJavaDocs(response.body(), limits.budget(options)), options);
+    }
+  }
+
+  private static Download downloadSourceJar(
       HttpClient.Builder builder,
       String repo,
-      final MavenCoordinate coordinate) throws Exception {
+      final MavenCoordinate coordinate,
+      long maxInMemoryBytes) throws Exception {
     LOGGER.fine("Preparing to download source JAR for: %s".formatted(coordinate));
 
     try (final var client = builder.build()) {
@@ -150,29 +456,49 @@ public class JavaDocExtractor {
           .GET()
           .build();
 
-      final var tempFile = Files.createTempFile("maven-source", ".jar");
-      LOGGER.fine("Created temporary file: %s".formatted(tempFile));
-
       try {
         final var response = client.send(request, HttpResponse.BodyHandlers.ofInputStream());
         if (response.statusCode() == 404) {
+          response.body().close();
           LOGGER.severe("Could not resolve Maven coordinates. URL not found: " + url);
           throw new IOException("Source JAR not found");
         } else if (response.statusCode() != 200) {
+          response.body().close();
           throw new IOException("Failed to download JAR. Status code: " + response.statusCode());
         }
-
-        try (var input = response.body();
-             var output = Files.newOutputStream(tempFile)) {
-          input.transferTo(output);
-          LOGGER.fine("Downloaded source JAR successfully");
-        }
+        return download(response, maxInMemoryBytes);
       } catch (Exception e) {
-        Files.deleteIfExists(tempFile);
         throw new IOException("Failed to download source JAR", e);
       }
+    }
+  }
 
-      return tempFile;
+  /// A downloaded body, either in `bytes` or in a temp `file` that the caller deletes.
+  private record Download(ByteBuffer bytes, Path file) {
+  }
+
+  /// Reads a body of up to `maxInMemoryBytes` into memory. A larger one, or one that says it will be larger
+  /// in its `Content-Length`, goes to a temp file, along with whatever was read before that was known.
+  private static Download download(HttpResponse<InputStream> response, long maxInMemoryBytes) throws IOException {
+    final var limit = (int) Math.min(maxInMemoryBytes, Integer.MAX_VALUE - 16);
+    final var length = response.headers().firstValueAsLong("Content-Length").orElse(-1);
+    try (final var input = response.body()) {
+      final var head = length <= limit ? input.readNBytes(limit + 1) : new byte[0];
+      if (length <= limit && head.length <= limit) {
+        LOGGER.fine("Downloaded source JAR of %d bytes into memory".formatted(head.length));
+        return new Download(ByteBuffer.wrap(head), null);
+      }
+      final var tempFile = Files.createTempFile("maven-source", ".jar");
+      LOGGER.fine("Created temporary file: %s".formatted(tempFile));
+      try (final var output = Files.newOutputStream(tempFile)) {
+        output.write(head);
+        input.transferTo(output);
+        LOGGER.fine("Downloaded source JAR successfully");
+      } catch (IOException e) {
+        Files.deleteIfExists(tempFile);
+        throw e;
+      }
+      return new Download(null, tempFile);
     }
   }
 
@@ -202,47 +528,107 @@ public class JavaDocExtractor {
   }
 
   static List<JavaDocInfo> extractJavaDocs(Path artefactPath, ArtefactType artefactType) throws Exception {
-    if (artefactType == ArtefactType.JAR) {
-      LOGGER.fine("Processing JAR file: %s".formatted(artefactPath));
-      final var list = new ArrayList<JavaDocInfo>();
-      try (final var jarFile = new JarFile(artefactPath.toFile())) {
-        Enumeration<JarEntry> entries = jarFile.entries();
-        while (entries.hasMoreElements()) {
-          final var entry = entries.nextElement();
-          LOGGER.fine("Processing entry: %s".formatted(entry.getName()));
-          if (entry.getName().endsWith(".java")) {
-            LOGGER.fine("Processing Java file: %s".formatted(entry.getName()));
-            final var result = extractJavaDocFromEntry(jarFile, entry);
-            list.addAll(result);
-          }
-        }
+    return extractJavaDocs(artefactPath, artefactType, EntryCache.disabled());
+  }
+
+  static List<JavaDocInfo> extractJavaDocs(Path artefactPath, ArtefactType artefactType, EntryCache cache) throws Exception {
+    return extractJavaDocs(artefactPath, artefactType, cache, ExtractionLimits.DEFAULTS, ExtractionOptions.DEFAULTS);
+  }
+
+  static List<JavaDocInfo> extractJavaDocs(Path artefactPath, ArtefactType artefactType, EntryCache cache,
+                                           ExtractionLimits limits, ExtractionOptions options) throws Exception {
+    final var budget = limits.budget(options);
+    if (artefactType == ArtefactType.DIRECTORY) {
+      return compact(DirectoryWalker.extractJavaDocs(artefactPath, budget), options);
+    } else if (artefactType == ArtefactType.REACTOR) {
+      final var docs = new ArrayList<JavaDocInfo>();
+      MavenReactor.open(artefactPath, null).extract(limits, options, (_, moduleDocs) -> docs.addAll(moduleDocs));
+      return compact(docs, options);
+    } else if (artefactType == ArtefactType.TAR_GZ) {
+      LOGGER.fine("Processing tar.gz file: %s".formatted(artefactPath));
+      try (final var input = Files.newInputStream(artefactPath)) {
+        return compact(TarGzExtractor.extractJavaDocs(input, budget), options);
       }
-      return list;
     } else {
-      LOGGER.fine("Processing ZIP file: %s".formatted(artefactPath));
+      LOGGER.fine("Processing %s file: %s".formatted(artefactType, artefactPath));
+      return extractEntries(new EntryScheduler(artefactPath, artefactType, cache, budget), budget);
+    }
+  }
+
+  /// Extracts a JAR or ZIP that is already in memory, such as a small download.
+  static List<JavaDocInfo> extractJavaDocs(String name, BufferedZip zip, EntryCache cache, ExtractionLimits limits,
+                                           ExtractionOptions options) throws IOException, InterruptedException {
+    LOGGER.fine("Processing %s in memory".formatted(name));
+    final var budget = limits.budget(options);
+    return extractEntries(new EntryScheduler(name, zip, cache, budget), budget);
+  }
+
+  /// Each entry is one file, so overloads are collapsed as each entry arrives rather than over the whole archive.
+  private static List<JavaDocInfo> extractEntries(EntryScheduler scheduler, ExtractionLimits.Budget budget)
+      throws IOException, InterruptedException {
+    return extractEntries(scheduler, budget, (_, _) -> {
+    });
+  }
+
+  /// `observer` sees each entry's records as parsed, before any collapsing or budgeting.
+  private static List<JavaDocInfo> extractEntries(EntryScheduler scheduler, ExtractionLimits.Budget budget,
+                                                  BiConsumer<ZipEntry, List<JavaDocInfo>> observer)
+      throws IOException, InterruptedException {
+    final var options = budget.options();
+    final UnaryOperator<List<JavaDocInfo>> collapse = options.collapse() ? OverloadCollapser::collapse : docs -> docs;
+    if (options.maxTokens() == 0) {
       final var list = new ArrayList<JavaDocInfo>();
-      try (final var zipFile = new ZipFile(artefactPath.toFile())) {
-        Enumeration<? extends ZipEntry> entries = zipFile.entries();
-        while (entries.hasMoreElements()) {
-          final var entry = entries.nextElement();
-          LOGGER.fine("Processing entry: %s".formatted(entry.getName()));
-          if (entry.getName().endsWith(".java")) {
-            LOGGER.fine("Processing Java file: %s".formatted(entry.getName()));
-            final var result = extractJavaDocFromEntry(zipFile, entry);
-            list.addAll(result);
-          }
-        }
-      }
+      scheduler.extractEntries((entry, docs) -> {
+        observer.accept(entry, docs);
+        list.addAll(collapse.apply(docs));
+      });
       return list;
     }
+    final var tokens = new TokenBudget(options.maxTokens(), budget);
+    scheduler.extractEntries((entry, docs) -> {
+      observer.accept(entry, docs);
+      tokens.offer(collapse.apply(docs));
+    });
+    return tokens.selected();
   }
 
-  static List<JavaDocInfo> extractJavaDocFromEntry(ZipFile zip, ZipEntry entry) {
-    try (final var reader = new BufferedReader(new InputStreamReader(zip.getInputStream(entry)))) {
-      LOGGER.fine("Extracting JavaDoc from: %s".formatted(entry.getName()));
-      final LinePushStateMachine stateMachine = new LinePushStateMachine(entry.getName());
-      reader.lines().forEach(stateMachine::apply);
+  /// The symbol table only speeds up `which`, so failing to update it does not fail the extraction.
+  private static void recordSymbols(EntryCache cache, MavenCoordinate coordinate, SymbolTable.Collector symbols) {
+    try {
+      SymbolTable.add(cache.directory(), coordinate.toCoordinate(), symbols.symbols());
+    } catch (IOException e) {
+      LOGGER.warning("Failed to record the classes of %s: %s".formatted(coordinate, e.getMessage()));
+    }
+  }
+
+  /// Collapses overloads when asked and then fits the records to the token budget, for the extractions that
+  /// hand over every record at once.
+  static List<JavaDocInfo> compact(List<JavaDocInfo> docs, ExtractionOptions options) {
+    return TokenBudget.select(options.collapse() ? OverloadCollapser.collapse(docs) : docs, options);
+  }
+
+  /// Consults the cache using the CRC and size from the central directory before inflating anything.
+  /// An entry that goes over a limit is skipped and reported, whether or not it is cached. One whose records
+  /// were cut short by a length limit is not cached, so a later run with larger limits parses it in full, and a
+  /// cached one that the length limits would cut is parsed again.
+  static List<JavaDocInfo> extractJavaDocFromEntry(EntryReader zip, ZipEntry entry, EntryCache cache,
+                                                   ExtractionLimits.Budget budget) {
+    try {
+      budget.checkDeclared(entry.getName(), entry.getSize());
+      final var cached = cache.get(entry, budget.limits());
+      if (cached.isPresent()) {
+        LOGGER.fine("Cache hit for: %s".formatted(entry.getName()));
+        return cached.get();
+      }
+      final var stateMachine = parseEntry(zip, entry, budget);
+      if (!stateMachine.limited) {
+        cache.put(entry, stateMachine.results, stateMachine.longestDoc, stateMachine.longestSignature);
+      }
       return stateMachine.results;
+    } catch (ExtractionLimits.LimitExceededException e) {
+      LOGGER.warning("Skipping %s: %s".formatted(entry.getName(), e.getMessage()));
+      budget.skipped();
+      return Collections.emptyList();
     } catch (IOException e) {
       LOGGER.warning("Failed to process file %s: %s".formatted(
           entry.getName(), e.getMessage()));
@@ -250,12 +636,39 @@ public class JavaDocExtractor {
     }
   }
 
-  // Configure logging based on the command line arguments
+  static List<JavaDocInfo> extractJavaDocFromEntry(ZipFile zip, ZipEntry entry) {
+    return extractJavaDocFromEntry(EntryReader.of(zip), entry, EntryCache.disabled(), ExtractionLimits.DEFAULTS.budget());
+  }
+
+  private static LinePushStateMachine parseEntry(EntryReader zip, ZipEntry entry, ExtractionLimits.Budget budget)
+      throws IOException {
+    final var input = budget.guard(entry.getName(), zip.getInputStream(entry), entry.getCompressedSize());
+    try (final var reader = new BufferedReader(new InputStreamReader(input))) {
+      LOGGER.fine("Extracting JavaDoc from: %s".formatted(entry.getName()));
+      final LinePushStateMachine stateMachine = new LinePushStateMachine(entry.getName(), budget.limits(), budget.options());
+      // a plain loop rather than lines() so a limit surfaces as an IOException and not an UncheckedIOException
+      String line;
+      while ((line = reader.readLine()) != null) {
+        stateMachine.apply(line);
+      }
+      return stateMachine;
+    }
+  }
+
+  // Configure logging based on the command line arguments, reusing our handler when run more than once
   private static void configureLogging(Level level) {
-    ConsoleHandler handler = new ConsoleHandler();
-    LOGGER.setUseParentHandlers(false);
-    LOGGER.addHandler(handler);
-    LOGGER.setLevel(level);
+    ConsoleHandler handler = null;
+    for (final var existing : PACKAGE_LOGGER.getHandlers()) {
+      if (existing instanceof ConsoleHandler console) {
+        handler = console;
+      }
+    }
+    if (handler == null) {
+      handler = new ConsoleHandler();
+      PACKAGE_LOGGER.addHandler(handler);
+    }
+    PACKAGE_LOGGER.setUseParentHandlers(false);
+    PACKAGE_LOGGER.setLevel(level);
     handler.setLevel(level);
   }
 
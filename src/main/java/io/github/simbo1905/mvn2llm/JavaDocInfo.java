@@ -1,7 +1,8 @@
 package io.github.simbo1905.mvn2llm;
 
-record JavaDocInfo(String fileName, String documentation, String memberSignature) {
+record JavaDocInfo(String fileName, String documentation, String memberSignature) implements JavaDocView {
   public JavaDocInfo {
+    // strip() hands back the same instance when there is nothing to strip so pre-stripped input is not copied
     fileName = fileName.strip();
     documentation = documentation.strip();
     memberSignature = memberSignature.strip();
@@ -9,14 +10,6 @@ record JavaDocInfo(String fileName, String documentation, String memberSignature
 
   @Override
   public String toString() {
-    return """
-        %s
-        %s
-        %s
-        """.formatted(fileName, documentation.trim(), vacuum().trim());
-  }
-
-  public String vacuum() {
-    return memberSignature.replaceAll("\\s+", " ").trim();
+    return JavaDocView.format(this);
   }
 }
@@ -0,0 +1,44 @@
+package io.github.simbo1905.mvn2llm;
+
+import java.util.stream.Collectors;
+
+/// The read side of an extracted record. [JavaDocInfo] is the plain value type and [CompactDocStore.View]
+/// is a flyweight over a shared byte arena, so code that only reads docs can accept either.
+interface JavaDocView {
+  String fileName();
+
+  String documentation();
+
+  String memberSignature();
+
+  /// The kind, visibility, modifiers and name the signature declares, classified on demand so records stay three
+  /// strings in memory and in every file format.
+  default Member member() {
+    return Member.classify(memberSignature());
+  }
+
+  default String vacuum() {
+    return memberSignature().replaceAll("\\s+", " ").trim();
+  }
+
+  static String format(JavaDocView doc) {
+    return """
+        %s
+        %s
+        %s
+        """.formatted(doc.fileName(), doc.documentation().trim(), printedSignature(doc));
+  }
+
+  /// [#vacuum()] line by line. The parser joins the lines of a signature, so only a record from
+  /// [OverloadCollapser] holds several lines, one signature each, and they are printed one per line.
+  private static String printedSignature(JavaDocView doc) {
+    final var signature = doc.memberSignature();
+    if (signature.indexOf('\n') < 0) {
+      return doc.vacuum();
+    }
+    return signature.lines()
+        .map(line -> line.replaceAll("\\s+", " ").trim())
+        .filter(line -> !line.isEmpty())
+        .collect(Collectors.joining("\n"));
+  }
+}
@@ -2,13 +2,42 @@ package io.github.simbo1905.mvn2llm;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.logging.Logger;
 
 public class LinePushStateMachine {
+  private static final Logger LOGGER = Logger.getLogger(LinePushStateMachine.class.getName());
+
   private final String fileName;
+  private final int maxDocChars;
+  private final int maxSignatureChars;
+  private final boolean publicOnly;
   List<JavaDocInfo> results = new ArrayList<>();
+  /// Set once any doc of this file was truncated or any record dropped for going over a length limit.
+  boolean limited = false;
+  /// The longest doc comment and member signature read, counted the way the limits count them, so a result
+  /// parsed under one set of limits can be checked against another.
+  int longestDoc = 0;
+  int longestSignature = 0;
+  /// Documented members dropped because they are not public API.
+  int filtered = 0;
+  /// The type documented first in the file, if nothing else was documented before it. Members without an
+  /// access modifier are public inside an interface, and nothing inside a non-public type is public API.
+  private Member enclosing = null;
+  private boolean sawMember = false;
 
   public LinePushStateMachine(String fileName) {
+    this(fileName, ExtractionLimits.DEFAULTS);
+  }
+
+  LinePushStateMachine(String fileName, ExtractionLimits limits) {
+    this(fileName, limits, ExtractionOptions.DEFAULTS);
+  }
+
+  LinePushStateMachine(String fileName, ExtractionLimits limits, ExtractionOptions options) {
     this.fileName = fileName;
+    this.maxDocChars = limits.maxDocChars();
+    this.maxSignatureChars = limits.maxSignatureChars();
+    this.publicOnly = options.publicOnly();
   }
 
   enum State {
@@ -22,33 +51,34 @@ public class LinePushStateMachine {
   StringBuilder memberSignature = new StringBuilder();
   State state = State.START;
   boolean markdown = false;
+  boolean docTruncated = false;
 
   void apply(String line) {
     final var trimmed = line.trim();
     switch (state) {
       case START -> {
         if (trimmed.startsWith("/**") && trimmed.contains("*/")) {
-          javadoc.append(line).append("\n");
+          appendDoc(line);
           state = State.IN_MEMBER_SIGNATURE;
         } else if (trimmed.startsWith("/**")) {
           state = State.IN_JAVADOC;
-          javadoc.append(line).append("\n");
+          appendDoc(line);
           markdown = false;
         } else if (trimmed.startsWith("///")) {
           state = State.IN_MARKDOWN;
-          javadoc.append(line).append("\n");
+          appendDoc(line);
           markdown = true;
         }
       }
       case IN_JAVADOC -> {
-        javadoc.append(line).append("\n");
+        appendDoc(line);
         if (trimmed.startsWith("*/")) {
           state = State.IN_MEMBER_SIGNATURE;
         }
       }
       case IN_MARKDOWN -> {
         if (trimmed.startsWith("///")) {
-          javadoc.append(trimmed).append("\n");
+          appendDoc(trimmed);
         } else {
           state = State.IN_MEMBER_SIGNATURE;
           memberSigOrEnd(line);
@@ -62,16 +92,87 @@ public class LinePushStateMachine {
 
   private void memberSigOrEnd(String line) {
     memberSignature.append(line);
-    if (endOfMemberSignature(memberSignature.toString())) {
-      results.add(new JavaDocInfo(fileName, javadoc.toString(), memberSignature.toString().trim()));
-      state = State.START;
-      javadoc = new StringBuilder();
-      memberSignature = new StringBuilder();
+    longestSignature = Math.max(longestSignature, memberSignature.length());
+    if (memberSignature.length() > maxSignatureChars) {
+      // checked before the scan below, which rereads the whole signature on every line
+      LOGGER.warning("Dropped a member of %s whose signature passes %d chars".formatted(fileName, maxSignatureChars));
+      limited = true;
+      reset();
+    } else if (endOfMemberSignature(memberSignature.toString())) {
+      final var signature = stripped(memberSignature);
+      if (publicOnly && !isPublicApi(Member.classify(signature))) {
+        filtered++;
+      } else {
+        final var doc = docTruncated ? stripped(javadoc) + "\n[truncated]" : stripped(javadoc);
+        results.add(new JavaDocInfo(fileName, doc, signature));
+      }
+      reset();
     } else {
       memberSignature.append(" ");
     }
   }
 
+  /// Judges by the written modifier, read in the context of the first documented type. Nesting is not tracked,
+  /// so a public method of a private nested class still counts as public.
+  private boolean isPublicApi(Member member) {
+    if (member.kind() == Member.Kind.PACKAGE || member.kind() == Member.Kind.MODULE) {
+      return true;
+    }
+    if (!sawMember && enclosing == null && member.kind().isType()) {
+      enclosing = member;
+    }
+    sawMember = true;
+    if (enclosing != null && enclosing != member && !isPublicApi(enclosing, null)) {
+      return false;
+    }
+    return isPublicApi(member, enclosing == member ? null : enclosing);
+  }
+
+  private static boolean isPublicApi(Member member, Member enclosing) {
+    return switch (member.visibility()) {
+      case PUBLIC -> true;
+      case PROTECTED, PRIVATE -> false;
+      case PACKAGE -> member.kind() == Member.Kind.ENUM_CONSTANT || enclosing != null
+          && (enclosing.kind() == Member.Kind.INTERFACE || enclosing.kind() == Member.Kind.ANNOTATION);
+    };
+  }
+
+  /// Stops appending once the comment reaches the cap but keeps consuming it, so the member that follows
+  /// is still found and documented by what was kept.
+  private void appendDoc(String line) {
+    if (docTruncated) {
+      return;
+    }
+    longestDoc = Math.max(longestDoc, javadoc.length() + line.length() + 1);
+    if (javadoc.length() + line.length() + 1 > maxDocChars) {
+      LOGGER.warning("Truncated a doc comment in %s at %d chars".formatted(fileName, maxDocChars));
+      docTruncated = true;
+      limited = true;
+      return;
+    }
+    javadoc.append(line).append("\n");
+  }
+
+  private void reset() {
+    state = State.START;
+    javadoc = new StringBuilder();
+    memberSignature = new StringBuilder();
+    docTruncated = false;
+  }
+
+  /// Copies out only the non-whitespace span so the record constructor has nothing left to strip.
+  static String stripped(StringBuilder sb) {
+    int start = 0;
+    int end = sb.length();
+    while (start < end && Character.isWhitespace(sb.charAt(start))) {
+      start++;
+    }
+    while (end > start && Character.isWhitespace(sb.charAt(end - 1))) {
+      end--;
+    }
+    return sb.substring(start, end);
+  }
+
   /// Java will eventually have withers to remove this boilerplate
   record ParsingState(boolean insideParens, boolean foundUnenclosedBrace) {
     static ParsingState initial() {
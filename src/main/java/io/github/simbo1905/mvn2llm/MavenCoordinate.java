@@ -9,6 +9,11 @@ record MavenCoordinate(String groupId, String artifactId, String version) {
     return new MavenCoordinate(parts[0], parts[1], parts[2]);
   }
 
+  /// The `groupId:artifactId:version` form that [#parse] reads.
+  String toCoordinate() {
+    return "%s:%s:%s".formatted(groupId, artifactId, version);
+  }
+
   String toPath() {
     return "%s/%s/%s/%s-%s-sources.jar".formatted(
         groupId.replace('.', '/'),
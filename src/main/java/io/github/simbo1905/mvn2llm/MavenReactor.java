@@ -0,0 +1,257 @@
+package io.github.simbo1905.mvn2llm;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.logging.Logger;
+
+/// The modules of a local multi-module Maven build, found by following `<modules>` from the root `pom.xml`.
+///
+/// Modules are extracted concurrently and handed to the sink one at a time in reactor order. A content hash of
+/// each module's `.java` files is remembered between runs, so a module nobody touched is skipped outright.
+final class MavenReactor {
+  private static final Logger LOGGER = Logger.getLogger(MavenReactor.class.getName());
+
+  /// One module with sources: its artifactId, its directory relative to the reactor root and its source root.
+  record Module(String name, String path, Path sourceDirectory) {
+  }
+
+  /// Receives the docs of each changed module. Unlike a plain consumer it may fail with an `IOException`.
+  interface ModuleSink {
+    void accept(Module module, List<JavaDocInfo> docs) throws IOException;
+  }
+
+  private final Path root;
+  private final List<Module> modules;
+  private final Path stateFile;
+
+  private MavenReactor(Path root, List<Module> modules, Path stateFile) {
+    this.root = root;
+    this.modules = modules;
+    this.stateFile = stateFile;
+  }
+
+  /// Reads the module tree below `root`. `stateDirectory` holds the hashes of the last run, or is `null` to
+  /// extract every module every time.
+  static MavenReactor open(Path root, Path stateDirectory) throws IOException {
+    final var normalized = root.toAbsolutePath().normalize();
+    if (!Files.isRegularFile(normalized.resolve("pom.xml"))) {
+      throw new IllegalArgumentException("Not a Maven project, no pom.xml in: " + root);
+    }
+    final var modules = new LinkedHashMap<Path, Module>();
+    collect(normalized, normalized.resolve("pom.xml"), modules);
+    LOGGER.fine("Found %d modules with sources below %s".formatted(modules.size(), normalized));
+    final var stateFile = stateDirectory == null ? null : stateDirectory.resolve("reactor")
+        .resolve(hex(digest().digest(normalized.toString().getBytes(StandardCharsets.UTF_8))).substring(0, 16) + ".properties");
+    return new MavenReactor(normalized, List.copyOf(modules.values()), stateFile);
+  }
+
+  List<Module> modules() {
+    return modules;
+  }
+
+  /// Extracts every module whose sources changed since the last run and passes each to `sink` in reactor order.
+  /// A module's hash is only recorded once the sink has taken its docs, so a failed run redoes it next time.
+  void extract(ExtractionLimits limits, ExtractionOptions options, ModuleSink sink) throws IOException, InterruptedException {
+    final var previous = load();
+    final var current = new Properties();
+    final var budget = limits.budget(options);
+    try (final var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      final var futures = modules.stream()
+          .map(module -> executor.submit(() -> {
+            final var files = DirectoryWalker.findJavaFiles(module.sourceDirectory());
+            final var hash = contentHash(module.sourceDirectory(), files, limits, options);
+            if (hash.equals(previous.getProperty(module.path()))) {
+              return new Extracted(hash, null);
+            }
+            return new Extracted(hash, files.parallelStream()
+                .map(file -> DirectoryWalker.extractJavaDocFromFile(module.sourceDirectory(), file, budget))
+                .flatMap(List::stream)
+                .toList());
+          }))
+          .toList();
+      for (int i = 0; i < modules.size(); i++) {
+        final var module = modules.get(i);
+        final var extracted = futures.get(i).get();
+        if (extracted.docs() == null) {
+          LOGGER.info("Skipping unchanged module %s".formatted(module.name()));
+        } else {
+          sink.accept(module, extracted.docs());
+        }
+        current.setProperty(module.path(), extracted.hash());
+      }
+    } catch (ExecutionException e) {
+      throw new IOException("Failed to extract a module of %s".formatted(root), e.getCause());
+    } finally {
+      save(current);
+    }
+    if (budget.skippedCount() > 0) {
+      LOGGER.warning("Skipped %d files over the extraction limits".formatted(budget.skippedCount()));
+    }
+  }
+
+  private record Extracted(String hash, List<JavaDocInfo> docs) {
+  }
+
+  /// SHA-256 over the relative path, length and bytes of every `.java` file, seeded with the cache format
+  /// version and every limit and option that changes what is printed, so a change to either the parser output
+  /// or the command line invalidates every module.
+  static String contentHash(Path sourceDirectory, List<Path> files, ExtractionLimits limits, ExtractionOptions options)
+      throws IOException {
+    final var digest = digest();
+    digest.update("v%d public=%b collapse=%b tokens=%d doc=%d signature=%d entry=%d total=%d".formatted(
+        EntryCache.FORMAT_VERSION, options.publicOnly(), options.collapse(), options.maxTokens(), limits.maxDocChars(),
+        limits.maxSignatureChars(), limits.maxEntryBytes(), limits.maxTotalBytes()).getBytes(StandardCharsets.UTF_8));
+    for (final var file : files) {
+      digest.update(DirectoryWalker.entryName(sourceDirectory, file).getBytes(StandardCharsets.UTF_8));
+      final var bytes = DirectoryWalker.readBytes(file);
+      digest.update(ByteBuffer.allocate(Long.BYTES).putLong(bytes.remaining()).flip());
+      digest.update(bytes);
+    }
+    return hex(digest.digest());
+  }
+
+  private Properties load() throws IOException {
+    final var properties = new Properties();
+    if (stateFile == null) {
+      return properties;
+    }
+    try (InputStream in = Files.newInputStream(stateFile)) {
+      properties.load(in);
+    } catch (NoSuchFileException e) {
+      LOGGER.fine("No previous run recorded for %s".formatted(root));
+    }
+    return properties;
+  }
+
+  private void save(Properties hashes) throws IOException {
+    if (stateFile == null) {
+      return;
+    }
+    Files.createDirectories(stateFile.getParent());
+    final var temp = Files.createTempFile(stateFile.getParent(), "reactor", ".tmp");
+    try (OutputStream out = Files.newOutputStream(temp)) {
+      hashes.store(out, root.toString());
+    }
+    try {
+      Files.move(temp, stateFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    } catch (AtomicMoveNotSupportedException e) {
+      Files.move(temp, stateFile, StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+
+  /// Depth first in declaration order, which is the order a reactor without inter-module dependencies builds in.
+  private static void collect(Path root, Path pom, LinkedHashMap<Path, Module> modules) throws IOException {
+    final var pending = new ArrayDeque<Path>();
+    pending.push(pom);
+    final var seen = new HashSet<Path>();
+    while (!pending.isEmpty()) {
+      final var next = pending.pop().normalize();
+      if (!seen.add(next)) {
+        continue;
+      }
+      if (!Files.isRegularFile(next)) {
+        LOGGER.warning("Module without a pom.xml: %s".formatted(next));
+        continue;
+      }
+      final var parsed = Pom.parse(next);
+      final var directory = next.getParent();
+      final var sources = directory.resolve(parsed.sourceDirectory != null ? parsed.sourceDirectory : "src/main/java");
+      if (Files.isDirectory(sources)) {
+        final var path = root.relativize(directory).toString().replace('\\', '/');
+        final var name = parsed.artifactId != null ? parsed.artifactId : directory.getFileName().toString();
+        modules.putIfAbsent(directory, new Module(name, path.isEmpty() ? "." : path, sources));
+      }
+      // pushed in reverse so the first declared module is visited first
+      for (final var module : parsed.modules.reversed()) {
+        final var target = directory.resolve(module);
+        pending.push(Files.isDirectory(target) ? target.resolve("pom.xml") : target);
+      }
+    }
+  }
+
+  private static MessageDigest digest() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is required on every Java platform", e);
+    }
+  }
+
+  private static String hex(byte[] bytes) {
+    return HexFormat.of().formatHex(bytes);
+  }
+
+  /// The few elements of a pom that locate sources. Only direct children of `project` count, so a module
+  /// inside a profile or the artifactId of the parent is ignored.
+  private static final class Pom extends DefaultHandler {
+    private final ArrayDeque<String> path = new ArrayDeque<>();
+    private final StringBuilder text = new StringBuilder();
+    private final List<String> modules = new ArrayList<>();
+    private String artifactId = null;
+    private String sourceDirectory = null;
+
+    static Pom parse(Path file) throws IOException {
+      final var handler = new Pom();
+      try (final var in = Files.newInputStream(file)) {
+        final var factory = SAXParserFactory.newInstance();
+        factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+        factory.newSAXParser().parse(in, handler);
+      } catch (ParserConfigurationException | SAXException e) {
+        throw new IOException("Failed to parse %s: %s".formatted(file, e.getMessage()), e);
+      }
+      return handler;
+    }
+
+    @Override
+    public void startElement(String uri, String localName, String qName, Attributes attributes) {
+      path.addLast(qName);
+      text.setLength(0);
+    }
+
+    @Override
+    public void characters(char[] ch, int start, int length) {
+      text.append(ch, start, length);
+    }
+
+    @Override
+    public void endElement(String uri, String localName, String qName) {
+      final var value = text.toString().strip();
+      switch (String.join("/", path)) {
+        case "project/artifactId" -> artifactId = value;
+        case "project/modules/module" -> modules.add(value);
+        case "project/build/sourceDirectory" -> sourceDirectory = value
+            .replace("${project.basedir}/", "")
+            .replace("${basedir}/", "");
+        default -> {
+        }
+      }
+      path.removeLast();
+      text.setLength(0);
+    }
+  }
+}
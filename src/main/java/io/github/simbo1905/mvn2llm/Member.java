@@ -0,0 +1,166 @@
+package io.github.simbo1905.mvn2llm;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/// What a documented signature declares, read from the signature text alone.
+///
+/// This is a classifier, not a parser: it skips annotations and type parameters, takes the leading modifiers
+/// and then decides the kind from the keyword or the shape of what follows. It sees one signature at a time,
+/// so [#visibility] is what is written. Members of an interface without a modifier come out as
+/// [Visibility#PACKAGE] and the caller, which knows the enclosing type, decides what that means.
+///
+/// @param kind       the sort of declaration
+/// @param visibility the access modifier as written
+/// @param modifiers  the other modifiers as written
+/// @param name       the simple name of the type, method, constructor or field, or the package or module name
+record Member(Kind kind, Visibility visibility, Set<Modifier> modifiers, String name) {
+
+  enum Kind {
+    PACKAGE, MODULE, CLASS, INTERFACE, ANNOTATION, ENUM, RECORD, CONSTRUCTOR, METHOD, FIELD, ENUM_CONSTANT, OTHER;
+
+    boolean isType() {
+      return this == CLASS || this == INTERFACE || this == ANNOTATION || this == ENUM || this == RECORD;
+    }
+  }
+
+  enum Visibility {
+    PUBLIC, PROTECTED, PACKAGE, PRIVATE
+  }
+
+  enum Modifier {
+    STATIC, FINAL, ABSTRACT, DEFAULT, SYNCHRONIZED, NATIVE, TRANSIENT, VOLATILE, STRICTFP, SEALED, NON_SEALED
+  }
+
+  static Member classify(String signature) {
+    final var head = head(signature);
+    final var words = head.text().split("\\s+");
+    var visibility = Visibility.PACKAGE;
+    final var modifiers = EnumSet.noneOf(Modifier.class);
+    var i = 0;
+    for (; i < words.length; i++) {
+      final var word = words[i];
+      switch (word) {
+        case "" -> {
+        }
+        case "public" -> visibility = Visibility.PUBLIC;
+        case "protected" -> visibility = Visibility.PROTECTED;
+        case "private" -> visibility = Visibility.PRIVATE;
+        case "static" -> modifiers.add(Modifier.STATIC);
+        case "final" -> modifiers.add(Modifier.FINAL);
+        case "abstract" -> modifiers.add(Modifier.ABSTRACT);
+        case "default" -> modifiers.add(Modifier.DEFAULT);
+        case "synchronized" -> modifiers.add(Modifier.SYNCHRONIZED);
+        case "native" -> modifiers.add(Modifier.NATIVE);
+        case "transient" -> modifiers.add(Modifier.TRANSIENT);
+        case "volatile" -> modifiers.add(Modifier.VOLATILE);
+        case "strictfp" -> modifiers.add(Modifier.STRICTFP);
+        case "sealed" -> modifiers.add(Modifier.SEALED);
+        case "non-sealed" -> modifiers.add(Modifier.NON_SEALED);
+        default -> {
+          return classify(words, i, head.terminator(), visibility, modifiers);
+        }
+      }
+    }
+    return new Member(Kind.OTHER, visibility, Set.copyOf(modifiers), "");
+  }
+
+  private static Member classify(String[] words, int first, char terminator, Visibility visibility,
+                                 EnumSet<Modifier> modifiers) {
+    final var keyword = words[first];
+    final var next = first + 1 < words.length ? words[first + 1] : "";
+    final var last = words[words.length - 1];
+    final var rest = words.length - first;
+    final var kind = switch (keyword) {
+      case "package" -> Kind.PACKAGE;
+      case "module" -> Kind.MODULE;
+      // open is only a keyword in front of module, anywhere else it is a type or field name
+      case "open" -> "module".equals(next) ? Kind.MODULE : kindOf(rest, terminator);
+      case "class" -> Kind.CLASS;
+      case "interface" -> Kind.INTERFACE;
+      case "@interface" -> Kind.ANNOTATION;
+      case "enum" -> Kind.ENUM;
+      // record is only a restricted identifier, so a method named record is possible but has a return type first
+      case "record" -> rest > 1 ? Kind.RECORD : kindOf(rest, terminator);
+      default -> kindOf(rest, terminator);
+    };
+    final var name = switch (kind) {
+      case MODULE -> "open".equals(keyword) && first + 2 < words.length ? words[first + 2] : next;
+      case PACKAGE, CLASS, INTERFACE, ANNOTATION, ENUM, RECORD -> next;
+      case OTHER -> "";
+      default -> last;
+    };
+    // an enum constant with arguments looks like a constructor, but constants are named in upper case
+    if (kind == Kind.CONSTRUCTOR && name.chars().noneMatch(Character::isLowerCase)) {
+      return new Member(Kind.ENUM_CONSTANT, visibility, Set.copyOf(modifiers), name);
+    }
+    return new Member(kind, visibility, Set.copyOf(modifiers), name);
+  }
+
+  /// Without a keyword the shape decides. A type then a name is a method before `(` and a field otherwise. A
+  /// lone name is a constructor before `(` and an enum constant otherwise.
+  private static Kind kindOf(int words, char terminator) {
+    if (words == 1) {
+      return terminator == '(' ? Kind.CONSTRUCTOR : Kind.ENUM_CONSTANT;
+    }
+    return terminator == '(' ? Kind.METHOD : Kind.FIELD;
+  }
+
+  private record Head(String text, char terminator) {
+  }
+
+  /// The signature up to the first `(`, `=`, `{`, `;` or `,` outside type arguments, with annotations and type
+  /// arguments removed, and the character it stopped at.
+  private static Head head(String signature) {
+    final var sb = new StringBuilder(Math.min(signature.length(), 128));
+    var depth = 0;
+    for (var i = 0; i < signature.length(); i++) {
+      final var ch = signature.charAt(i);
+      if (depth > 0) {
+        depth += ch == '<' ? 1 : ch == '>' ? -1 : 0;
+        continue;
+      }
+      switch (ch) {
+        case '<' -> depth = 1;
+        case '(', '=', '{', ';', ',' -> {
+          return new Head(sb.toString().strip(), ch);
+        }
+        case '@' -> {
+          if (signature.startsWith("@interface", i)) {
+            sb.append(ch);
+          } else {
+            i = skipAnnotation(signature, i);
+            sb.append(' ');
+          }
+        }
+        default -> sb.append(Character.isWhitespace(ch) ? ' ' : ch);
+      }
+    }
+    return new Head(sb.toString().strip(), '\0');
+  }
+
+  /// Returns the index of the last character of the annotation starting at `at`, including its arguments.
+  private static int skipAnnotation(String signature, int at) {
+    var i = at + 1;
+    while (i < signature.length()
+        && (Character.isJavaIdentifierPart(signature.charAt(i)) || signature.charAt(i) == '.')) {
+      i++;
+    }
+    var j = i;
+    while (j < signature.length() && Character.isWhitespace(signature.charAt(j))) {
+      j++;
+    }
+    if (j < signature.length() && signature.charAt(j) == '(') {
+      var depth = 0;
+      for (; j < signature.length(); j++) {
+        final var ch = signature.charAt(j);
+        depth += ch == '(' ? 1 : ch == ')' ? -1 : 0;
+        if (depth == 0) {
+          return j;
+        }
+      }
+      return signature.length();
+    }
+    return i - 1;
+  }
+}
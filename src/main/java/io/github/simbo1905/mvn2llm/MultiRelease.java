@@ -0,0 +1,79 @@
+package io.github.simbo1905.mvn2llm;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.logging.Logger;
+import java.util.zip.ZipEntry;
+
+/// Picks one variant of each source file from a multi-release archive.
+///
+/// A library that targets several Java releases ships `com/example/Foo.java` at the root for the oldest one and
+/// again under `META-INF/versions/N/` for each release that changed it. [java.util.jar.JarFile#versionedStream()] would make
+/// that choice, but only when the manifest says `Multi-Release: true`, and sources JARs rarely copy that
+/// attribute across. So the choice is made here from the entry names alone, before anything is inflated: the
+/// highest `N` not above the target release wins, and the root copy when there is none.
+///
+/// `module-info.java` only means anything from Java 9, so a root copy is dropped when the target is older. It is
+/// otherwise chosen like any other file, as libraries that still support Java 8 keep it under `versions/9`.
+final class MultiRelease {
+  private static final Logger LOGGER = Logger.getLogger(MultiRelease.class.getName());
+
+  static final String VERSIONS = "META-INF/versions/";
+  static final String MODULE_INFO = "module-info.java";
+
+  private MultiRelease() {
+  }
+
+  /// Returns one entry per base name in the order the base names first appear, each the variant for `release`.
+  static <E extends ZipEntry> List<E> select(List<E> entries, int release) {
+    final var chosen = new HashMap<String, Integer>();
+    final var order = new ArrayList<String>();
+    for (int i = 0; i < entries.size(); i++) {
+      final var name = entries.get(i).getName();
+      final var version = version(name);
+      if (version < 0 || version > release) {
+        continue;
+      }
+      final var base = baseName(name);
+      if (base.equals(MODULE_INFO) && release < 9) {
+        continue;
+      }
+      final var kept = chosen.get(base);
+      if (kept == null) {
+        order.add(base);
+        chosen.put(base, i);
+      } else if (version(entries.get(kept).getName()) < version) {
+        chosen.put(base, i);
+      }
+    }
+    if (order.size() == entries.size()) {
+      return entries;
+    }
+    LOGGER.fine("Kept %d of %d source entries for release %d".formatted(order.size(), entries.size(), release));
+    return order.stream().map(base -> entries.get(chosen.get(base))).toList();
+  }
+
+  /// The release of a versioned entry, `0` for an entry at the root, or `-1` when the directory after
+  /// `META-INF/versions/` is not a release number.
+  static int version(String name) {
+    if (!name.startsWith(VERSIONS)) {
+      return 0;
+    }
+    final var slash = name.indexOf('/', VERSIONS.length());
+    try {
+      return slash < 0 ? -1 : Integer.parseInt(name.substring(VERSIONS.length(), slash));
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  /// `META-INF/versions/11/com/example/Foo.java` becomes `com/example/Foo.java`. Other names are unchanged.
+  static String baseName(String name) {
+    if (!name.startsWith(VERSIONS)) {
+      return name;
+    }
+    final var slash = name.indexOf('/', VERSIONS.length());
+    return slash < 0 ? name : name.substring(slash + 1);
+  }
+}
@@ -0,0 +1,92 @@
+package io.github.simbo1905.mvn2llm;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/// Merges the records of one file that say the same thing, so shared docs are printed once.
+///
+/// Overloads of a method are often documented with the same text, and a `{@inheritDoc}` alone says nothing the
+/// record needs. Methods and constructors of one file are grouped by name and by their doc with comment markers
+/// and whitespace normalised away. Methods whose doc is only `{@inheritDoc}` form one group whatever their name.
+/// Each group becomes one record at the place of its first member: the first member's doc followed by every
+/// signature in the group, one per line. Types, fields and members with a doc of their own pass through as they
+/// are.
+///
+/// Records arrive in file order, so only the records of the current file are held at any time.
+final class OverloadCollapser implements Consumer<JavaDocInfo> {
+  private static final Pattern MARKERS = Pattern.compile("(?m)^\\s*(/\\*\\*|\\*/|///|\\*)|\\*/\\s*$");
+  private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+  private static final String INHERIT_DOC = "{@inheritDoc}";
+
+  private final Consumer<JavaDocInfo> downstream;
+  private final LinkedHashMap<String, List<JavaDocInfo>> groups = new LinkedHashMap<>();
+  private String fileName = null;
+  private int collapsed = 0;
+
+  OverloadCollapser(Consumer<JavaDocInfo> downstream) {
+    this.downstream = downstream;
+  }
+
+  /// Collapses a list that may hold several files, each of them contiguous as every extractor produces them.
+  static List<JavaDocInfo> collapse(List<JavaDocInfo> docs) {
+    final var out = new ArrayList<JavaDocInfo>(docs.size());
+    final var collapser = new OverloadCollapser(out::add);
+    docs.forEach(collapser);
+    collapser.flush();
+    return out;
+  }
+
+  @Override
+  public void accept(JavaDocInfo doc) {
+    if (!doc.fileName().equals(fileName)) {
+      flush();
+      fileName = doc.fileName();
+    }
+    // a record that is not grouped gets a key no other record can have
+    groups.computeIfAbsent(key(doc).orElse("#" + groups.size()), _ -> new ArrayList<>(1)).add(doc);
+  }
+
+  /// Passes on the groups of the current file. Call once more after the last record.
+  void flush() {
+    for (final var group : groups.values()) {
+      if (group.size() == 1) {
+        downstream.accept(group.getFirst());
+        continue;
+      }
+      final var signatures = new StringBuilder();
+      for (final var doc : group) {
+        signatures.append(signatures.isEmpty() ? "" : "\n").append(doc.memberSignature());
+      }
+      collapsed += group.size() - 1;
+      final var first = group.getFirst();
+      downstream.accept(new JavaDocInfo(first.fileName(), first.documentation(), signatures.toString()));
+    }
+    groups.clear();
+  }
+
+  /// Records merged into another so far.
+  int collapsed() {
+    return collapsed;
+  }
+
+  private static Optional<String> key(JavaDocInfo doc) {
+    final var member = doc.member();
+    if (member.kind() != Member.Kind.METHOD && member.kind() != Member.Kind.CONSTRUCTOR) {
+      return Optional.empty();
+    }
+    final var text = normalise(doc.documentation());
+    if (text.equals(INHERIT_DOC)) {
+      return Optional.of(INHERIT_DOC);
+    }
+    return Optional.of(member.kind() + " " + member.name() + "\n" + text);
+  }
+
+  /// The doc text without comment markers and with every run of whitespace made one space.
+  static String normalise(String documentation) {
+    return WHITESPACE.matcher(MARKERS.matcher(documentation).replaceAll(" ")).replaceAll(" ").strip();
+  }
+}
@@ -0,0 +1,188 @@
+package io.github.simbo1905.mvn2llm;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/// A gzip stream that deflates fixed-size blocks on several cores, the way `pigz` does.
+///
+/// Each block is deflated independently with the last 32 KiB that came before it as its preset dictionary,
+/// so matches can still reach back across the block boundary and the ratio stays close to single-threaded
+/// gzip. Every block but the last ends with a sync flush, which byte-aligns it so the raw deflate outputs can
+/// simply be concatenated into one member. The CRC is cheap next to deflating, so it is computed in order on
+/// the writing thread. The result is an ordinary gzip file that `gzip -d` and [java.util.zip.GZIPInputStream]
+/// read, with compressed blocks written in order while later ones are still being deflated.
+final class ParallelGzipOutputStream extends OutputStream {
+
+  static final int BLOCK_SIZE = 128 * 1024;
+  static final int WINDOW_SIZE = 32 * 1024;
+
+  private static final byte[] HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+  private final OutputStream out;
+  private final int level;
+  private final int maxInFlight;
+  private final ExecutorService pool;
+  private final ArrayDeque<Future<byte[]>> inFlight = new ArrayDeque<>();
+  private final CRC32 crc = new CRC32();
+  private final byte[] window = new byte[WINDOW_SIZE];
+  private int windowLength = 0;
+  private byte[] block = new byte[BLOCK_SIZE];
+  private int blockLength = 0;
+  private long totalLength = 0;
+  private boolean closed = false;
+
+  ParallelGzipOutputStream(OutputStream out, int threads, int level) throws IOException {
+    this.out = out;
+    this.level = level;
+    // enough queued blocks to keep every core busy while the head block is being written out
+    this.maxInFlight = threads * 2;
+    this.pool = Executors.newFixedThreadPool(threads, Thread.ofPlatform().daemon().name("gzip-", 0).factory());
+    out.write(HEADER);
+  }
+
+  ParallelGzipOutputStream(OutputStream out) throws IOException {
+    this(out, Runtime.getRuntime().availableProcessors(), Deflater.DEFAULT_COMPRESSION);
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    write(new byte[]{(byte) b}, 0, 1);
+  }
+
+  @Override
+  public void write(byte[] bytes, int offset, int length) throws IOException {
+    ensureOpen();
+    while (length > 0) {
+      final var n = Math.min(length, BLOCK_SIZE - blockLength);
+      System.arraycopy(bytes, offset, block, blockLength, n);
+      blockLength += n;
+      offset += n;
+      length -= n;
+      if (blockLength == BLOCK_SIZE) {
+        submit(false);
+      }
+    }
+  }
+
+  /// Deflates whatever is buffered as a short block and writes out every finished block, so a reader of a
+  /// live stream such as `--watch` sees everything written so far.
+  @Override
+  public void flush() throws IOException {
+    ensureOpen();
+    if (blockLength > 0) {
+      submit(false);
+    }
+    drain(0);
+    out.flush();
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    try {
+      submit(true);
+      drain(0);
+      final var trailer = new byte[8];
+      writeIntLE(trailer, 0, (int) crc.getValue());
+      writeIntLE(trailer, 4, (int) totalLength);
+      out.write(trailer);
+      out.flush();
+    } finally {
+      closed = true;
+      pool.shutdownNow();
+      out.close();
+    }
+  }
+
+  private void submit(boolean last) throws IOException {
+    final var input = block;
+    final var inputLength = blockLength;
+    final var dictionary = Arrays.copyOf(window, windowLength);
+    crc.update(input, 0, inputLength);
+    totalLength += inputLength;
+    slide(input, inputLength);
+    inFlight.add(pool.submit(() -> deflate(input, inputLength, dictionary, last)));
+    block = new byte[BLOCK_SIZE];
+    blockLength = 0;
+    drain(maxInFlight);
+  }
+
+  /// Writes finished blocks from the head of the queue, waiting on the head until no more than `keep` remain.
+  private void drain(int keep) throws IOException {
+    while (!inFlight.isEmpty() && (inFlight.size() > keep || inFlight.peek().isDone())) {
+      try {
+        out.write(inFlight.poll().get());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("Interrupted while compressing");
+      } catch (ExecutionException e) {
+        throw new IOException("Failed to compress block", e.getCause());
+      }
+    }
+  }
+
+  private void slide(byte[] input, int length) {
+    if (length >= WINDOW_SIZE) {
+      System.arraycopy(input, length - WINDOW_SIZE, window, 0, WINDOW_SIZE);
+      windowLength = WINDOW_SIZE;
+      return;
+    }
+    final var keep = Math.min(windowLength, WINDOW_SIZE - length);
+    System.arraycopy(window, windowLength - keep, window, 0, keep);
+    System.arraycopy(input, 0, window, keep, length);
+    windowLength = keep + length;
+  }
+
+  private byte[] deflate(byte[] input, int length, byte[] dictionary, boolean last) {
+    final var deflater = new Deflater(level, true);
+    try {
+      if (dictionary.length > 0) {
+        deflater.setDictionary(dictionary);
+      }
+      deflater.setInput(input, 0, length);
+      final var compressed = new ByteArrayOutputStream(length / 2 + 64);
+      final var buffer = new byte[16 * 1024];
+      if (last) {
+        deflater.finish();
+        while (!deflater.finished()) {
+          compressed.write(buffer, 0, deflater.deflate(buffer));
+        }
+      } else {
+        // a sync flush only stops once it returns less than the buffer it was given
+        int n;
+        do {
+          n = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+          compressed.write(buffer, 0, n);
+        } while (n == buffer.length);
+      }
+      return compressed.toByteArray();
+    } finally {
+      deflater.end();
+    }
+  }
+
+  private void ensureOpen() throws IOException {
+    if (closed) {
+      throw new IOException("Stream closed");
+    }
+  }
+
+  private static void writeIntLE(byte[] bytes, int offset, int value) {
+    bytes[offset] = (byte) value;
+    bytes[offset + 1] = (byte) (value >>> 8);
+    bytes[offset + 2] = (byte) (value >>> 16);
+    bytes[offset + 3] = (byte) (value >>> 24);
+  }
+}
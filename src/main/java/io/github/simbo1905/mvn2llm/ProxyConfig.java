@@ -1,41 +1,103 @@
 package io.github.simbo1905.mvn2llm;
 
-import java.net.InetSocketAddress;
+import java.net.Authenticator;
+import java.net.PasswordAuthentication;
 import java.net.ProxySelector;
 import java.net.URI;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+/// The proxies to use and the hosts to reach without one, from the command line or else the environment.
+///
+/// @param httpProxy  the proxy for `http` URLs, and for `https` ones when `httpsProxy` is empty
+/// @param httpsProxy the proxy for `https` URLs, and for `http` ones when `httpProxy` is empty
+/// @param noProxy    the `NO_PROXY` rules, see [RoutingProxySelector]
 record ProxyConfig(
     Optional<URI> httpProxy,
-    Optional<URI> httpsProxy
+    Optional<URI> httpsProxy,
+    List<String> noProxy
 ) {
   static ProxyConfig create(MainArguments args) {
     // Command line arguments take precedence
     var httpProxy = Optional.ofNullable(args.httpProxy())
-        .map(URI::create);
+        .map(ProxyConfig::proxyUri);
     var httpsProxy = Optional.ofNullable(args.httpsProxy())
-        .map(URI::create);
+        .map(ProxyConfig::proxyUri);
+    var noProxy = Optional.ofNullable(args.noProxy());
 
     // Fall back to environment variables if not specified in args
     if (httpProxy.isEmpty()) {
       httpProxy = Optional.ofNullable(System.getenv("HTTP_PROXY"))
           .or(() -> Optional.ofNullable(System.getenv("http_proxy")))
-          .map(URI::create);
+          .filter(value -> !value.isBlank())
+          .map(ProxyConfig::proxyUri);
     }
 
     if (httpsProxy.isEmpty()) {
       httpsProxy = Optional.ofNullable(System.getenv("HTTPS_PROXY"))
           .or(() -> Optional.ofNullable(System.getenv("https_proxy")))
-          .map(URI::create);
+          .filter(value -> !value.isBlank())
+          .map(ProxyConfig::proxyUri);
     }
 
-    return new ProxyConfig(httpProxy, httpsProxy);
+    if (noProxy.isEmpty()) {
+      noProxy = Optional.ofNullable(System.getenv("NO_PROXY"))
+          .or(() -> Optional.ofNullable(System.getenv("no_proxy")));
+    }
+
+    return new ProxyConfig(httpProxy, httpsProxy, noProxy.map(ProxyConfig::rules).orElse(List.of()));
+  }
+
+  /// `proxy:3128` is as common in the environment as `http://proxy:3128`, and without a scheme a URI would read
+  /// the host as one.
+  static URI proxyUri(String value) {
+    final var trimmed = value.strip();
+    return URI.create(trimmed.contains("://") ? trimmed : "http://" + trimmed);
+  }
+
+  /// Splits a `NO_PROXY` value on commas and whitespace.
+  static List<String> rules(String value) {
+    return Arrays.stream(value.split("[,\\s]+")).filter(rule -> !rule.isEmpty()).toList();
+  }
+
+  boolean enabled() {
+    return httpProxy.isPresent() || httpsProxy.isPresent();
   }
 
   ProxySelector toProxySelector() {
-    return ProxySelector.of(new InetSocketAddress(
-        httpsProxy.orElse(httpProxy.orElseThrow()).getHost(),
-        httpsProxy.orElse(httpProxy.orElseThrow()).getPort()
-    ));
+    return new RoutingProxySelector(this);
+  }
+
+  /// Answers proxy challenges with the `user:password` of whichever proxy URL names the challenging host and
+  /// port, and nothing else, so credentials are never sent to a server that asks for them.
+  Optional<Authenticator> authenticator() {
+    final var proxies = Stream.of(httpProxy, httpsProxy)
+        .flatMap(Optional::stream)
+        .filter(uri -> uri.getUserInfo() != null)
+        .toList();
+    if (proxies.isEmpty()) {
+      return Optional.empty();
+    }
+    return Optional.of(new Authenticator() {
+      @Override
+      protected PasswordAuthentication getPasswordAuthentication() {
+        if (getRequestorType() != RequestorType.PROXY) {
+          return null;
+        }
+        for (final var proxy : proxies) {
+          if (proxy.getHost().equalsIgnoreCase(getRequestingHost())
+              && RoutingProxySelector.port(proxy) == getRequestingPort()) {
+            final var userInfo = proxy.getUserInfo();
+            final var colon = userInfo.indexOf(':');
+            return colon < 0
+                ? new PasswordAuthentication(userInfo, new char[0])
+                : new PasswordAuthentication(userInfo.substring(0, colon), userInfo.substring(colon + 1).toCharArray());
+          }
+        }
+        return null;
+      }
+    });
   }
 }
@@ -0,0 +1,181 @@
+package io.github.simbo1905.mvn2llm;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.net.ProxySelector;
+import java.net.SocketAddress;
+import java.net.URI;
+import java.net.UnknownHostException;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+/// Sends each request through the proxy for its scheme, or direct when the host matches a `NO_PROXY` rule.
+///
+/// Rules follow the curl conventions, compared without case:
+/// - `*` sends everything direct.
+/// - `example.com` matches that host and every host below it, as do `.example.com` and `*.example.com`.
+/// - An IP address matches only itself, and `10.0.0.0/8` or `fd00::/8` match a whole range.
+/// - A rule ending in `:port` only matches that port.
+///
+/// Host names are matched as written and never resolved, so a CIDR rule only catches URLs that use an IP
+/// address. The decision for each scheme, host and port is worked out once and cached, as a run makes many
+/// requests to a handful of hosts.
+final class RoutingProxySelector extends ProxySelector {
+  private static final Logger LOGGER = Logger.getLogger(RoutingProxySelector.class.getName());
+
+  private static final Pattern IPV4 = Pattern.compile("\\d{1,3}(\\.\\d{1,3}){3}");
+  private static final List<Proxy> DIRECT = List.of(Proxy.NO_PROXY);
+
+  /// A bound on the cache in case a run is pointed at a great many hosts.
+  static final int MAX_CACHED_HOSTS = 1024;
+
+  private final List<Proxy> http;
+  private final List<Proxy> https;
+  private final List<Rule> rules;
+  private final ConcurrentHashMap<String, List<Proxy>> decisions = new ConcurrentHashMap<>();
+
+  RoutingProxySelector(ProxyConfig config) {
+    final var httpProxy = config.httpProxy().or(config::httpsProxy).map(RoutingProxySelector::proxy);
+    final var httpsProxy = config.httpsProxy().or(config::httpProxy).map(RoutingProxySelector::proxy);
+    this.http = httpProxy.map(List::of).orElse(DIRECT);
+    this.https = httpsProxy.map(List::of).orElse(DIRECT);
+    this.rules = config.noProxy().stream().map(Rule::parse).toList();
+  }
+
+  /// One `NO_PROXY` entry. `suffix` is a host name or domain, `network` an address with `prefix` bits that
+  /// must match, and `port` is 0 for any port.
+  record Rule(String suffix, byte[] network, int prefix, int port) {
+
+    static Rule parse(String text) {
+      var rule = text.strip().toLowerCase(Locale.ROOT);
+      var port = 0;
+      // a bare IPv6 address has colons too, so only a bracketed one or a single colon gives a port
+      final var colon = rule.lastIndexOf(':');
+      if (colon > 0 && (rule.startsWith("[") ? rule.charAt(colon - 1) == ']' : rule.indexOf(':') == colon)
+          && rule.substring(colon + 1).chars().allMatch(Character::isDigit) && colon + 1 < rule.length()) {
+        port = Integer.parseInt(rule.substring(colon + 1));
+        rule = rule.substring(0, colon);
+      }
+      rule = unbracket(rule);
+      final var slash = rule.indexOf('/');
+      final var address = literal(slash < 0 ? rule : rule.substring(0, slash));
+      if (address != null) {
+        final var bits = address.getAddress().length * 8;
+        final var prefix = slash < 0 ? bits : Integer.parseInt(rule.substring(slash + 1));
+        if (prefix < 0 || prefix > bits) {
+          throw new IllegalArgumentException("Bad CIDR range in NO_PROXY: " + text);
+        }
+        return new Rule(null, address.getAddress(), prefix, port);
+      }
+      if (rule.startsWith("*.")) {
+        rule = rule.substring(2);
+      } else if (rule.startsWith(".")) {
+        rule = rule.substring(1);
+      }
+      return new Rule(rule, null, 0, port);
+    }
+
+    boolean matches(String host, byte[] address, int port) {
+      if (this.port != 0 && this.port != port) {
+        return false;
+      }
+      if (network != null) {
+        return address != null && address.length == network.length && sharesPrefix(address);
+      }
+      return suffix.equals("*") || host.equals(suffix) || host.endsWith("." + suffix);
+    }
+
+    private boolean sharesPrefix(byte[] address) {
+      for (var bit = 0; bit < prefix; bit += 8) {
+        final var bits = Math.min(8, prefix - bit);
+        final var mask = (0xFF << (8 - bits)) & 0xFF;
+        if ((address[bit / 8] & mask) != (network[bit / 8] & mask)) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
+  @Override
+  public List<Proxy> select(URI uri) {
+    if (uri == null) {
+      throw new IllegalArgumentException("URI must not be null");
+    }
+    final var scheme = uri.getScheme() == null ? "" : uri.getScheme().toLowerCase(Locale.ROOT);
+    final var proxies = switch (scheme) {
+      case "http", "ws" -> http;
+      case "https", "wss" -> https;
+      default -> DIRECT;
+    };
+    if (proxies == DIRECT || uri.getHost() == null) {
+      return proxies;
+    }
+    final var host = unbracket(uri.getHost().toLowerCase(Locale.ROOT));
+    final var port = uri.getPort() != -1 ? uri.getPort() : scheme.endsWith("s") ? 443 : 80;
+    final var key = "%s://%s:%d".formatted(scheme, host, port);
+    final var cached = decisions.get(key);
+    if (cached != null) {
+      return cached;
+    }
+    if (decisions.size() >= MAX_CACHED_HOSTS) {
+      decisions.clear();
+    }
+    return decisions.computeIfAbsent(key, _ -> route(host, port, proxies));
+  }
+
+  private List<Proxy> route(String host, int port, List<Proxy> proxies) {
+    final var literal = literal(host);
+    final var address = literal == null ? null : literal.getAddress();
+    for (final var rule : rules) {
+      if (rule.matches(host, address, port)) {
+        LOGGER.fine("Connecting directly to %s:%d".formatted(host, port));
+        return DIRECT;
+      }
+    }
+    LOGGER.fine("Connecting to %s:%d through %s".formatted(host, port, proxies.getFirst().address()));
+    return proxies;
+  }
+
+  @Override
+  public void connectFailed(URI uri, SocketAddress address, IOException e) {
+    LOGGER.warning("Failed to connect to proxy %s for %s: %s".formatted(address, uri, e.getMessage()));
+  }
+
+  int cachedDecisions() {
+    return decisions.size();
+  }
+
+  static int port(URI proxy) {
+    return proxy.getPort() != -1 ? proxy.getPort() : "https".equalsIgnoreCase(proxy.getScheme()) ? 443 : 80;
+  }
+
+  private static Proxy proxy(URI uri) {
+    if (uri.getHost() == null) {
+      throw new IllegalArgumentException("Proxy URL without a host: " + uri);
+    }
+    return new Proxy(Proxy.Type.HTTP, new InetSocketAddress(uri.getHost(), port(uri)));
+  }
+
+  /// The address an IPv4 or IPv6 literal stands for, or `null` for a host name. A literal is parsed without any
+  /// lookup, and a name is never handed to the resolver.
+  private static InetAddress literal(String host) {
+    if (!IPV4.matcher(host).matches() && !host.contains(":")) {
+      return null;
+    }
+    try {
+      return InetAddress.getByName(host);
+    } catch (UnknownHostException e) {
+      return null;
+    }
+  }
+
+  private static String unbracket(String host) {
+    return host.startsWith("[") && host.endsWith("]") ? host.substring(1, host.length() - 1) : host;
+  }
+}
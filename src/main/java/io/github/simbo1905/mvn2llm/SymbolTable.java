@@ -0,0 +1,280 @@
+package io.github.simbo1905.mvn2llm;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.logging.Logger;
+import java.util.zip.ZipEntry;
+
+/// Which coordinate defines a class, remembered from every extraction that went through the entry cache.
+///
+/// Each symbol names the archive entry that holds the class, with the entry's CRC and size, so the class's
+/// docs can be read back from the [EntryCache] without downloading anything. Top-level classes come from entry
+/// names. Nested types come from the type signatures inside the file, and cover the records from their own
+/// declaration up to the next type's. A signature does not say how deeply a type is nested, so every nested type
+/// is named as a direct member of the top-level class. The table is one file in the cache directory, sorted by the UTF-8 bytes
+/// of the class name and memory-mapped, so a lookup is a binary search that decodes only what matches. Adding a
+/// coordinate merges it into a new file under a file lock and renames it into place, so readers never see a
+/// partial table and concurrent batch workers do not lose each other's symbols.
+///
+/// Layout, all integers big-endian and all offsets relative to the start of the file:
+/// ```
+/// header:  magic:int version:int symbols:int symbolTable:int text:int reserved:int
+/// symbols: (nameOffset:int nameLength:int coordinateOffset:int coordinateLength:int entryOffset:int
+///           entryLength:int crc:int size:long firstRecord:int recordCount:int)*
+/// text:    names, coordinates and entry names as raw UTF-8
+/// ```
+record SymbolTable(MappedByteBuffer map, int symbols, int symbolTable) {
+  private static final Logger LOGGER = Logger.getLogger(SymbolTable.class.getName());
+
+  static final int MAGIC = 0x6d32_7379;
+  static final int VERSION = 1;
+  static final String FILE_NAME = "symbols.tbl";
+
+  private static final int HEADER_BYTES = 6 * 4;
+  private static final int SYMBOL_SLOT = 9 * 4 + 8;
+
+  /// One class: where its docs are in the cached results of one entry of one coordinate.
+  record Symbol(String className, String coordinate, String entryName, long crc, long size, int firstRecord,
+                int recordCount) {
+
+    /// A stand-in for the archive entry, carrying just what [EntryCache] keys on.
+    ZipEntry entry() {
+      final var entry = new ZipEntry(entryName);
+      entry.setCrc(crc);
+      entry.setSize(size);
+      return entry;
+    }
+  }
+
+  /// Gathers the symbols of one coordinate as its entries are extracted. Entries arrive one at a time.
+  static final class Collector {
+    private final String coordinate;
+    private final List<Symbol> symbols = new ArrayList<>();
+
+    Collector(String coordinate) {
+      this.coordinate = coordinate;
+    }
+
+    void accept(ZipEntry entry, List<JavaDocInfo> docs) {
+      final var className = ClassNames.fromEntryName(entry.getName());
+      if (className == null || docs.isEmpty() || entry.getCrc() == -1 || entry.getSize() == -1
+          || className.endsWith("package-info") || className.endsWith("module-info")) {
+        return;
+      }
+      symbols.add(new Symbol(className, coordinate, entry.getName(), entry.getCrc(), entry.getSize(), 0, docs.size()));
+      final var simpleName = className.substring(className.lastIndexOf('.') + 1);
+      var nested = -1;
+      var nestedName = "";
+      for (var i = 0; i <= docs.size(); i++) {
+        final var member = i < docs.size() ? docs.get(i).member() : null;
+        if (member != null && !member.kind().isType()) {
+          continue;
+        }
+        if (nested >= 0) {
+          symbols.add(new Symbol(className + "." + nestedName, coordinate, entry.getName(), entry.getCrc(),
+              entry.getSize(), nested, i - nested));
+          nested = -1;
+        }
+        if (member != null && !member.name().equals(simpleName) && !member.name().isEmpty()) {
+          nested = i;
+          nestedName = member.name();
+        }
+      }
+    }
+
+    List<Symbol> symbols() {
+      return symbols;
+    }
+  }
+
+  /// Replaces whatever the table held for `coordinate` with `symbols`. The file lock keeps other processes out
+  /// and the monitor keeps other threads out, as a JVM holds a file lock for all its threads.
+  static synchronized void add(Path directory, String coordinate, List<Symbol> symbols) throws IOException {
+    final var file = directory.resolve(FILE_NAME);
+    try (final var lock = FileChannel.open(directory.resolve(FILE_NAME + ".lock"),
+        StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+         final var _ = lock.lock()) {
+      final var merged = new ArrayList<Symbol>(symbols);
+      try {
+        final var existing = open(file);
+        if (existing != null) {
+          for (var slot = 0; slot < existing.symbols(); slot++) {
+            final var symbol = existing.symbol(slot);
+            if (!symbol.coordinate().equals(coordinate)) {
+              merged.add(symbol);
+            }
+          }
+        }
+      } catch (IOException e) {
+        // a damaged table is started again, losing only the coordinates extracted before it was damaged
+        LOGGER.warning("Rebuilding unreadable symbol table %s: %s".formatted(file, e.getMessage()));
+        merged.clear();
+        merged.addAll(symbols);
+      }
+      merged.sort(Comparator.comparing(Symbol::className, DocIndex::compareUtf8)
+          .thenComparing(Symbol::coordinate));
+      write(file, merged);
+      LOGGER.fine("Recorded %d symbols of %s, %d in total".formatted(symbols.size(), coordinate, merged.size()));
+    }
+  }
+
+  private static void write(Path file, List<Symbol> symbols) throws IOException {
+    final var textStart = HEADER_BYTES + (long) SYMBOL_SLOT * symbols.size();
+    final var text = new ByteArrayOutputStream();
+    final var slots = ByteBuffer.allocate(SYMBOL_SLOT * symbols.size());
+    var previous = (Symbol) null;
+    var coordinateOffset = 0;
+    var coordinateLength = 0;
+    for (final var symbol : symbols) {
+      final var name = symbol.className().getBytes(StandardCharsets.UTF_8);
+      final var nameOffset = offset(textStart, text);
+      text.writeBytes(name);
+      // neighbours often share a coordinate, so it is written once per run of them
+      if (previous == null || !previous.coordinate().equals(symbol.coordinate())) {
+        final var coordinate = symbol.coordinate().getBytes(StandardCharsets.UTF_8);
+        coordinateOffset = offset(textStart, text);
+        coordinateLength = coordinate.length;
+        text.writeBytes(coordinate);
+      }
+      final var entry = symbol.entryName().getBytes(StandardCharsets.UTF_8);
+      final var entryOffset = offset(textStart, text);
+      text.writeBytes(entry);
+      slots.putInt(nameOffset).putInt(name.length).putInt(coordinateOffset).putInt(coordinateLength)
+          .putInt(entryOffset).putInt(entry.length).putInt((int) symbol.crc()).putLong(symbol.size())
+          .putInt(symbol.firstRecord()).putInt(symbol.recordCount());
+      previous = symbol;
+    }
+    final var header = ByteBuffer.allocate(HEADER_BYTES)
+        .putInt(MAGIC).putInt(VERSION).putInt(symbols.size()).putInt(HEADER_BYTES).putInt((int) textStart).putInt(0);
+    final var temp = file.resolveSibling("%s.%d.tmp".formatted(file.getFileName(), ProcessHandle.current().pid()));
+    try {
+      try (final var channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+          StandardOpenOption.TRUNCATE_EXISTING)) {
+        for (final var buffer : List.of(header.flip(), slots.flip(), ByteBuffer.wrap(text.toByteArray()))) {
+          while (buffer.hasRemaining()) {
+            channel.write(buffer);
+          }
+        }
+      }
+      try {
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+  }
+
+  /// Maps the table in `file`, or returns `null` when nothing has been recorded yet. The header is checked against
+  /// the size of the file, and each slot's text against it as the slot is read, so a truncated or corrupt table is
+  /// an [IOException] rather than an unchecked one.
+  static SymbolTable open(Path file) throws IOException {
+    try (final var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      final var map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      if (map.limit() < HEADER_BYTES || map.getInt(0) != MAGIC) {
+        throw new IOException("Not a symbol table: " + file);
+      }
+      if (map.getInt(4) != VERSION) {
+        throw new IOException("Unsupported symbol table version %d in %s".formatted(map.getInt(4), file));
+      }
+      final var symbols = map.getInt(8);
+      final var symbolTable = map.getInt(12);
+      final var text = map.getInt(16);
+      if (symbols < 0 || symbolTable < HEADER_BYTES || text < symbolTable + (long) SYMBOL_SLOT * symbols
+          || text > map.limit()) {
+        throw new IOException("Corrupt symbol table header in " + file);
+      }
+      return new SymbolTable(map, symbols, symbolTable);
+    } catch (NoSuchFileException e) {
+      return null;
+    }
+  }
+
+  /// Every coordinate that defines `className`, which may use `$` for nested types.
+  List<Symbol> lookup(String className) throws IOException {
+    final var key = className.replace('$', '.').getBytes(StandardCharsets.UTF_8);
+    var low = 0;
+    var high = symbols - 1;
+    var found = -1;
+    while (low <= high) {
+      final var mid = (low + high) >>> 1;
+      final var cmp = compareName(mid, key);
+      if (cmp < 0) {
+        low = mid + 1;
+      } else if (cmp > 0) {
+        high = mid - 1;
+      } else {
+        found = mid;
+        // keep going left so we start at the first of any duplicates
+        high = mid - 1;
+      }
+    }
+    final var matches = new ArrayList<Symbol>();
+    for (var slot = found; slot >= 0 && slot < symbols && compareName(slot, key) == 0; slot++) {
+      matches.add(symbol(slot));
+    }
+    return matches;
+  }
+
+  private Symbol symbol(int slot) throws IOException {
+    final var base = symbolTable + slot * SYMBOL_SLOT;
+    return new Symbol(
+        string(map.getInt(base), map.getInt(base + 4)),
+        string(map.getInt(base + 8), map.getInt(base + 12)),
+        string(map.getInt(base + 16), map.getInt(base + 20)),
+        Integer.toUnsignedLong(map.getInt(base + 24)),
+        map.getLong(base + 28),
+        map.getInt(base + 36),
+        map.getInt(base + 40));
+  }
+
+  private int compareName(int slot, byte[] key) throws IOException {
+    final var base = symbolTable + slot * SYMBOL_SLOT;
+    final var offset = map.getInt(base);
+    final var length = map.getInt(base + 4);
+    checkText(offset, length);
+    final var common = Math.min(length, key.length);
+    for (var i = 0; i < common; i++) {
+      final var cmp = Integer.compare(map.get(offset + i) & 0xff, key[i] & 0xff);
+      if (cmp != 0) {
+        return cmp;
+      }
+    }
+    return Integer.compare(length, key.length);
+  }
+
+  private String string(int offset, int length) throws IOException {
+    checkText(offset, length);
+    final var bytes = new byte[length];
+    map.get(offset, bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private void checkText(int offset, int length) throws IOException {
+    if (offset < 0 || length < 0 || (long) offset + length > map.limit()) {
+      throw new IOException("Corrupt symbol table slot text at %d+%d".formatted(offset, length));
+    }
+  }
+
+  private static int offset(long textStart, ByteArrayOutputStream text) throws IOException {
+    final var offset = textStart + text.size();
+    if (offset > Integer.MAX_VALUE) {
+      throw new IOException("Symbol table would exceed 2GB");
+    }
+    return (int) offset;
+  }
+}
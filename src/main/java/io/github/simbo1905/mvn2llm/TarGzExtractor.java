@@ -0,0 +1,326 @@
+package io.github.simbo1905.mvn2llm;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Logger;
+import java.util.zip.GZIPInputStream;
+
+/// Extracts JavaDoc from a `.tar.gz` stream as the bytes arrive, without a temp file or any dependency.
+/// A dedicated thread inflates and splits the tar into members and hands each `.java` member over a bounded
+/// queue. The calling thread dispatches parsing of each member to the common pool so that inflation and parsing
+/// overlap, but only [#QUEUE_CAPACITY] parses at a time, so a slow parser holds back the inflater rather than
+/// letting decompressed members pile up. Results are joined in archive order.
+class TarGzExtractor {
+  private static final Logger LOGGER = Logger.getLogger(TarGzExtractor.class.getName());
+
+  /// How many decompressed members may wait in the queue, and separately how many may be parsing at once. With
+  /// both full the calling thread stops taking from the queue and the inflater thread blocks.
+  static final int QUEUE_CAPACITY = 256;
+  static final int BUFFER_SIZE = 64 * 1024;
+
+  private static final Member END = new Member("", new byte[0]);
+
+  record Member(String name, byte[] content) {
+  }
+
+  private TarGzExtractor() {
+  }
+
+  static boolean isTarGz(String urlOrPath) {
+    final var lower = urlOrPath.toLowerCase();
+    return lower.endsWith(".tar.gz") || lower.endsWith(".tgz");
+  }
+
+  static List<JavaDocInfo> extractJavaDocs(InputStream compressed) throws IOException {
+    return extractJavaDocs(compressed, ExtractionLimits.DEFAULTS.budget());
+  }
+
+  /// Members are sized by their tar header, which is exact, so an oversized member is skipped without being
+  /// buffered. The inflated stream as a whole is counted against the total and the compression ratio.
+  static List<JavaDocInfo> extractJavaDocs(InputStream compressed, ExtractionLimits.Budget budget) throws IOException {
+    final BlockingQueue<Member> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    final var failure = new AtomicReference<Throwable>();
+    final var inflater = Thread.ofPlatform().name("tar-inflater").daemon().start(() -> {
+      final var counted = new CountingInputStream(compressed);
+      try (final var tar = new TarReader(budget.guard("tar.gz stream",
+          new GZIPInputStream(new BufferedInputStream(counted, BUFFER_SIZE), BUFFER_SIZE), Long.MAX_VALUE, counted::count),
+          budget)) {
+        Member member;
+        while ((member = tar.next()) != null) {
+          queue.put(member);
+        }
+      } catch (ExtractionLimits.LimitExceededException e) {
+        LOGGER.warning("Stopped reading tar.gz stream: %s".formatted(e.getMessage()));
+      } catch (Throwable t) {
+        failure.set(t);
+      } finally {
+        putEnd(queue);
+      }
+    });
+
+    final var pending = new ArrayList<CompletableFuture<List<JavaDocInfo>>>();
+    final var parsing = new Semaphore(QUEUE_CAPACITY);
+    try {
+      Member member;
+      while ((member = queue.take()) != END) {
+        final var toParse = member;
+        parsing.acquire();
+        // the permit goes back when the parse is done, whether or not it failed
+        pending.add(CompletableFuture.supplyAsync(
+                () -> extractJavaDocFromMember(toParse, budget.limits(), budget.options()))
+            .whenComplete((_, _) -> parsing.release()));
+      }
+      inflater.join();
+    } catch (InterruptedException e) {
+      inflater.interrupt();
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while reading tar stream", e);
+    }
+    if (failure.get() != null) {
+      throw new IOException("Failed to read tar.gz stream", failure.get());
+    }
+    if (budget.skippedCount() > 0) {
+      LOGGER.warning("Skipped %d members over the extraction limits".formatted(budget.skippedCount()));
+    }
+    final var list = new ArrayList<JavaDocInfo>();
+    pending.forEach(future -> list.addAll(future.join()));
+    return list;
+  }
+
+  static List<JavaDocInfo> extractJavaDocFromMember(Member member, ExtractionLimits limits, ExtractionOptions options) {
+    try (final var reader = new BufferedReader(new InputStreamReader(
+        new ByteArrayInputStream(member.content()), StandardCharsets.UTF_8))) {
+      LOGGER.fine("Extracting JavaDoc from: %s".formatted(member.name()));
+      final var stateMachine = new LinePushStateMachine(member.name(), limits, options);
+      reader.lines().forEach(stateMachine::apply);
+      return stateMachine.results;
+    } catch (IOException e) {
+      LOGGER.warning("Failed to process file %s: %s".formatted(member.name(), e.getMessage()));
+      return List.of();
+    }
+  }
+
+  private static void putEnd(BlockingQueue<Member> queue) {
+    try {
+      queue.put(END);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /// Counts the compressed bytes read so the inflated stream can be held to a compression ratio.
+  private static final class CountingInputStream extends FilterInputStream {
+    private volatile long count;
+
+    CountingInputStream(InputStream in) {
+      super(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+      final var b = super.read();
+      if (b >= 0) {
+        count++;
+      }
+      return b;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+      final var n = super.read(buffer, offset, length);
+      if (n > 0) {
+        count += n;
+      }
+      return n;
+    }
+
+    long count() {
+      return count;
+    }
+  }
+
+  /// A minimal reader for POSIX ustar archives with the GNU long name and PAX path extensions that
+  /// GitHub and most release tooling emit. Only regular `.java` files within the entry limit are returned.
+  static class TarReader implements AutoCloseable {
+    static final int BLOCK = 512;
+
+    private final InputStream in;
+    private final ExtractionLimits.Budget budget;
+    private final byte[] header = new byte[BLOCK];
+    private String longName = null;
+    // set when a long name header was over the limit, so the member it names cannot be identified
+    private boolean skipNamed = false;
+
+    TarReader(InputStream in, ExtractionLimits.Budget budget) {
+      this.in = in;
+      this.budget = budget;
+    }
+
+    Member next() throws IOException {
+      while (true) {
+        if (!readBlock(header)) {
+          return null;
+        }
+        if (isZeroBlock(header)) {
+          // two zero blocks mark the end of the archive, one is enough for us to stop
+          return null;
+        }
+        final var size = parseSize(header, 124, 12);
+        final var type = header[156];
+        switch (type) {
+          case 'L', 'x' -> {
+            if (size > budget.limits().maxEntryBytes()) {
+              LOGGER.warning("Skipping %s and the member it names: a %d byte header is over the %d byte entry limit"
+                  .formatted(headerName(header), size, budget.limits().maxEntryBytes()));
+              budget.skipped();
+              skipData(size);
+              longName = null;
+              skipNamed = true;
+              continue;
+            }
+            final var data = readData(size);
+            final var path = type == 'L' ? trimNul(new String(data, StandardCharsets.UTF_8)) : paxPath(data);
+            if (path != null) {
+              longName = path;
+            }
+            continue;
+          }
+          case '0', '\0', '7' -> {
+            final var name = longName != null ? longName : headerName(header);
+            longName = null;
+            if (skipNamed) {
+              skipNamed = false;
+              skipData(size);
+              continue;
+            }
+            if (!name.endsWith(".java")) {
+              skipData(size);
+              continue;
+            }
+            if (size > budget.limits().maxEntryBytes()) {
+              LOGGER.warning("Skipping %s: %d bytes is over the %d byte entry limit".formatted(
+                  name, size, budget.limits().maxEntryBytes()));
+              budget.skipped();
+              skipData(size);
+              continue;
+            }
+            return new Member(name, readData(size));
+          }
+          default -> {
+            // directories, links, global pax headers and anything else carry no source
+            skipData(size);
+            longName = null;
+            skipNamed = false;
+          }
+        }
+      }
+    }
+
+    private byte[] readData(long size) throws IOException {
+      if (size > Integer.MAX_VALUE - BLOCK) {
+        throw new IOException("Tar member too large: " + size);
+      }
+      final var data = in.readNBytes((int) size);
+      if (data.length != size) {
+        throw new EOFException("Truncated tar member");
+      }
+      in.skipNBytes(padding(size));
+      return data;
+    }
+
+    private void skipData(long size) throws IOException {
+      in.skipNBytes(size + padding(size));
+    }
+
+    private boolean readBlock(byte[] block) throws IOException {
+      final var read = in.readNBytes(block, 0, BLOCK);
+      if (read == 0) {
+        return false;
+      }
+      if (read != BLOCK) {
+        throw new EOFException("Truncated tar header");
+      }
+      return true;
+    }
+
+    private static long padding(long size) {
+      return (BLOCK - (size % BLOCK)) % BLOCK;
+    }
+
+    private static boolean isZeroBlock(byte[] block) {
+      for (final var b : block) {
+        if (b != 0) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    static String headerName(byte[] header) {
+      final var name = field(header, 0, 100);
+      // ustar splits long paths into a prefix and a name
+      if (field(header, 257, 5).equals("ustar")) {
+        final var prefix = field(header, 345, 155);
+        if (!prefix.isEmpty()) {
+          return prefix + "/" + name;
+        }
+      }
+      return name;
+    }
+
+    static long parseSize(byte[] header, int offset, int length) {
+      // GNU base-256 encoding for sizes that do not fit in octal
+      if ((header[offset] & 0x80) != 0) {
+        long value = header[offset] & 0x7f;
+        for (int i = offset + 1; i < offset + length; i++) {
+          value = (value << 8) | (header[i] & 0xff);
+        }
+        return value;
+      }
+      final var octal = field(header, offset, length).trim();
+      return octal.isEmpty() ? 0 : Long.parseLong(octal, 8);
+    }
+
+    /// PAX records look like `"%d %s=%s\n"` where the leading number is the length of the whole record.
+    static String paxPath(byte[] data) {
+      final var text = new String(data, StandardCharsets.UTF_8);
+      String path = null;
+      for (final var line : text.split("\n")) {
+        final var space = line.indexOf(' ');
+        final var equals = line.indexOf('=');
+        if (space > 0 && equals > space && line.substring(space + 1, equals).equals("path")) {
+          path = line.substring(equals + 1);
+        }
+      }
+      return path;
+    }
+
+    private static String field(byte[] header, int offset, int length) {
+      return trimNul(new String(header, offset, length, StandardCharsets.UTF_8));
+    }
+
+    private static String trimNul(String value) {
+      final var nul = value.indexOf('\0');
+      return nul >= 0 ? value.substring(0, nul) : value;
+    }
+
+    @Override
+    public void close() throws IOException {
+      in.close();
+    }
+  }
+}
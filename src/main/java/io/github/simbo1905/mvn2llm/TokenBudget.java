@@ -0,0 +1,128 @@
+package io.github.simbo1905.mvn2llm;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.logging.Logger;
+
+/// Keeps the output of one extraction within an approximate number of LLM tokens.
+///
+/// Records are ranked by [#priority] and then by package depth, so a type's own doc outranks its members, public
+/// members outrank the rest, and `com/example/Api.java` outranks `com/example/internal/impl/Helper.java`. The
+/// caller offers records entry by entry, shallowest entries first. Once the type docs and public members seen so
+/// far fill the budget, the rest of the extraction is [cancelled][ExtractionLimits.Budget#cancel()]: anything
+/// later is either lower ranked or deeper. That is a heuristic rather than a guarantee, as a late type doc could
+/// have displaced a public member, but it stops the inflating and parsing that would only be thrown away.
+final class TokenBudget {
+  private static final Logger LOGGER = Logger.getLogger(TokenBudget.class.getName());
+
+  private final long maxTokens;
+  private final ExtractionLimits.Budget budget;
+  private final List<Ranked> offered = new ArrayList<>();
+  private long priorityTokens = 0;
+
+  private record Ranked(JavaDocInfo doc, int priority, int depth, int order, int tokens) {
+  }
+
+  TokenBudget(long maxTokens, ExtractionLimits.Budget budget) {
+    this.maxTokens = maxTokens;
+    this.budget = budget;
+  }
+
+  /// Takes the records of one entry. Entries should be offered shallowest first for early cancellation to pay off.
+  synchronized void offer(List<JavaDocInfo> docs) {
+    for (final var doc : docs) {
+      final var ranked = new Ranked(doc, priority(doc), depth(doc.fileName()), offered.size(), estimate(doc));
+      offered.add(ranked);
+      if (ranked.priority() < 2) {
+        priorityTokens += ranked.tokens();
+      }
+    }
+    if (priorityTokens >= maxTokens && !budget.cancelled()) {
+      LOGGER.fine("Token budget of %d met after %d records, cancelling the remaining entries".formatted(
+          maxTokens, offered.size()));
+      budget.cancel();
+    }
+  }
+
+  /// The highest ranked records that fit, in the order they were offered.
+  synchronized List<JavaDocInfo> selected() {
+    final var ranked = new ArrayList<>(offered);
+    ranked.sort(Comparator.comparingInt(Ranked::priority).thenComparingInt(Ranked::depth)
+        .thenComparingInt(Ranked::order));
+    final var keep = new boolean[offered.size()];
+    var used = 0L;
+    for (final var record : ranked) {
+      // keep filling with smaller records after one does not fit rather than leaving the tail of the budget empty
+      if (used + record.tokens() <= maxTokens) {
+        used += record.tokens();
+        keep[record.order()] = true;
+      }
+    }
+    final var selected = new ArrayList<JavaDocInfo>();
+    for (final var record : offered) {
+      if (keep[record.order()]) {
+        selected.add(record.doc());
+      }
+    }
+    LOGGER.fine("Kept %d of %d records in about %d of %d tokens".formatted(selected.size(), offered.size(), used, maxTokens));
+    return selected;
+  }
+
+  /// Ranks all of `docs` at once for the extractions that cannot be cut short.
+  static List<JavaDocInfo> select(List<JavaDocInfo> docs, ExtractionOptions options) {
+    if (options.maxTokens() == 0) {
+      return docs;
+    }
+    final var tokens = new TokenBudget(options.maxTokens(), ExtractionLimits.DEFAULTS.budget(options));
+    tokens.offer(docs);
+    return tokens.selected();
+  }
+
+  /// `0` for the doc of a type, module or package, `1` for a public member and `2` for anything else.
+  static int priority(JavaDocView doc) {
+    final var member = doc.member();
+    if (member.kind().isType() || member.kind() == Member.Kind.MODULE || member.kind() == Member.Kind.PACKAGE) {
+      return 0;
+    }
+    return member.visibility() == Member.Visibility.PUBLIC ? 1 : 2;
+  }
+
+  /// The number of directories in an entry name after any multi-release prefix.
+  static int depth(String fileName) {
+    final var base = MultiRelease.baseName(fileName);
+    var depth = 0;
+    for (var i = 0; i < base.length(); i++) {
+      if (base.charAt(i) == '/') {
+        depth++;
+      }
+    }
+    return depth;
+  }
+
+  /// The tokens of a record as printed by [JavaDocView#format].
+  static int estimate(JavaDocView doc) {
+    return estimate(doc.fileName()) + estimate(doc.documentation()) + estimate(doc.memberSignature()) + 3;
+  }
+
+  /// Counts roughly as a BPE tokenizer would on code and English: a run of letters and digits costs one token
+  /// per four characters, every other visible character costs one, and whitespace is free. It tends to count a
+  /// little high, which is the safe side for a context window.
+  static int estimate(CharSequence text) {
+    var tokens = 0;
+    var run = 0;
+    for (var i = 0; i < text.length(); i++) {
+      final var ch = text.charAt(i);
+      if (Character.isLetterOrDigit(ch)) {
+        run++;
+        continue;
+      }
+      tokens += (run + 3) / 4;
+      run = 0;
+      if (!Character.isWhitespace(ch)) {
+        tokens++;
+      }
+    }
+    return tokens + (run + 3) / 4;
+  }
+}
@@ -0,0 +1,124 @@
+package io.github.simbo1905.mvn2llm;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/// Computes the API documentation difference between two extractions of the same artifact.
+///
+/// Members are keyed by file name plus the whitespace-normalised signature from [JavaDocInfo#vacuum()]. The
+/// older side is indexed into a hash map holding a 64-bit hash of each normalised doc, then the newer side is
+/// streamed against it. Re-indenting a comment is not a change, editing its words is. Either side may be a
+/// [CompactDocStore], so the older side is remembered by position rather than by object.
+class VersionDiff {
+
+  enum Kind {
+    ADDED,
+    REMOVED,
+    CHANGED
+  }
+
+  record Key(String fileName, String signature) {
+    static Key of(JavaDocView doc) {
+      return new Key(doc.fileName(), doc.vacuum());
+    }
+  }
+
+  /// `doc` is the newer record for additions and changes and the older record for removals.
+  record Delta(Kind kind, JavaDocView doc) {
+    @Override
+    public String toString() {
+      return switch (kind) {
+        case ADDED -> "Added: " + doc;
+        case CHANGED -> "Changed: " + doc;
+        // the old text of a removed member is of no use to the reader, the signature is enough
+        case REMOVED -> "Removed: %s%n%s%n".formatted(doc.fileName(), doc.vacuum());
+      };
+    }
+  }
+
+  private record Indexed(int position, long docHash) {
+  }
+
+  private VersionDiff() {
+  }
+
+  static List<Delta> diff(List<? extends JavaDocView> older, List<? extends JavaDocView> newer) {
+    final var deltas = new ArrayList<Delta>();
+    diff(older, newer, deltas::add);
+    return deltas;
+  }
+
+  /// Emits additions and changes in the order of `newer` followed by removals in the order of `older`.
+  static void diff(List<? extends JavaDocView> older, List<? extends JavaDocView> newer, Consumer<Delta> sink) {
+    // the same signature can legitimately appear twice in one file so each key holds a queue
+    final var index = new HashMap<Key, ArrayDeque<Indexed>>(older.size() * 2);
+    for (int i = 0; i < older.size(); i++) {
+      final var doc = older.get(i);
+      index.computeIfAbsent(Key.of(doc), _ -> new ArrayDeque<>(1)).add(new Indexed(i, docHash(doc)));
+    }
+    for (final var doc : newer) {
+      final var key = Key.of(doc);
+      final var candidates = index.get(key);
+      if (candidates == null) {
+        sink.accept(new Delta(Kind.ADDED, doc));
+        continue;
+      }
+      final var previous = candidates.poll();
+      if (candidates.isEmpty()) {
+        index.remove(key);
+      }
+      if (previous.docHash() != docHash(doc)) {
+        sink.accept(new Delta(Kind.CHANGED, doc));
+      }
+    }
+    removed(older, index, sink);
+  }
+
+  private static void removed(List<? extends JavaDocView> older, Map<Key, ArrayDeque<Indexed>> leftovers,
+                              Consumer<Delta> sink) {
+    if (leftovers.isEmpty()) {
+      return;
+    }
+    // matching consumed each queue from the head so whatever is left is in older order
+    for (int i = 0; i < older.size(); i++) {
+      final var doc = older.get(i);
+      final var remaining = leftovers.get(Key.of(doc));
+      if (remaining != null && !remaining.isEmpty() && remaining.peek().position() == i) {
+        remaining.poll();
+        sink.accept(new Delta(Kind.REMOVED, doc));
+      }
+    }
+  }
+
+  /// FNV-1a over the doc text with comment decoration removed and whitespace collapsed, so that reflowing
+  /// a paragraph or re-indenting a comment hashes the same. Leading `*` and `/` on each line are decoration.
+  static long docHash(JavaDocView doc) {
+    final var text = doc.documentation();
+    long hash = 0xcbf29ce484222325L;
+    boolean lineStart = true;
+    boolean pendingSpace = false;
+    for (int i = 0; i < text.length(); i++) {
+      final var ch = text.charAt(i);
+      if (ch == '\n') {
+        lineStart = true;
+        pendingSpace = true;
+        continue;
+      }
+      if (Character.isWhitespace(ch) || (lineStart && (ch == '*' || ch == '/'))) {
+        pendingSpace = pendingSpace || Character.isWhitespace(ch);
+        continue;
+      }
+      lineStart = false;
+      if (pendingSpace) {
+        hash = (hash ^ ' ') * 0x100000001b3L;
+        pendingSpace = false;
+      }
+      hash = (hash ^ ch) * 0x100000001b3L;
+    }
+    return hash;
+  }
+}
@@ -0,0 +1,104 @@
+package io.github.simbo1905.mvn2llm;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BatchCoordinatorTests {
+
+  @TempDir
+  Path dir;
+
+  @Test
+  void shouldExtractEveryCoordinateInOrderAcrossWorkerProcesses() throws Exception {
+    var coordinates = IntStream.range(0, 5).mapToObj("com.example:lib%d:1.0"::formatted).toList();
+    try (var server = TestRepositoryServer.start(Files.createDirectories(dir.resolve("repo")))) {
+      for (var i = 0; i < coordinates.size(); i++) {
+        var jar = dir.resolve("lib%d.jar".formatted(i));
+        SyntheticArtifact.builder().entries(3).membersPerFile(2).seed(i).build().writeJar(jar);
+        server.publish(coordinates.get(i), Files.readAllBytes(jar));
+      }
+      // a coordinate that does not exist is logged by its worker and does not fail the shard
+      var requested = new ArrayList<>(coordinates);
+      requested.add(2, "com.example:missing:1.0");
+      var arguments = MainArguments.parse(new String[]{"-r", server.url(), "--no-cache", "-l", "OFF", "batch"});
+      var command = new ArrayList<>(BatchCoordinator.selfCommand());
+      command.addAll(arguments.workerArguments());
+      var out = new ByteArrayOutputStream();
+
+      new BatchCoordinator(command, 2, 2).run(requested, out);
+
+      var headers = out.toString(StandardCharsets.UTF_8).lines().filter(line -> line.startsWith("Artifact: ")).toList();
+      assertThat(headers).containsExactlyElementsOf(coordinates.stream().map("Artifact: %s"::formatted).toList());
+      assertThat(out.toString(StandardCharsets.UTF_8)).contains("synthetic/p0/Class0.java");
+    }
+  }
+
+  @Test
+  void shouldReassignTheShardOfACrashedWorker() throws Exception {
+    var out = new ByteArrayOutputStream();
+
+    new BatchCoordinator(flakyWorker(), 2, 2).run(List.of("a", "b", "crash-once", "c", "d"), out);
+
+    assertThat(out.toString(StandardCharsets.UTF_8).lines())
+        .containsExactly("done a", "done b", "done crash-once", "done c", "done d");
+    assertThat(markers()).containsExactlyInAnyOrder("a.1", "crash-once.1", "crash-once.2", "d.1");
+  }
+
+  @Test
+  void shouldWriteTheOtherShardsBeforeReportingOneThatNeverSucceeds() throws Exception {
+    var out = new ByteArrayOutputStream();
+
+    assertThatThrownBy(() -> new BatchCoordinator(flakyWorker(), 2, 1).run(List.of("a", "crash-always", "b"), out))
+        .isInstanceOf(IOException.class)
+        .hasMessageContaining("1 of 3 shards failed");
+    assertThat(out.toString(StandardCharsets.UTF_8).lines()).containsExactly("done a", "done b");
+    assertThat(markers()).filteredOn(marker -> marker.startsWith("crash-always"))
+        .hasSize(BatchCoordinator.MAX_ATTEMPTS);
+  }
+
+  @Test
+  void shouldPassExtractionOptionsToWorkers() {
+    var arguments = MainArguments.parse(new String[]{"--cache-dir", "/tmp/c", "--max-ratio", "50", "--public-only",
+        "--workers", "4", "--shard-size", "10", "batch", "g:a:1"});
+
+    assertThat(arguments.workers()).isEqualTo(4);
+    assertThat(arguments.shardSize()).isEqualTo(10);
+    assertThat(arguments.workerArguments())
+        .containsSubsequence("--cache-dir", "/tmp/c")
+        .containsSubsequence("--max-ratio", "50")
+        .contains("--public-only")
+        .endsWith("worker");
+    assertThatThrownBy(() -> MainArguments.parse(new String[]{"--workers", "0", "batch"}))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  private List<String> flakyWorker() throws IOException {
+    var command = new ArrayList<String>();
+    command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+    if (ManagementFactory.getRuntimeMXBean().getInputArguments().contains("--enable-preview")) {
+      command.add("--enable-preview");
+    }
+    command.addAll(List.of("-cp", System.getProperty("java.class.path"), FlakyWorker.class.getName(),
+        Files.createDirectories(dir.resolve("markers")).toString()));
+    return command;
+  }
+
+  private List<String> markers() throws IOException {
+    try (var files = Files.list(dir.resolve("markers"))) {
+      return files.map(file -> file.getFileName().toString()).toList();
+    }
+  }
+}
@@ -0,0 +1,163 @@
+package io.github.simbo1905.mvn2llm;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.http.HttpClient;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.IntStream;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class BufferedZipTests {
+
+  @TempDir
+  Path dir;
+
+  @Test
+  void shouldReadEveryEntryAsZipFileDoes() throws Exception {
+    var zip = mixedZip();
+
+    var buffered = BufferedZip.read(ByteBuffer.wrap(Files.readAllBytes(zip)));
+
+    try (var file = new ZipFile(zip.toFile())) {
+      assertThat(buffered.entries()).extracting(ZipEntry::getName)
+          .containsExactlyElementsOf(file.stream().map(ZipEntry::getName).toList());
+      for (var entry : buffered.entries()) {
+        var expected = file.getEntry(entry.getName());
+        assertThat(entry.getCrc()).isEqualTo(expected.getCrc());
+        assertThat(entry.getSize()).isEqualTo(expected.getSize());
+        assertThat(entry.getMethod()).isEqualTo(expected.getMethod());
+        try (var actual = buffered.getInputStream(entry); var reference = file.getInputStream(expected)) {
+          assertThat(actual.readAllBytes()).isEqualTo(reference.readAllBytes());
+        }
+      }
+    }
+  }
+
+  @Test
+  void shouldExtractFromMemoryOnEveryWorkerAsFromAFile() throws Exception {
+    var jar = dir.resolve("synthetic-sources.jar");
+    var summary = SyntheticArtifact.builder().entries(200).build().writeJar(jar);
+    var buffered = BufferedZip.read(ByteBuffer.wrap(Files.readAllBytes(jar)));
+
+    var fromMemory = new EntryScheduler("synthetic", buffered, EntryCache.disabled(),
+        ExtractionLimits.DEFAULTS.budget(), 4).extract();
+    var fromFile = new EntryScheduler(jar, ArtefactType.JAR, EntryCache.disabled(),
+        ExtractionLimits.DEFAULTS.budget(), 4).extract();
+
+    assertThat(fromMemory).hasSize((int) summary.documentedMembers()).containsExactlyElementsOf(fromFile);
+  }
+
+  @Test
+  void shouldRejectWhatIsNotAZip() {
+    assertThatThrownBy(() -> BufferedZip.read(ByteBuffer.wrap("not a zip at all, just some text".getBytes(StandardCharsets.UTF_8))))
+        .isInstanceOf(ZipException.class);
+  }
+
+  @Test
+  void shouldDownloadSmallJarsIntoMemoryAndLargeOnesToAFile() throws Exception {
+    var jar = dir.resolve("alpha.jar");
+    SyntheticArtifact.builder().entries(50).build().writeJar(jar);
+    try (var server = TestRepositoryServer.start(Files.createDirectories(dir.resolve("repo")))) {
+      server.publish("com.example:alpha:1.0", Files.readAllBytes(jar));
+      var coordinate = MavenCoordinate.parse("com.example:alpha:1.0");
+
+      var inMemory = JavaDocExtractor.extractCoordinate(HttpClient.newBuilder(), server.url(), coordinate,
+          EntryCache.disabled(), ExtractionLimits.DEFAULTS, ExtractionOptions.DEFAULTS);
+      var viaFile = JavaDocExtractor.extractCoordinate(HttpClient.newBuilder(), server.url(), coordinate,
+          EntryCache.disabled(), ExtractionLimits.DEFAULTS, ExtractionOptions.DEFAULTS.withMaxInMemoryBytes(0));
+
+      assertThat(inMemory).isNotEmpty().containsExactlyElementsOf(viaFile);
+    }
+  }
+
+  @Test
+  void shouldReadAMappedFileFromManyThreadsAtOnce() throws Exception {
+    var zip = mixedZip();
+    var expected = new LinkedHashMap<String, byte[]>();
+    try (var file = new ZipFile(zip.toFile())) {
+      for (var entry : file.stream().toList()) {
+        try (var in = file.getInputStream(entry)) {
+          expected.put(entry.getName(), in.readAllBytes());
+        }
+      }
+    }
+
+    assumeTrue(BufferedZip.canMap(), "this runtime cannot inflate from a mapped file");
+    try (var mapped = BufferedZip.map(zip)) {
+      var read = IntStream.range(0, 64).parallel()
+          .mapToObj(i -> mapped.entries().get(i % mapped.entries().size()))
+          .map(entry -> {
+            try (var in = mapped.getInputStream(entry)) {
+              return Map.entry(entry.getName(), in.readAllBytes());
+            } catch (IOException e) {
+              throw new UncheckedIOException(e);
+            }
+          })
+          .toList();
+
+      assertThat(read).hasSize(64)
+          .allSatisfy(pair -> assertThat(pair.getValue()).isEqualTo(expected.get(pair.getKey())));
+    }
+  }
+
+  @Test
+  void shouldReadZip64CentralDirectories() throws Exception {
+    // more entries than a 16-bit count holds makes ZipOutputStream write the ZIP64 end records
+    var zip = dir.resolve("many.zip");
+    try (var out = new ZipOutputStream(Files.newOutputStream(zip))) {
+      out.setLevel(0);
+      for (var i = 0; i < 0x10000 + 10; i++) {
+        out.putNextEntry(new ZipEntry("p/C%d.java".formatted(i)));
+        out.write(("class C%d {}".formatted(i)).getBytes(StandardCharsets.UTF_8));
+        out.closeEntry();
+      }
+    }
+
+    try (var zip64 = BufferedZip.read(ByteBuffer.wrap(Files.readAllBytes(zip)))) {
+      assertThat(zip64.entries()).hasSize(0x10000 + 10);
+      try (var in = zip64.getInputStream(zip64.entries().getLast())) {
+        assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo("class C65545 {}");
+      }
+    }
+  }
+
+  /// Deflated and stored entries, a directory and an archive comment, which moves the end record.
+  private Path mixedZip() throws Exception {
+    var zip = dir.resolve("mixed.zip");
+    try (var out = new ZipOutputStream(Files.newOutputStream(zip))) {
+      out.setComment("an archive comment");
+      out.putNextEntry(new ZipEntry("com/"));
+      out.closeEntry();
+      out.putNextEntry(new ZipEntry("com/example/Deflated.java"));
+      out.write("/** Deflated. */\npublic class Deflated {\n}\n".repeat(50).getBytes(StandardCharsets.UTF_8));
+      out.closeEntry();
+      var content = "/** Stored. */\npublic class Stored {\n}\n".getBytes(StandardCharsets.UTF_8);
+      var stored = new ZipEntry("com/example/Stored.java");
+      var crc = new CRC32();
+      crc.update(content);
+      stored.setMethod(ZipEntry.STORED);
+      stored.setSize(content.length);
+      stored.setCrc(crc.getValue());
+      out.putNextEntry(stored);
+      out.write(content);
+      out.closeEntry();
+    }
+    return zip;
+  }
+}
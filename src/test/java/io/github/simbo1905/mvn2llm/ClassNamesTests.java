@@ -0,0 +1,26 @@
+package io.github.simbo1905.mvn2llm;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ClassNamesTests {
+
+  @Test
+  void shouldStripASourceRootAtTheStartOrUnderOneTopLevelDirectory() {
+    assertThat(ClassNames.fromEntryName("com/example/Foo.java")).isEqualTo("com.example.Foo");
+    assertThat(ClassNames.fromEntryName("src/main/java/com/example/Foo.java")).isEqualTo("com.example.Foo");
+    assertThat(ClassNames.fromEntryName("repo-main/src/test/java/com/example/FooTest.java"))
+        .isEqualTo("com.example.FooTest");
+    assertThat(ClassNames.fromEntryName("src/com/example/Foo.java")).isEqualTo("com.example.Foo");
+    assertThat(ClassNames.fromEntryName("com/example/Foo.txt")).isNull();
+  }
+
+  @Test
+  void shouldKeepAPackageNamedSrc() {
+    assertThat(ClassNames.fromEntryName("org/foo/src/Bar.java")).isEqualTo("org.foo.src.Bar");
+    assertThat(ClassNames.fromEntryName("repo-main/src/Bar.java")).isEqualTo("repo-main.src.Bar");
+    // deeper than one top-level directory the path is a package, not a project layout
+    assertThat(ClassNames.fromEntryName("org/foo/src/main/java/Bar.java")).isEqualTo("org.foo.src.main.java.Bar");
+  }
+}
@@ -0,0 +1,48 @@
+package io.github.simbo1905.mvn2llm;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CompactDocStoreTests {
+
+  private static final List<JavaDocInfo> DOCS = List.of(
+      new JavaDocInfo("a/A.java", "/** Class A */", "public class A {"),
+      new JavaDocInfo("a/A.java", "/// Grüße, naïve café ☕", "public void greet() {"),
+      new JavaDocInfo("b/B.java", "/** Class B */", "public class B {")
+  );
+
+  @Test
+  void shouldRoundTripOnHeap() {
+    var store = CompactDocStore.of(DOCS, false);
+
+    assertThat(store).hasSize(3);
+    assertThat(store.fileCount()).isEqualTo(2);
+    assertThat(store.stream().map(CompactDocStore.View::toJavaDocInfo)).containsExactlyElementsOf(DOCS);
+    assertThat(store.get(1).toString()).isEqualTo(DOCS.get(1).toString());
+  }
+
+  @Test
+  void shouldRoundTripOffHeapAcrossArenaGrowth() {
+    var store = new CompactDocStore(true, 16);
+    DOCS.forEach(store::add);
+
+    assertThat(store.stream().map(CompactDocStore.View::toJavaDocInfo)).containsExactlyElementsOf(DOCS);
+    assertThat(store).isEqualTo(CompactDocStore.of(DOCS, false));
+  }
+
+  @Test
+  void shouldBeSmallerThanRecordsForManyMembersPerFile() {
+    var docs = new ArrayList<JavaDocInfo>();
+    for (int i = 0; i < 1_000; i++) {
+      docs.add(new JavaDocInfo("com/example/Widget.java", "/** Method %d */".formatted(i), "public void m%d() {".formatted(i)));
+    }
+
+    var store = CompactDocStore.of(docs, false);
+
+    assertThat(store.footprintBytes()).isLessThan(CompactDocStore.estimateRecordHeapBytes(docs) / 2);
+  }
+}
@@ -0,0 +1,61 @@
+package io.github.simbo1905.mvn2llm;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DirectoryWalkerTests {
+
+  @TempDir
+  Path root;
+
+  @Test
+  void shouldExtractFromNestedDirectoriesInPathOrder() throws IOException {
+    write("b/B.java", """
+        /** B class */
+        public class B {}
+        """);
+    write("a/deep/A.java", """
+        /// A class
+        public class A {}
+        """);
+    write("a/notes.txt", """
+        /** not java */
+        public class Ignored {}
+        """);
+
+    var docs = DirectoryWalker.extractJavaDocs(root);
+
+    assertThat(docs)
+        .extracting(JavaDocInfo::fileName)
+        .containsExactly("a/deep/A.java", "b/B.java");
+    assertThat(docs.getFirst().memberSignature()).isEqualTo("public class A {}");
+  }
+
+  @Test
+  void shouldMemoryMapLargeFiles() throws IOException {
+    var source = new StringBuilder();
+    var count = 0;
+    while (source.length() < DirectoryWalker.MAP_THRESHOLD * 2) {
+      source.append("/** Method %d */\npublic void m%d() {}\n".formatted(count, count));
+      count++;
+    }
+    write("Big.java", source.toString());
+
+    var docs = DirectoryWalker.extractJavaDocs(root);
+
+    assertThat(docs).hasSize(count);
+    assertThat(docs.getLast().memberSignature()).isEqualTo("public void m%d() {}".formatted(count - 1));
+  }
+
+  private void write(String relative, String content) throws IOException {
+    final var file = root.resolve(relative);
+    Files.createDirectories(file.getParent());
+    Files.writeString(file, content);
+  }
+}
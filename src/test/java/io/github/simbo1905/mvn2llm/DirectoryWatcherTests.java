@@ -0,0 +1,106 @@
+package io.github.simbo1905.mvn2llm;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+/// Drives [DirectoryWatcher#refresh] directly with the paths an event would name, so nothing waits on the
+/// timing of the platform's watch service.
+class DirectoryWatcherTests {
+
+  @TempDir
+  Path root;
+
+  @Test
+  void shouldReportOnlyFilesWhoseContentChanged() throws IOException {
+    var a = write("a/A.java", "/** A */\npublic class A {}\n");
+    var b = write("b/B.java", "/** B */\npublic class B {}\n");
+
+    try (var watcher = new DirectoryWatcher(root)) {
+      assertThat(watcher.initialScan()).extracting(JavaDocView::fileName).containsExactly("a/A.java", "b/B.java");
+
+      write("a/A.java", "/** A */\npublic class A {}\n");
+      write("b/B.java", "/** B, edited */\npublic class B {}\n");
+      var changes = watcher.refresh(List.of(a, b));
+
+      assertThat(changes).extracting(DirectoryWatcher.Change::fileName).containsExactly("b/B.java");
+      assertThat(changes.getFirst().docs()).extracting(JavaDocView::documentation).containsExactly("/** B, edited */");
+    }
+  }
+
+  @Test
+  void shouldReportNewAndRemovedFiles() throws IOException {
+    var a = write("a/A.java", "/** A */\npublic class A {}\n");
+
+    try (var watcher = new DirectoryWatcher(root)) {
+      watcher.initialScan();
+      Files.delete(a);
+      var c = write("c/C.java", "/** C */\npublic class C {}\n");
+      var changes = watcher.refresh(List.of(c, a));
+
+      assertThat(changes).extracting(DirectoryWatcher.Change::fileName, DirectoryWatcher.Change::removed)
+          .containsExactly(tuple("a/A.java", true), tuple("c/C.java", false));
+      assertThat(watcher.refresh(List.of(a))).isEmpty();
+    }
+  }
+
+  @Test
+  void shouldApplyTheLimitsAndOptions() throws IOException {
+    write("a/Api.java", "/** Api */\npublic class Api {\n/** Hidden */\nprivate void hidden() {\n");
+    var big = write("a/Big.java", "/** Big */\npublic class Big {}\n" + " ".repeat(2000));
+    var limits = ExtractionLimits.DEFAULTS.withFlag("--max-entry-size", "1k");
+    var options = ExtractionOptions.DEFAULTS.withPublicOnly(true);
+
+    try (var watcher = new DirectoryWatcher(root, limits, options)) {
+      assertThat(watcher.initialScan()).extracting(JavaDocView::documentation).containsExactly("/** Api */");
+
+      write("a/Big.java", "/** Big */\npublic class Big {}\n");
+      assertThat(watcher.refresh(List.of(big))).extracting(DirectoryWatcher.Change::fileName)
+          .containsExactly("a/Big.java");
+    }
+  }
+
+  @Test
+  void shouldReportAFileThatGrowsOverTheLimitAsRemoved() throws IOException {
+    var big = write("a/Big.java", "/** Big */\npublic class Big {}\n");
+    var limits = ExtractionLimits.DEFAULTS.withFlag("--max-entry-size", "1k");
+
+    try (var watcher = new DirectoryWatcher(root, limits, ExtractionOptions.DEFAULTS)) {
+      assertThat(watcher.initialScan()).hasSize(1);
+
+      write("a/Big.java", "/** Big */\npublic class Big {}\n" + " ".repeat(2000));
+      assertThat(watcher.refresh(List.of(big)))
+          .extracting(DirectoryWatcher.Change::fileName, DirectoryWatcher.Change::removed)
+          .containsExactly(tuple("a/Big.java", true));
+      assertThat(watcher.refresh(List.of(big))).isEmpty();
+    }
+  }
+
+  @Test
+  void shouldCollapseOverloadsAndRejectATokenBudget() throws IOException {
+    write("a/Ints.java", "/** Max. */\npublic static int max(int a) {\n/** Max. */\npublic static int max(long a) {\n");
+
+    var options = ExtractionOptions.DEFAULTS.withCollapse(true);
+
+    try (var watcher = new DirectoryWatcher(root, ExtractionLimits.DEFAULTS, options)) {
+      assertThat(watcher.initialScan()).singleElement().satisfies(doc -> assertThat(doc.memberSignature())
+          .isEqualTo("public static int max(int a) {\npublic static int max(long a) {"));
+    }
+    assertThatThrownBy(() -> MainArguments.parse(new String[]{"-d", root.toString(), "--watch", "--max-tokens", "100"}))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  private Path write(String name, String content) throws IOException {
+    var file = root.resolve(name);
+    Files.createDirectories(file.getParent());
+    return Files.writeString(file, content);
+  }
+}
@@ -0,0 +1,89 @@
+package io.github.simbo1905.mvn2llm;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DocIndexTests {
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void shouldRankAcrossSegments() throws IOException {
+    DocIndex.addSegment(directory, "g:reactor:1", List.of(
+        new JavaDocInfo("Flux.java", "/** Drops items when the subscriber is slow. */", "public Flux<T> onBackpressureDrop() {"),
+        new JavaDocInfo("Flux.java", "/** Maps each item. */", "public <R> Flux<R> map(Function<T, R> mapper) {")
+    ));
+    DocIndex.addSegment(directory, "g:other:2", List.of(
+        new JavaDocInfo("Queue.java", "/** A bounded queue. */", "public class Queue {"),
+        new JavaDocInfo("Buffer.java", "/** Applies backpressure by blocking. Backpressure is explicit. */", "public class Buffer {")
+    ));
+
+    var hits = DocIndex.query(directory, "which methods mention backpressure", 10);
+
+    assertThat(hits).extracting(hit -> hit.doc().fileName()).containsExactlyInAnyOrder("Flux.java", "Buffer.java");
+    assertThat(hits.getFirst().source()).isEqualTo("g:other:2");
+    assertThat(hits.getFirst().doc().memberSignature()).isEqualTo("public class Buffer {");
+  }
+
+  @Test
+  void shouldLimitToTopKAndSplitCamelCase() throws IOException {
+    DocIndex.addSegment(directory, "src", List.of(
+        new JavaDocInfo("A.java", "/** one */", "void readTimeout() {"),
+        new JavaDocInfo("B.java", "/** two */", "void writeTimeout() {"),
+        new JavaDocInfo("C.java", "/** timeout timeout */", "void other() {")
+    ));
+
+    assertThat(DocIndex.query(directory, "timeout", 2)).hasSize(2);
+    assertThat(DocIndex.query(directory, "read", 5)).singleElement()
+        .satisfies(hit -> assertThat(hit.doc().fileName()).isEqualTo("A.java"));
+    assertThat(DocIndex.query(directory, "absent", 5)).isEmpty();
+  }
+
+  @Test
+  void shouldReplaceTheSegmentOfASourceIndexedAgain() throws IOException {
+    DocIndex.addSegment(directory, "g:a:1", List.of(new JavaDocInfo("A.java", "/** Old timeout. */", "void old() {")));
+    DocIndex.addSegment(directory, "g:b:1", List.of(new JavaDocInfo("B.java", "/** Other timeout. */", "void b() {")));
+    var latest = DocIndex.addSegment(directory, "g:a:1",
+        List.of(new JavaDocInfo("A.java", "/** New timeout. */", "void replaced() {")));
+
+    var hits = DocIndex.query(directory, "timeout", 10);
+
+    assertThat(hits).extracting(DocIndex.Hit::source).containsExactlyInAnyOrder("g:a:1", "g:b:1");
+    assertThat(hits).extracting(hit -> hit.doc().memberSignature()).containsExactlyInAnyOrder("void replaced() {", "void b() {");
+    try (var files = Files.list(directory)) {
+      assertThat(files.filter(file -> file.toString().endsWith(DocIndex.SUFFIX)).toList()).hasSize(2).contains(latest);
+    }
+    assertThat(DocIndex.Segment.open(latest).source()).isEqualTo("g:a:1");
+  }
+
+  @Test
+  void shouldSkipSegmentsWithACorruptHeader() throws IOException {
+    DocIndex.addSegment(directory, "g:good:1", List.of(new JavaDocInfo("A.java", "/** Good timeout. */", "void a() {")));
+    var counted = DocIndex.addSegment(directory, "g:count:1",
+        List.of(new JavaDocInfo("B.java", "/** Bad timeout. */", "void b() {")));
+    var truncated = DocIndex.addSegment(directory, "g:truncated:1",
+        List.of(new JavaDocInfo("C.java", "/** Cut timeout. */", "void c() {")));
+
+    var bytes = Files.readAllBytes(counted);
+    // the record count, which places every later section
+    ByteBuffer.wrap(bytes).putInt(8, Integer.MAX_VALUE);
+    Files.write(counted, bytes);
+    bytes = Files.readAllBytes(truncated);
+    Files.write(truncated, Arrays.copyOf(bytes, bytes.length / 2));
+
+    assertThatThrownBy(() -> DocIndex.Segment.open(counted)).isInstanceOf(IOException.class);
+    assertThatThrownBy(() -> DocIndex.Segment.open(truncated)).isInstanceOf(IOException.class);
+    assertThat(DocIndex.query(directory, "timeout", 10)).extracting(DocIndex.Hit::source).containsExactly("g:good:1");
+  }
+}
@@ -0,0 +1,43 @@
+package io.github.simbo1905.mvn2llm;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DocPackTests {
+
+  @TempDir
+  Path directory;
+
+  private static final List<JavaDocInfo> FIRST = List.of(
+      new JavaDocInfo("com/example/Zed.java", "/** Zed */", "public class Zed {"),
+      new JavaDocInfo("com/example/Alpha.java", "/** Alpha */", "public class Alpha {"),
+      new JavaDocInfo("com/example/Alpha.java", "/** Run it */", "public void run() {")
+  );
+  private static final List<JavaDocInfo> SECOND = List.of(
+      new JavaDocInfo("repo-main/src/main/java/org/other/Beta.java", "/// Beta", "public class Beta {"),
+      new JavaDocInfo("com/example/Alpha.java", "/** Alpha two */", "public class Alpha {")
+  );
+
+  @Test
+  void shouldLookUpOneClassAcrossCoordinates() throws IOException {
+    var file = directory.resolve("docs.pack");
+    DocPack.write(file, List.of(new DocPack.Section("g:a:1", FIRST), new DocPack.Section("g:b:2", SECOND)));
+
+    var pack = DocPack.open(file);
+
+    assertThat(pack.classNames()).containsExactly("com.example.Alpha", "com.example.Alpha", "com.example.Zed", "org.other.Beta");
+    assertThat(pack.lookup("com.example.Alpha"))
+        .extracting(JavaDocInfo::documentation)
+        .containsExactly("/** Alpha */", "/** Run it */", "/** Alpha two */");
+    assertThat(pack.lookup("org.other.Beta")).singleElement()
+        .satisfies(doc -> assertThat(doc.fileName()).isEqualTo("repo-main/src/main/java/org/other/Beta.java"));
+    assertThat(pack.lookup("com.example.Missing")).isEmpty();
+    assertThat(pack.all()).hasSize(FIRST.size() + SECOND.size());
+  }
+}
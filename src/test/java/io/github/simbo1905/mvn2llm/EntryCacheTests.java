@@ -0,0 +1,141 @@
+package io.github.simbo1905.mvn2llm;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+import java.util.zip.ZipEntry;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EntryCacheTests {
+
+  @TempDir
+  Path dir;
+
+  @Test
+  void shouldReturnWhatWasPut() throws Exception {
+    var cache = EntryCache.open(dir);
+    var entry = entry("com/example/Foo.java", 0x1234_5678L, 100);
+    var docs = docs("com/example/Foo.java");
+
+    cache.put(entry, docs, 20, 30);
+
+    assertThat(cache.get(entry)).hasValue(docs);
+    assertThat(EntryCache.open(dir).get(entry)).hasValue(docs);
+    assertThat(cache.hits()).isEqualTo(1);
+  }
+
+  @Test
+  void shouldMissWhenTheCrcSizeOrNameDiffer() throws Exception {
+    var cache = EntryCache.open(dir);
+    cache.put(entry("a/Aa.java", 42, 100), docs("a/Aa.java"), 20, 30);
+
+    assertThat(cache.get(entry("a/Aa.java", 43, 100))).isEmpty();
+    assertThat(cache.get(entry("a/Aa.java", 42, 101))).isEmpty();
+    assertThat(cache.get(entry("a/Other.java", 42, 100))).isEmpty();
+    // "Aa" and "BB" share a hash code, so both names map to the same file and only the stored name tells them apart
+    assertThat("a/BB.java".hashCode()).isEqualTo("a/Aa.java".hashCode());
+    assertThat(cache.pathFor(entry("a/BB.java", 42, 100))).isEqualTo(cache.pathFor(entry("a/Aa.java", 42, 100)));
+    assertThat(cache.get(entry("a/BB.java", 42, 100))).isEmpty();
+    assertThat(cache.misses()).isEqualTo(4);
+  }
+
+  @Test
+  void shouldKeepPublicOnlyResultsApart() throws Exception {
+    var full = EntryCache.open(dir, false);
+    var publicOnly = EntryCache.open(dir, true);
+    var entry = entry("com/example/Foo.java", 7, 100);
+    full.put(entry, docs("com/example/Foo.java"), 20, 30);
+
+    assertThat(publicOnly.directory()).isNotEqualTo(full.directory());
+    assertThat(publicOnly.get(entry)).isEmpty();
+    assertThat(full.get(entry)).isPresent();
+  }
+
+  @Test
+  void shouldTreatACorruptOrTruncatedFileAsAMiss() throws Exception {
+    var cache = EntryCache.open(dir);
+    var corrupt = entry("com/example/Corrupt.java", 1, 100);
+    var truncated = entry("com/example/Truncated.java", 2, 100);
+    cache.put(corrupt, docs("com/example/Corrupt.java"), 20, 30);
+    cache.put(truncated, docs("com/example/Truncated.java"), 20, 30);
+
+    Files.write(cache.pathFor(corrupt), new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+    var bytes = Files.readAllBytes(cache.pathFor(truncated));
+    Files.write(cache.pathFor(truncated), Arrays.copyOf(bytes, bytes.length - 5));
+
+    assertThat(cache.get(corrupt)).isEmpty();
+    assertThat(cache.get(truncated)).isEmpty();
+    assertThat(cache.misses()).isEqualTo(2);
+    assertThat(cache.pathFor(corrupt)).doesNotExist();
+    assertThat(cache.pathFor(truncated)).doesNotExist();
+  }
+
+  @Test
+  void shouldNotTrustTheLengthsOnDisk() throws Exception {
+    var cache = EntryCache.open(dir);
+    var hugeCount = entry("com/example/Count.java", 4, 100);
+    var hugeString = entry("com/example/String.java", 5, 100);
+    cache.put(hugeCount, docs("com/example/Count.java"), 20, 30);
+    cache.put(hugeString, docs("com/example/String.java"), 20, 30);
+
+    // the record count follows the magic, the name and the two longest lengths, then the first string length
+    var countAt = Integer.BYTES + 2 + "com/example/Count.java".length() + 2 * Integer.BYTES;
+    var bytes = Files.readAllBytes(cache.pathFor(hugeCount));
+    ByteBuffer.wrap(bytes).putInt(countAt, Integer.MAX_VALUE);
+    Files.write(cache.pathFor(hugeCount), bytes);
+    var stringAt = Integer.BYTES + 2 + "com/example/String.java".length() + 3 * Integer.BYTES;
+    bytes = Files.readAllBytes(cache.pathFor(hugeString));
+    ByteBuffer.wrap(bytes).putInt(stringAt, -1);
+    Files.write(cache.pathFor(hugeString), bytes);
+
+    assertThat(cache.get(hugeCount)).isEmpty();
+    assertThat(cache.get(hugeString)).isEmpty();
+    assertThat(cache.pathFor(hugeCount)).doesNotExist();
+    assertThat(cache.pathFor(hugeString)).doesNotExist();
+  }
+
+  @Test
+  void shouldLeaveOneWholeFileWhenWritersRace() throws Exception {
+    var cache = EntryCache.open(dir);
+    var entry = entry("com/example/Raced.java", 3, 100);
+    var docs = docs("com/example/Raced.java");
+
+    try (var executor = Executors.newFixedThreadPool(8)) {
+      var writers = IntStream.range(0, 32).<Callable<Object>>mapToObj(i -> () -> {
+        cache.put(entry, docs, 20, 30);
+        return cache.get(entry).orElseThrow();
+      }).toList();
+      for (var future : executor.invokeAll(writers)) {
+        // a reader never sees a half written file, as each writer renames its own temp file into place
+        assertThat(future.get()).isEqualTo(docs);
+      }
+    }
+
+    assertThat(cache.get(entry)).hasValue(docs);
+    try (var files = Files.list(cache.pathFor(entry).getParent())) {
+      assertThat(files.toList()).containsExactly(cache.pathFor(entry));
+    }
+  }
+
+  private static ZipEntry entry(String name, long crc, long size) {
+    var entry = new ZipEntry(name);
+    entry.setCrc(crc);
+    entry.setSize(size);
+    return entry;
+  }
+
+  private static List<JavaDocInfo> docs(String fileName) {
+    return List.of(
+        new JavaDocInfo(fileName, "/** The type. */", "public class Foo {"),
+        new JavaDocInfo(fileName, "/** A method. */", "public void run() {"));
+  }
+}
@@ -0,0 +1,99 @@
+package io.github.simbo1905.mvn2llm;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EntrySchedulerTests {
+
+  @TempDir
+  Path dir;
+
+  @Test
+  void shouldKeepEntryOrderWhenParsingInParallel() throws Exception {
+    var zip = skewedZip(dir.resolve("skewed.zip"));
+
+    var sequential = new EntryScheduler(zip, ArtefactType.ZIP, EntryCache.disabled(), ExtractionLimits.DEFAULTS.budget(), 1)
+        .extract();
+    var parallel = new EntryScheduler(zip, ArtefactType.ZIP, EntryCache.disabled(), ExtractionLimits.DEFAULTS.budget(), 4)
+        .extract();
+
+    assertThat(parallel).hasSize(sequential.size()).containsExactlyElementsOf(sequential);
+    assertThat(parallel.getFirst().fileName()).isEqualTo("p/package-info0.java");
+  }
+
+  @Test
+  void shouldParseAJarWithAHandlePerWorker() throws Exception {
+    var jar = dir.resolve("synthetic-sources.jar");
+    var summary = SyntheticArtifact.builder().entries(200).build().writeJar(jar);
+
+    var docs = new EntryScheduler(jar, ArtefactType.JAR, EntryCache.disabled(), ExtractionLimits.DEFAULTS.budget(), 4)
+        .extract();
+
+    assertThat(docs).hasSize((int) summary.documentedMembers());
+  }
+
+  @Test
+  void shouldReleaseResultsOnlyOnceTheGapBeforeThemCloses() {
+    var released = new ArrayList<String>();
+    var buffer = new EntryScheduler.ReorderBuffer(3, docs -> docs.forEach(doc -> released.add(doc.fileName())));
+
+    buffer.complete(2, List.of(doc("C")));
+    buffer.complete(1, List.of(doc("B")));
+    assertThat(released).isEmpty();
+    assertThat(buffer.pending()).isEqualTo(2);
+
+    buffer.complete(0, List.of(doc("A")));
+    assertThat(released).containsExactly("A", "B", "C");
+    assertThat(buffer.pending()).isZero();
+  }
+
+  @Test
+  void shouldStopAllWorkersAtTheTotalLimit() throws Exception {
+    var zip = skewedZip(dir.resolve("limited.zip"));
+    var budget = ExtractionLimits.DEFAULTS.withFlag("--max-total-size", "64k").budget();
+
+    var docs = new EntryScheduler(zip, ArtefactType.ZIP, EntryCache.disabled(), budget, 4).extract();
+
+    var all = new EntryScheduler(zip, ArtefactType.ZIP, EntryCache.disabled(), ExtractionLimits.DEFAULTS.budget(), 4)
+        .extract();
+    assertThat(docs.size()).isLessThan(all.size());
+  }
+
+  /// A few large classes among many tiny `package-info.java` files, the shape that leaves stragglers.
+  private static Path skewedZip(Path file) throws IOException {
+    try (var out = new ZipOutputStream(Files.newOutputStream(file))) {
+      for (int i = 0; i < 100; i++) {
+        put(out, "p/package-info%d.java".formatted(i), "/** Package %d */\npackage p;\n".formatted(i));
+        if (i % 25 == 0) {
+          var big = new StringBuilder("/** Big %d */\npublic class Big%d {\n".formatted(i, i));
+          for (int m = 0; m < 2_000; m++) {
+            big.append("  /** Method %d */\n  public void m%d() {\n  }\n".formatted(m, m));
+          }
+          put(out, "p/Big%d.java".formatted(i), big.append("}\n").toString());
+        }
+      }
+    }
+    return file;
+  }
+
+  private static void put(ZipOutputStream out, String name, String content) throws IOException {
+    out.putNextEntry(new ZipEntry(name));
+    out.write(content.getBytes(StandardCharsets.UTF_8));
+    out.closeEntry();
+  }
+
+  private static JavaDocInfo doc(String fileName) {
+    return new JavaDocInfo(fileName, "/** %s */".formatted(fileName), "class %s {".formatted(fileName));
+  }
+}
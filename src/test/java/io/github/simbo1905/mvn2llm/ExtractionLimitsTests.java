@@ -0,0 +1,122 @@
+package io.github.simbo1905.mvn2llm;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ExtractionLimitsTests {
+
+  @TempDir
+  Path dir;
+
+  @Test
+  void shouldSkipZipBombEntryAndKeepTheRest() throws Exception {
+    var zip = dir.resolve("bomb.zip");
+    try (var out = new ZipOutputStream(Files.newOutputStream(zip))) {
+      put(out, "a/Bomb.java", "/** Bomb */\nclass Bomb {}\n" + " ".repeat(8 << 20));
+      put(out, "a/Fine.java", "/** Fine */\nclass Fine {}\n");
+    }
+
+    var docs = JavaDocExtractor.extractJavaDocs(zip, ArtefactType.ZIP, EntryCache.disabled(), ExtractionLimits.DEFAULTS,
+        ExtractionOptions.DEFAULTS);
+
+    assertThat(docs).extracting(JavaDocInfo::fileName).containsExactly("a/Fine.java");
+  }
+
+  @Test
+  void shouldStopOnceTheTotalLimitIsReached() throws Exception {
+    var zip = dir.resolve("many.zip");
+    try (var out = new ZipOutputStream(Files.newOutputStream(zip))) {
+      for (int i = 0; i < 10; i++) {
+        put(out, "a/C%d.java".formatted(i), "/** C%d */\nclass C%d {}\n%s".formatted(i, i, "x".repeat(1000)));
+      }
+    }
+    var limits = ExtractionLimits.DEFAULTS.withFlag("--max-total-size", "3k");
+
+    var docs = JavaDocExtractor.extractJavaDocs(zip, ArtefactType.ZIP, EntryCache.disabled(), limits,
+        ExtractionOptions.DEFAULTS);
+
+    assertThat(docs).hasSizeBetween(1, 3);
+    assertThat(docs.getFirst().fileName()).isEqualTo("a/C0.java");
+  }
+
+  @Test
+  void shouldEnforceTheEntryLimitWhileStreaming() {
+    var budget = ExtractionLimits.DEFAULTS.withFlag("--max-entry-size", "100").budget();
+    // the declared size says nothing is wrong, only counting the inflated bytes catches it
+    var in = budget.guard("Liar.java", new ByteArrayInputStream(new byte[101]), 10);
+
+    assertThatThrownBy(in::readAllBytes)
+        .isInstanceOf(ExtractionLimits.LimitExceededException.class)
+        .hasMessageContaining("Liar.java");
+  }
+
+  @Test
+  void shouldTruncateLongDocsAndDropLongSignatures() {
+    var limits = new ExtractionLimits(1L << 20, 1L << 30, 200, 64, 40);
+    var stateMachine = new LinePushStateMachine("Big.java", limits);
+
+    "/**\n * %s\n */\npublic void kept() {\n/** short */\npublic void dropped(%s) {\n/** next */\nclass Next {\n"
+        .formatted("word ".repeat(100), "int a, ".repeat(20))
+        .lines()
+        .forEach(stateMachine::apply);
+
+    assertThat(stateMachine.results).extracting(JavaDocInfo::memberSignature)
+        .containsExactly("public void kept() {", "class Next {");
+    assertThat(stateMachine.results.getFirst().documentation()).startsWith("/**").endsWith("[truncated]");
+    assertThat(stateMachine.limited).isTrue();
+  }
+
+  @Test
+  void shouldApplyTheLimitsToCachedEntries() throws Exception {
+    var zip = dir.resolve("cached.zip");
+    try (var out = new ZipOutputStream(Files.newOutputStream(zip))) {
+      put(out, "a/Long.java", "/**\n * %s\n */\npublic class Long {\n".formatted("word ".repeat(100)));
+      put(out, "a/Wide.java", "/** Wide */\npublic void wide(%s) {\n".formatted("int a, ".repeat(20)));
+      put(out, "a/Big.java", "/** Big */\nclass Big {}\n" + " ".repeat(2000));
+    }
+    var cache = EntryCache.open(dir.resolve("cache"));
+    var unlimited = JavaDocExtractor.extractJavaDocs(zip, ArtefactType.ZIP, cache, ExtractionLimits.DEFAULTS,
+        ExtractionOptions.DEFAULTS);
+    assertThat(unlimited).hasSize(3);
+
+    var limits = new ExtractionLimits(1000, 1L << 30, 200, 64, 40);
+    var limited = JavaDocExtractor.extractJavaDocs(zip, ArtefactType.ZIP, cache, limits, ExtractionOptions.DEFAULTS);
+
+    assertThat(limited).extracting(JavaDocInfo::fileName).containsExactly("a/Long.java");
+    assertThat(limited.getFirst().documentation()).endsWith("[truncated]");
+    // the cached results were not overwritten by the cut down ones
+    assertThat(JavaDocExtractor.extractJavaDocs(zip, ArtefactType.ZIP, cache, ExtractionLimits.DEFAULTS,
+        ExtractionOptions.DEFAULTS)).containsExactlyElementsOf(unlimited);
+    assertThat(cache.hits()).isEqualTo(3);
+  }
+
+  @Test
+  void shouldParseLimitFlags() {
+    var arguments = MainArguments.parse(new String[]{
+        "--max-entry-size", "2m", "--max-ratio", "50", "--max-doc-length", "1000", "-z", "https://example.com/a.zip"});
+
+    assertThat(arguments.limits().maxEntryBytes()).isEqualTo(2L << 20);
+    assertThat(arguments.limits().maxCompressionRatio()).isEqualTo(50);
+    assertThat(arguments.limits().maxDocChars()).isEqualTo(1000);
+    assertThat(arguments.limits().maxTotalBytes()).isEqualTo(ExtractionLimits.DEFAULTS.maxTotalBytes());
+    assertThatThrownBy(() -> MainArguments.parse(new String[]{"--max-ratio", "lots", "g:a:1"}))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  private static void put(ZipOutputStream out, String name, String content) throws IOException {
+    out.putNextEntry(new ZipEntry(name));
+    out.write(content.getBytes(StandardCharsets.UTF_8));
+    out.closeEntry();
+  }
+}
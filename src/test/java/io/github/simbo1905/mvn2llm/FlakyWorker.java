@@ -0,0 +1,28 @@
+package io.github.simbo1905.mvn2llm;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/// A stand-in batch worker for [BatchCoordinatorTests]. It echoes its shard, but a shard holding `crash-once`
+/// exits abnormally the first time it is seen, and a shard holding `crash-always` exits abnormally every time.
+/// The first argument is a directory where it leaves one marker file per attempt.
+public class FlakyWorker {
+
+  public static void main(String[] args) throws Exception {
+    var markers = Path.of(args[0]);
+    var lines = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8)).lines().toList();
+    var shard = lines.getFirst();
+    var attempt = 1;
+    while (Files.exists(markers.resolve("%s.%d".formatted(shard, attempt)))) {
+      attempt++;
+    }
+    Files.createFile(markers.resolve("%s.%d".formatted(shard, attempt)));
+    if (lines.contains("crash-always") || (lines.contains("crash-once") && attempt == 1)) {
+      System.exit(3);
+    }
+    lines.forEach(line -> System.out.println("done " + line));
+  }
+}
@@ -0,0 +1,132 @@
+package io.github.simbo1905.mvn2llm;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MavenReactorTests {
+
+  @TempDir
+  Path root;
+
+  @TempDir
+  Path state;
+
+  @BeforeEach
+  void writeReactor() throws IOException {
+    pom(root, "parent", "<modules><module>core</module><module>services</module><module>docs</module></modules>"
+        + "<profiles><profile><modules><module>extra</module></modules></profile></profiles>");
+    pom(root.resolve("core"), "core", "<parent><artifactId>parent</artifactId></parent>");
+    source(root.resolve("core/src/main/java"), "org/example/core/Core.java", "Core");
+    pom(root.resolve("services"), "services", "<modules><module>api</module><module>impl</module></modules>");
+    pom(root.resolve("services/api"), "api", "");
+    source(root.resolve("services/api/src/main/java"), "org/example/api/Api.java", "Api");
+    pom(root.resolve("services/impl"), "impl", "<build><sourceDirectory>${project.basedir}/src</sourceDirectory></build>");
+    source(root.resolve("services/impl/src"), "org/example/impl/Impl.java", "Impl");
+    // an aggregator or resources-only module has no sources and is left out
+    pom(root.resolve("docs"), "docs", "");
+    pom(root.resolve("extra"), "extra", "");
+    source(root.resolve("extra/src/main/java"), "Extra.java", "Extra");
+  }
+
+  @Test
+  void shouldFollowModulesInReactorOrder() throws IOException {
+    var reactor = MavenReactor.open(root, null);
+
+    assertThat(reactor.modules()).extracting(MavenReactor.Module::name).containsExactly("core", "api", "impl");
+    assertThat(reactor.modules()).extracting(MavenReactor.Module::path)
+        .containsExactly("core", "services/api", "services/impl");
+  }
+
+  @Test
+  void shouldGroupDocsPerModule() throws Exception {
+    var grouped = extract(MavenReactor.open(root, null));
+
+    assertThat(grouped).containsOnlyKeys("core", "api", "impl");
+    assertThat(grouped.get("impl")).singleElement()
+        .satisfies(doc -> assertThat(doc.fileName()).isEqualTo("org/example/impl/Impl.java"));
+  }
+
+  @Test
+  void shouldSkipModulesWhoseSourcesAreUnchanged() throws Exception {
+    assertThat(extract(MavenReactor.open(root, state))).containsOnlyKeys("core", "api", "impl");
+    assertThat(extract(MavenReactor.open(root, state))).isEmpty();
+
+    source(root.resolve("services/api/src/main/java"), "org/example/api/Added.java", "Added");
+
+    var changed = extract(MavenReactor.open(root, state));
+    assertThat(changed).containsOnlyKeys("api");
+    assertThat(changed.get("api")).extracting(JavaDocInfo::fileName)
+        .containsExactly("org/example/api/Added.java", "org/example/api/Api.java");
+    // without remembered state every module is extracted every time
+    assertThat(extract(MavenReactor.open(root, null))).hasSize(3);
+  }
+
+  @Test
+  void shouldExtractEveryModuleAgainWhenTheOutputOptionsChange() throws Exception {
+    assertThat(extract(MavenReactor.open(root, state))).hasSize(3);
+
+    assertThat(extract(MavenReactor.open(root, state), ExtractionLimits.DEFAULTS,
+        ExtractionOptions.DEFAULTS.withCollapse(true))).hasSize(3);
+    assertThat(extract(MavenReactor.open(root, state), ExtractionLimits.DEFAULTS.withFlag("--max-doc-length", "10"),
+        ExtractionOptions.DEFAULTS.withCollapse(true))).hasSize(3);
+    assertThat(extract(MavenReactor.open(root, state), ExtractionLimits.DEFAULTS.withFlag("--max-doc-length", "10"),
+        ExtractionOptions.DEFAULTS.withCollapse(true))).isEmpty();
+  }
+
+  @Test
+  void shouldRejectADirectoryWithoutAPom() {
+    assertThatThrownBy(() -> MavenReactor.open(root.resolve("core/src"), null))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void shouldParseTheReactorFlag() {
+    var arguments = MainArguments.parse(new String[]{"--reactor", "."});
+
+    assertThat(arguments.artefactType()).isEqualTo(ArtefactType.REACTOR);
+    assertThat(arguments.sourceDirectory()).isEqualTo(".");
+    assertThatThrownBy(() -> MainArguments.parse(new String[]{"--reactor", ".", "--watch"}))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  private static Map<String, List<JavaDocInfo>> extract(MavenReactor reactor) throws Exception {
+    return extract(reactor, ExtractionLimits.DEFAULTS, ExtractionOptions.DEFAULTS);
+  }
+
+  private static Map<String, List<JavaDocInfo>> extract(MavenReactor reactor, ExtractionLimits limits,
+                                                        ExtractionOptions options) throws Exception {
+    var grouped = new LinkedHashMap<String, List<JavaDocInfo>>();
+    reactor.extract(limits, options, (module, docs) -> grouped.put(module.name(), new ArrayList<>(docs)));
+    return grouped;
+  }
+
+  private static void pom(Path directory, String artifactId, String body) throws IOException {
+    Files.createDirectories(directory);
+    Files.writeString(directory.resolve("pom.xml"), """
+        <?xml version="1.0" encoding="UTF-8"?>
+        <project>
+          <groupId>org.example</groupId>
+          <artifactId>%s</artifactId>
+          %s
+        </project>
+        """.formatted(artifactId, body));
+  }
+
+  private static void source(Path sourceRoot, String file, String className) throws IOException {
+    var path = sourceRoot.resolve(file);
+    Files.createDirectories(path.getParent());
+    Files.writeString(path, "/** The %s class. */\npublic class %s {\n}\n".formatted(className, className));
+  }
+}
@@ -0,0 +1,89 @@
+package io.github.simbo1905.mvn2llm;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MemberTests {
+  private static final ExtractionOptions PUBLIC_ONLY = ExtractionOptions.DEFAULTS.withPublicOnly(true);
+
+  @Test
+  void shouldClassifyTypes() {
+    assertThat(Member.classify("public final class Foo<T extends Comparable<T>> extends Bar implements Baz {"))
+        .isEqualTo(new Member(Member.Kind.CLASS, Member.Visibility.PUBLIC, Set.of(Member.Modifier.FINAL), "Foo"));
+    assertThat(Member.classify("sealed interface Shape permits Circle, Square {"))
+        .isEqualTo(new Member(Member.Kind.INTERFACE, Member.Visibility.PACKAGE, Set.of(Member.Modifier.SEALED), "Shape"));
+    assertThat(Member.classify("@Retention(RetentionPolicy.RUNTIME) public @interface Marker {").kind())
+        .isEqualTo(Member.Kind.ANNOTATION);
+    assertThat(Member.classify("public record Point(int x, int y) implements Serializable {").name()).isEqualTo("Point");
+    assertThat(Member.classify("protected enum Colour {").visibility()).isEqualTo(Member.Visibility.PROTECTED);
+    assertThat(Member.classify("package com.example.api;"))
+        .isEqualTo(new Member(Member.Kind.PACKAGE, Member.Visibility.PACKAGE, Set.of(), "com.example.api"));
+  }
+
+  @Test
+  void shouldClassifyMembers() {
+    assertThat(Member.classify("@Override @SuppressWarnings({\"a\", \"b\"}) public static <K, V> Map<K, List<V>> group(Collection<V> values) {"))
+        .isEqualTo(new Member(Member.Kind.METHOD, Member.Visibility.PUBLIC, Set.of(Member.Modifier.STATIC), "group"));
+    assertThat(Member.classify("int size();")).isEqualTo(new Member(Member.Kind.METHOD, Member.Visibility.PACKAGE, Set.of(), "size"));
+    assertThat(Member.classify("default Stream<E> stream() {").modifiers()).containsExactly(Member.Modifier.DEFAULT);
+    assertThat(Member.classify("public Foo(int a) throws IOException {"))
+        .isEqualTo(new Member(Member.Kind.CONSTRUCTOR, Member.Visibility.PUBLIC, Set.of(), "Foo"));
+    assertThat(Member.classify("private static final Map<String, Integer> CACHE = new HashMap<>();"))
+        .isEqualTo(new Member(Member.Kind.FIELD, Member.Visibility.PRIVATE,
+            Set.of(Member.Modifier.STATIC, Member.Modifier.FINAL), "CACHE"));
+    assertThat(Member.classify("transient volatile int count;").kind()).isEqualTo(Member.Kind.FIELD);
+    assertThat(Member.classify("RED(0xff0000),").kind()).isEqualTo(Member.Kind.ENUM_CONSTANT);
+    assertThat(Member.classify("GREEN,").name()).isEqualTo("GREEN");
+    assertThat(Member.classify("static {").kind()).isEqualTo(Member.Kind.OTHER);
+  }
+
+  @Test
+  void shouldKeepOnlyPublicApi() {
+    var stateMachine = new LinePushStateMachine("Api.java", ExtractionLimits.DEFAULTS, PUBLIC_ONLY);
+
+    """
+        /** Api */
+        public class Api {
+          /** kept */
+          public void run() {
+          /** dropped */
+          void helper() {
+          /** dropped */
+          private int count;
+          /** dropped */
+          protected Api(int a) {
+          /** kept */
+          public static final int MAX = 1;
+        """.lines().forEach(stateMachine::apply);
+
+    assertThat(stateMachine.results).extracting(JavaDocInfo::memberSignature)
+        .containsExactly("public class Api {", "public void run() {", "public static final int MAX = 1;");
+    assertThat(stateMachine.filtered).isEqualTo(3);
+  }
+
+  @Test
+  void shouldReadMembersInTheContextOfTheFirstType() {
+    var inInterface = new LinePushStateMachine("Service.java", ExtractionLimits.DEFAULTS, PUBLIC_ONLY);
+    "/** Service */\npublic interface Service {\n/** size */\nint size();\n/** hidden */\nprivate void check() {\n"
+        .lines().forEach(inInterface::apply);
+    var inHiddenClass = new LinePushStateMachine("Impl.java", ExtractionLimits.DEFAULTS, PUBLIC_ONLY);
+    "/** Impl */\nclass Impl {\n/** run */\npublic void run() {\n".lines().forEach(inHiddenClass::apply);
+    var inEnum = new LinePushStateMachine("Colour.java", ExtractionLimits.DEFAULTS, PUBLIC_ONLY);
+    "/** Colour */\npublic enum Colour {\n/** red */\nRED(1);\n/** code */\nint code;\n".lines().forEach(inEnum::apply);
+
+    assertThat(inInterface.results).extracting(JavaDocInfo::memberSignature)
+        .containsExactly("public interface Service {", "int size();");
+    assertThat(inHiddenClass.results).isEmpty();
+    assertThat(inEnum.results).extracting(JavaDocInfo::memberSignature)
+        .containsExactly("public enum Colour {", "RED(1);");
+  }
+
+  @Test
+  void shouldParseThePublicOnlyFlag() {
+    assertThat(MainArguments.parse(new String[]{"--public-only", "g:a:1"}).options().publicOnly()).isTrue();
+    assertThat(MainArguments.parse(new String[]{"g:a:1"}).options().publicOnly()).isFalse();
+  }
+}
@@ -0,0 +1,97 @@
+package io.github.simbo1905.mvn2llm;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MultiReleaseTests {
+
+  @TempDir
+  Path dir;
+
+  Path jar;
+
+  final Map<String, String> sources = new LinkedHashMap<>();
+
+  @BeforeEach
+  void writeJar() throws IOException {
+    sources.put("com/example/Foo.java", type("Foo", "8"));
+    sources.put("com/example/Bar.java", type("Bar", "8"));
+    sources.put("META-INF/versions/9/module-info.java", "/** The example module. */\nmodule com.example {\n}\n");
+    sources.put("META-INF/versions/11/com/example/Foo.java", type("Foo", "11"));
+    sources.put("META-INF/versions/17/com/example/Foo.java", type("Foo", "17"));
+    sources.put("META-INF/versions/latest/com/example/Bar.java", type("Bar", "bogus"));
+    jar = dir.resolve("multi-release-sources.jar");
+    try (var out = new ZipOutputStream(Files.newOutputStream(jar))) {
+      for (var source : sources.entrySet()) {
+        out.putNextEntry(new ZipEntry(source.getKey()));
+        out.write(source.getValue().getBytes(StandardCharsets.UTF_8));
+        out.closeEntry();
+      }
+    }
+  }
+
+  @Test
+  void shouldPickTheHighestVariantNotAboveTheRelease() throws Exception {
+    assertThat(signatures(8)).containsExactly("public class Foo8 {", "public class Bar8 {");
+    assertThat(signatures(11)).containsExactly("public class Foo11 {", "public class Bar8 {", "module com.example {");
+    assertThat(signatures(21)).containsExactly("public class Foo17 {", "public class Bar8 {", "module com.example {");
+  }
+
+  @Test
+  void shouldNotInflateTheVariantsItDrops() throws Exception {
+    var budget = ExtractionLimits.DEFAULTS.budget(ExtractionOptions.DEFAULTS.withRelease(11));
+
+    var docs = new EntryScheduler(jar, ArtefactType.JAR, EntryCache.disabled(), budget, 1).extract();
+
+    assertThat(docs).extracting(JavaDocInfo::fileName).containsExactly(
+        "META-INF/versions/11/com/example/Foo.java", "com/example/Bar.java", "META-INF/versions/9/module-info.java");
+    var kept = List.of("META-INF/versions/11/com/example/Foo.java", "com/example/Bar.java",
+        "META-INF/versions/9/module-info.java");
+    assertThat(budget.inflatedBytes()).isEqualTo(kept.stream().mapToLong(name -> sources.get(name).length()).sum());
+  }
+
+  @Test
+  void shouldKeepTheModuleDeclarationAsPublicApi() throws Exception {
+    var options = ExtractionOptions.DEFAULTS.withRelease(17).withPublicOnly(true);
+
+    var docs = JavaDocExtractor.extractJavaDocs(jar, ArtefactType.JAR, EntryCache.disabled(), ExtractionLimits.DEFAULTS,
+        options);
+
+    assertThat(docs).extracting(JavaDocInfo::memberSignature).contains("module com.example {");
+    assertThat(Member.classify("open module com.example {")).satisfies(member -> {
+      assertThat(member.kind()).isEqualTo(Member.Kind.MODULE);
+      assertThat(member.name()).isEqualTo("com.example");
+    });
+  }
+
+  @Test
+  void shouldNameVersionedClassesLikeTheirBase() {
+    assertThat(ClassNames.fromEntryName("META-INF/versions/11/com/example/Foo.java")).isEqualTo("com.example.Foo");
+    assertThat(MultiRelease.version("META-INF/versions/17/com/example/Foo.java")).isEqualTo(17);
+    assertThat(MultiRelease.version("META-INF/versions/latest/com/example/Bar.java")).isEqualTo(-1);
+    assertThat(MainArguments.parse(new String[]{"--release", "11", "g:a:1"}).options().release()).isEqualTo(11);
+  }
+
+  private List<String> signatures(int release) throws Exception {
+    var docs = new EntryScheduler(jar, ArtefactType.JAR, EntryCache.disabled(),
+        ExtractionLimits.DEFAULTS.budget(ExtractionOptions.DEFAULTS.withRelease(release)), 1).extract();
+    return docs.stream().map(JavaDocInfo::memberSignature).toList();
+  }
+
+  private static String type(String name, String release) {
+    return "/** %s for Java %s. */\npublic class %s%s {\n}\n".formatted(name, release, name, release);
+  }
+}
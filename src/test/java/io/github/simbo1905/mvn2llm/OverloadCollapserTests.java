@@ -0,0 +1,84 @@
+package io.github.simbo1905.mvn2llm;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OverloadCollapserTests {
+
+  static final String FILE = "com/example/Ints.java";
+
+  @Test
+  void shouldPrintASharedDocOnceAboveEveryOverload() {
+    var docs = List.of(
+        doc(FILE, "/** The ints. */", "public final class Ints {"),
+        doc(FILE, "/**\n   * Returns the larger value.\n   */", "public static int max(int a, int b) {"),
+        doc(FILE, "/** Parses it. */", "public static int parse(String s) {"),
+        doc(FILE, "/** Returns the  larger value. */", "public static int max(int a, int b, int c) {"),
+        doc(FILE, "/** Returns the larger value, or the first. */", "public static int max(int... values) {"));
+
+    var collapsed = OverloadCollapser.collapse(docs);
+
+    assertThat(collapsed).hasSize(4);
+    assertThat(collapsed.get(1).memberSignature())
+        .isEqualTo("public static int max(int a, int b) {\npublic static int max(int a, int b, int c) {");
+    assertThat(collapsed.get(1).toString()).contains("""
+        * Returns the larger value.
+           */
+        public static int max(int a, int b) {
+        public static int max(int a, int b, int c) {
+        """);
+    // a different doc keeps its own record, even for the same name
+    assertThat(collapsed.get(3).memberSignature()).isEqualTo("public static int max(int... values) {");
+  }
+
+  @Test
+  void shouldMergeMembersThatOnlyInheritTheirDoc() {
+    var docs = List.of(
+        doc(FILE, "/** {@inheritDoc} */", "@Override public int size() {"),
+        doc(FILE, "/**\n * {@inheritDoc}\n */", "@Override public boolean isEmpty() {"),
+        doc(FILE, "/// {@inheritDoc}", "public String toString() {"),
+        doc(FILE, "/** {@inheritDoc} Never null. */", "public Object get(int index) {"));
+
+    var collapsed = OverloadCollapser.collapse(docs);
+
+    assertThat(collapsed).extracting(JavaDocInfo::memberSignature).containsExactly(
+        "@Override public int size() {\n@Override public boolean isEmpty() {\npublic String toString() {",
+        "public Object get(int index) {");
+  }
+
+  @Test
+  void shouldNeverMergeAcrossFilesOrHoldMoreThanOneFile() {
+    var emitted = new ArrayList<JavaDocInfo>();
+    var collapser = new OverloadCollapser(emitted::add);
+
+    collapser.accept(doc("a/A.java", "/** Adds. */", "void add(int x);"));
+    collapser.accept(doc("a/A.java", "/** Adds. */", "void add(long x);"));
+    assertThat(emitted).isEmpty();
+    collapser.accept(doc("a/B.java", "/** Adds. */", "void add(int x);"));
+    assertThat(emitted).singleElement().satisfies(doc -> assertThat(doc.fileName()).isEqualTo("a/A.java"));
+    collapser.flush();
+
+    assertThat(emitted).hasSize(2);
+    assertThat(collapser.collapsed()).isEqualTo(1);
+    assertThat(OverloadCollapser.normalise("/**\n * Adds  it.\n */")).isEqualTo("Adds it.");
+  }
+
+  @Test
+  void shouldCollapseDuringExtractionWhenAsked() {
+    var arguments = MainArguments.parse(new String[]{"--collapse", "batch"});
+
+    assertThat(arguments.options().collapse()).isTrue();
+    assertThat(arguments.workerArguments()).contains("--collapse");
+    assertThat(JavaDocExtractor.compact(List.of(
+        doc(FILE, "/** Same. */", "void f(int x);"),
+        doc(FILE, "/** Same. */", "void f(long x);")), arguments.options())).hasSize(1);
+  }
+
+  private static JavaDocInfo doc(String file, String documentation, String signature) {
+    return new JavaDocInfo(file, documentation, signature);
+  }
+}
@@ -0,0 +1,102 @@
+package io.github.simbo1905.mvn2llm;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.SplittableRandom;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ParallelGzipOutputStreamTests {
+
+  @Test
+  void shouldRoundTripManyBlocks() throws IOException {
+    var text = text(5 * ParallelGzipOutputStream.BLOCK_SIZE + 12345);
+
+    var compressed = compress(text, 4);
+
+    assertThat(gunzip(compressed)).isEqualTo(text);
+  }
+
+  @Test
+  void shouldCompressAboutAsWellAsOneThread() throws IOException {
+    var text = text(2 << 20);
+    var single = new ByteArrayOutputStream();
+    try (var out = new GZIPOutputStream(single)) {
+      out.write(text);
+    }
+
+    var parallel = compress(text, 4);
+
+    // the preset dictionary lets each block reach back into the one before, so the blocks cost very little
+    assertThat((double) parallel.length).isLessThan(single.size() * 1.05);
+  }
+
+  @Test
+  void shouldRoundTripAcrossFlushesAndSmallWrites() throws IOException {
+    var bytes = new ByteArrayOutputStream();
+    try (var out = new ParallelGzipOutputStream(bytes, 2, Deflater.DEFAULT_COMPRESSION)) {
+      out.write("first line\n".getBytes(StandardCharsets.UTF_8));
+      out.flush();
+      out.write('x');
+      out.flush();
+      out.flush();
+      out.write("\nlast line\n".getBytes(StandardCharsets.UTF_8));
+    }
+
+    assertThat(new String(gunzip(bytes.toByteArray()), StandardCharsets.UTF_8)).isEqualTo("first line\nx\nlast line\n");
+  }
+
+  @Test
+  void shouldWriteAnEmptyMemberAndConcatenateWithOthers() throws IOException {
+    var empty = compress(new byte[0], 2);
+    var first = compress("one\n".getBytes(StandardCharsets.UTF_8), 2);
+    var second = compress("two\n".getBytes(StandardCharsets.UTF_8), 3);
+
+    var concatenated = new ByteArrayOutputStream();
+    concatenated.write(first);
+    concatenated.write(empty);
+    concatenated.write(second);
+
+    assertThat(gunzip(empty)).isEmpty();
+    assertThat(new String(gunzip(concatenated.toByteArray()), StandardCharsets.UTF_8)).isEqualTo("one\ntwo\n");
+  }
+
+  @Test
+  void shouldParseTheGzipFlag() {
+    assertThat(MainArguments.parse(new String[]{"--gzip", "g:a:1"}).gzip()).isTrue();
+    assertThat(MainArguments.parse(new String[]{"g:a:1"}).gzip()).isFalse();
+  }
+
+  private static byte[] compress(byte[] text, int threads) throws IOException {
+    var bytes = new ByteArrayOutputStream();
+    try (var out = new ParallelGzipOutputStream(bytes, threads, Deflater.DEFAULT_COMPRESSION)) {
+      out.write(text);
+    }
+    return bytes.toByteArray();
+  }
+
+  private static byte[] gunzip(byte[] compressed) throws IOException {
+    try (var in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+      return in.readAllBytes();
+    }
+  }
+
+  /// Doc-like text: repetitive enough that matches across block boundaries matter.
+  private static byte[] text(int size) {
+    var words = new String[]{"returns", "the", "value", "of", "this", "buffer", "@param", "index", "/**", "*/",
+        "public", "static", "void", "String", "List<T>", "throws", "IOException", "\n"};
+    var random = new SplittableRandom(3);
+    var sb = new StringBuilder(size + 16);
+    while (sb.length() < size) {
+      sb.append(words[random.nextInt(words.length)]).append(' ');
+    }
+    return sb.substring(0, size).getBytes(StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,221 @@
+package io.github.simbo1905.mvn2llm;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.logging.Logger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/// End-to-end runs of the network paths against [TestRepositoryServer], so download concurrency, latency and
+/// bandwidth effects can be measured without Maven Central. Each test logs one line of wall-clock time,
+/// bytes served and peak in-flight requests; the assertions only check shapes that hold on any machine, never
+/// timings.
+class RepositoryBenchmarkTests {
+  private static final Logger LOGGER = Logger.getLogger(RepositoryBenchmarkTests.class.getName());
+
+  static final Duration LATENCY = Duration.ofMillis(200);
+
+  @TempDir
+  Path dir;
+
+  TestRepositoryServer server;
+
+  @BeforeEach
+  void startServer() throws IOException {
+    server = TestRepositoryServer.start(Files.createDirectories(dir.resolve("repo")));
+  }
+
+  @AfterEach
+  void stopServer() {
+    server.close();
+  }
+
+  @Test
+  void shouldDownloadAReleaseAndCountEveryByte() throws Exception {
+    var jar = sourcesJar(1, 200);
+    server.publish("com.example:alpha:1.0", jar.bytes());
+
+    var start = System.nanoTime();
+    var docs = JavaDocExtractor.extractCoordinate(HttpClient.newBuilder(), server.url(),
+        MavenCoordinate.parse("com.example:alpha:1.0"), EntryCache.disabled(), ExtractionLimits.DEFAULTS,
+        ExtractionOptions.DEFAULTS);
+    report("release", start);
+
+    assertThat(docs).hasSize((int) jar.summary().documentedMembers());
+    assertThat(server.bytesServed()).isEqualTo(jar.bytes().length);
+    assertThat(server.requests()).containsExactly("/com/example/alpha/1.0/alpha-1.0-sources.jar");
+  }
+
+  @Test
+  void shouldResolveASnapshotThroughItsMetadata() throws Exception {
+    var jar = sourcesJar(2, 50);
+    server.publish("com.example:alpha:2.0-SNAPSHOT", jar.bytes());
+    server.latency(LATENCY);
+
+    var start = System.nanoTime();
+    var docs = JavaDocExtractor.extractCoordinate(HttpClient.newBuilder(), server.url(),
+        MavenCoordinate.parse("com.example:alpha:2.0-SNAPSHOT"), EntryCache.disabled(), ExtractionLimits.DEFAULTS,
+        ExtractionOptions.DEFAULTS);
+    report("snapshot", start);
+
+    assertThat(docs).hasSize((int) jar.summary().documentedMembers());
+    assertThat(server.requests()).containsExactly(
+        "/com/example/alpha/2.0-SNAPSHOT/maven-metadata.xml",
+        "/com/example/alpha/2.0-SNAPSHOT/alpha-2.0-20250101.120000-1-sources.jar");
+  }
+
+  @Test
+  void shouldOverlapDownloadsWhenPacking() throws Exception {
+    var coordinates = new ArrayList<String>();
+    long members = 0;
+    for (int i = 0; i < 4; i++) {
+      var jar = sourcesJar(10 + i, 50);
+      var coordinate = "com.example:lib%d:1.%d".formatted(i, i);
+      server.publish(coordinate, jar.bytes());
+      coordinates.add(coordinate);
+      members += jar.summary().documentedMembers();
+    }
+    var pack = dir.resolve("docs.pack");
+    var args = new ArrayList<>(Arrays.asList("-l", "OFF", "--no-cache", "-r", server.url(), "-o", pack.toString(), "pack"));
+    args.addAll(coordinates);
+
+    // the same run without latency is the cost of extracting, to compare the run with latency against
+    var start = System.nanoTime();
+    JavaDocExtractor.run(args.toArray(String[]::new));
+    report("pack x4", start);
+    server.resetStatistics();
+    server.latency(LATENCY);
+    start = System.nanoTime();
+    JavaDocExtractor.run(args.toArray(String[]::new));
+    report("pack x4 latency", start);
+
+    assertThat(DocPack.open(pack).all()).hasSize((int) members);
+    // downloading one after the other would never have two requests in flight
+    assertThat(server.maxConcurrent()).isGreaterThanOrEqualTo(2);
+  }
+
+  @Test
+  void shouldHonourTheBandwidthCap() throws Exception {
+    var jar = sourcesJar(3, 100);
+    server.publish("com.example:alpha:1.0", jar.bytes());
+    var bytesPerSecond = jar.bytes().length * 2L;
+    server.bandwidth(bytesPerSecond);
+
+    var start = System.nanoTime();
+    JavaDocExtractor.extractCoordinate(HttpClient.newBuilder(), server.url(),
+        MavenCoordinate.parse("com.example:alpha:1.0"), EntryCache.disabled(), ExtractionLimits.DEFAULTS,
+        ExtractionOptions.DEFAULTS);
+    report("bandwidth capped", start);
+
+    assertThat(server.bytesServed()).isEqualTo(jar.bytes().length);
+  }
+
+  @Test
+  void shouldSurfaceServerFailures() throws Exception {
+    server.publish("com.example:alpha:1.0", sourcesJar(4, 50).bytes());
+    var coordinate = MavenCoordinate.parse("com.example:alpha:1.0");
+
+    server.failNext(1, TestRepositoryServer.Failure.SERVER_ERROR);
+    assertThatThrownBy(() -> JavaDocExtractor.extractCoordinate(HttpClient.newBuilder(), server.url(), coordinate,
+        EntryCache.disabled(), ExtractionLimits.DEFAULTS, ExtractionOptions.DEFAULTS))
+        .isInstanceOf(IOException.class)
+        .hasStackTraceContaining("Status code: 503");
+
+    server.failNext(1, TestRepositoryServer.Failure.TRUNCATED);
+    assertThatThrownBy(() -> JavaDocExtractor.extractCoordinate(HttpClient.newBuilder(), server.url(), coordinate,
+        EntryCache.disabled(), ExtractionLimits.DEFAULTS, ExtractionOptions.DEFAULTS))
+        .isInstanceOf(IOException.class);
+
+    server.failNext(1, TestRepositoryServer.Failure.NOT_FOUND);
+    assertThatThrownBy(() -> JavaDocExtractor.extractCoordinate(HttpClient.newBuilder(), server.url(), coordinate,
+        EntryCache.disabled(), ExtractionLimits.DEFAULTS, ExtractionOptions.DEFAULTS))
+        .hasStackTraceContaining("Source JAR not found");
+
+    // once the injected failures are used up the same coordinate downloads fine
+    assertThat(JavaDocExtractor.extractCoordinate(HttpClient.newBuilder(), server.url(), coordinate,
+        EntryCache.disabled(), ExtractionLimits.DEFAULTS, ExtractionOptions.DEFAULTS)).isNotEmpty();
+  }
+
+  @Test
+  void shouldFetchThroughTheProxyFlag() throws Exception {
+    var jar = sourcesJar(5, 50);
+    server.publish("com.example:alpha:1.0", jar.bytes());
+    var pack = dir.resolve("proxied.pack");
+
+    var start = System.nanoTime();
+    // the repository host does not resolve, so the download only works if it went through the proxy
+    JavaDocExtractor.run(new String[]{"-l", "OFF", "--no-cache", "--http-proxy", server.url(),
+        "-r", "http://repository.invalid", "-o", pack.toString(), "pack", "com.example:alpha:1.0"});
+    report("proxied", start);
+
+    assertThat(DocPack.open(pack).all()).hasSize((int) jar.summary().documentedMembers());
+    assertThat(server.proxiedRequests()).isEqualTo(1);
+  }
+
+  @Test
+  void shouldBypassTheProxyForNoProxyHosts() throws Exception {
+    var jar = sourcesJar(7, 20);
+    server.publish("com.example:alpha:1.0", jar.bytes());
+    var pack = dir.resolve("direct.pack");
+
+    // the server is both the proxy and the repository, so only its count of proxied requests tells them apart
+    JavaDocExtractor.run(new String[]{"-l", "OFF", "--no-cache", "--http-proxy", server.url(),
+        "--no-proxy", URI.create(server.url()).getHost(), "-r", server.url(), "-o", pack.toString(), "pack",
+        "com.example:alpha:1.0"});
+
+    assertThat(DocPack.open(pack).all()).hasSize((int) jar.summary().documentedMembers());
+    assertThat(server.proxiedRequests()).isZero();
+  }
+
+  @Test
+  void shouldServeByteRanges() throws Exception {
+    var jar = sourcesJar(6, 20);
+    server.publish("com.example:alpha:1.0", jar.bytes());
+    var uri = URI.create(server.url() + "/com/example/alpha/1.0/alpha-1.0-sources.jar");
+
+    try (var client = HttpClient.newHttpClient()) {
+      var partial = client.send(HttpRequest.newBuilder(uri).header("Range", "bytes=10-19").build(),
+          HttpResponse.BodyHandlers.ofByteArray());
+      var suffix = client.send(HttpRequest.newBuilder(uri).header("Range", "bytes=-22").build(),
+          HttpResponse.BodyHandlers.ofByteArray());
+      var unsatisfiable = client.send(HttpRequest.newBuilder(uri).header("Range", "bytes=%d-".formatted(jar.bytes().length)).build(),
+          HttpResponse.BodyHandlers.discarding());
+
+      assertThat(partial.statusCode()).isEqualTo(206);
+      assertThat(partial.body()).isEqualTo(Arrays.copyOfRange(jar.bytes(), 10, 20));
+      assertThat(partial.headers().firstValue("Content-Range")).hasValue("bytes 10-19/%d".formatted(jar.bytes().length));
+      // a zip ends with its 22 byte end of central directory record, which is what a ranged reader asks for first
+      assertThat(suffix.body()).isEqualTo(Arrays.copyOfRange(jar.bytes(), jar.bytes().length - 22, jar.bytes().length));
+      assertThat(unsatisfiable.statusCode()).isEqualTo(416);
+    }
+  }
+
+  record SourcesJar(byte[] bytes, SyntheticArtifact.Summary summary) {
+  }
+
+  private SourcesJar sourcesJar(long seed, int entries) throws IOException {
+    var file = dir.resolve("generated-%d.jar".formatted(seed));
+    var summary = SyntheticArtifact.builder().entries(entries).membersPerFile(5).seed(seed).build().writeJar(file);
+    return new SourcesJar(Files.readAllBytes(file), summary);
+  }
+
+  private void report(String scenario, long startNanos) {
+    var elapsed = Duration.ofNanos(System.nanoTime() - startNanos);
+    LOGGER.info("%-18s %6d ms %10d bytes %3d requests %2d max in flight".formatted(scenario, elapsed.toMillis(),
+        server.bytesServed(), server.requests().size(), server.maxConcurrent()));
+  }
+}
@@ -0,0 +1,128 @@
+package io.github.simbo1905.mvn2llm;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/// Throughput and peak-heap budgets for [JavaDocExtractor#extractJavaDocs(Path, ArtefactType)] on generated
+/// archives. The default size keeps `mvn test` quick; `-Dmvn2llm.scale.bytes=4g` runs the same budgets at
+/// multi-GB scale. Each extraction runs in a child JVM whose `-Xmx` is the heap budget, so going over it
+/// fails with an `OutOfMemoryError` rather than depending on when the collector happened to run.
+class ScaleTests {
+
+  static final long SCALE_BYTES = ExtractionLimits.parseSize(System.getProperty("mvn2llm.scale.bytes", "16m"));
+  /// Far below what any laptop manages so only a real cliff trips it, not a noisy CI neighbour.
+  static final double MIN_MB_PER_SECOND = Double.parseDouble(System.getProperty("mvn2llm.scale.minMBps", "2"));
+
+  @TempDir
+  Path dir;
+
+  @Test
+  void shouldExtractLargeJarWithinBudgets() throws Exception {
+    var jar = dir.resolve("large-sources.jar");
+    var summary = SyntheticArtifact.builder().targetBytes(SCALE_BYTES).build().writeJar(jar);
+
+    var result = extractInChildJvm(jar, ArtefactType.JAR, heapBudgetMegabytes(summary));
+
+    assertThat(result.records()).isEqualTo(summary.documentedMembers());
+    assertThat(result.markdownRecords()).isEqualTo(summary.markdownMembers());
+    assertThat(result.megabytesPerSecond(summary)).isGreaterThan(MIN_MB_PER_SECOND);
+  }
+
+  @Test
+  void shouldExtractLargeZipWithinBudgets() throws Exception {
+    var zip = dir.resolve("large-sources.zip");
+    var summary = SyntheticArtifact.builder().targetBytes(SCALE_BYTES).seed(7).build().writeZip(zip);
+
+    var result = extractInChildJvm(zip, ArtefactType.ZIP, heapBudgetMegabytes(summary));
+
+    assertThat(result.records()).isEqualTo(summary.documentedMembers());
+    assertThat(result.megabytesPerSecond(summary)).isGreaterThan(MIN_MB_PER_SECOND);
+  }
+
+  @Test
+  void shouldKeepPathologicalSignaturesWithinBudget() throws Exception {
+    var jar = dir.resolve("pathological-sources.jar");
+    var summary = SyntheticArtifact.builder()
+        .entries(20)
+        .pathologicalShare(1.0)
+        .pathologicalParameters(200)
+        .build()
+        .writeJar(jar);
+
+    var start = System.nanoTime();
+    var docs = JavaDocExtractor.extractJavaDocs(jar, ArtefactType.JAR);
+    var seconds = (System.nanoTime() - start) / 1e9;
+
+    assertThat(docs).hasSize((int) summary.documentedMembers());
+    assertThat(docs).anyMatch(doc -> doc.memberSignature().contains("p199)"));
+    assertThat(seconds).isLessThan(10.0);
+  }
+
+  @Test
+  void shouldGenerateIdenticalArchivesForTheSameSettings() throws IOException {
+    var artifact = SyntheticArtifact.builder().entries(50).markdownShare(0.5).build();
+
+    artifact.writeZip(dir.resolve("a.zip"));
+    artifact.writeZip(dir.resolve("b.zip"));
+
+    artifact.writeJar(dir.resolve("a.jar"));
+    artifact.writeJar(dir.resolve("b.jar"));
+
+    assertThat(Files.mismatch(dir.resolve("a.zip"), dir.resolve("b.zip"))).isEqualTo(-1L);
+    assertThat(Files.mismatch(dir.resolve("a.jar"), dir.resolve("b.jar"))).isEqualTo(-1L);
+  }
+
+  record Result(long records, long markdownRecords, long nanos) {
+    double megabytesPerSecond(SyntheticArtifact.Summary summary) {
+      return summary.uncompressedBytes() / 1048576.0 / (nanos / 1e9);
+    }
+  }
+
+  /// Everything the extraction returns stays live until it is printed, so the budget is a fixed allowance
+  /// plus a multiple of the doc text we generated for it to return. At 64MB the extraction needs about twice
+  /// that text, so holding on to the inflated sources as well would blow it.
+  static long heapBudgetMegabytes(SyntheticArtifact.Summary summary) {
+    return 64 + 3 * summary.documentedChars() / 1048576;
+  }
+
+  static Result extractInChildJvm(Path archive, ArtefactType type, long heapMegabytes) throws Exception {
+    var command = new ArrayList<String>();
+    command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+    if (ManagementFactory.getRuntimeMXBean().getInputArguments().contains("--enable-preview")) {
+      command.add("--enable-preview");
+    }
+    command.add("-Xmx%dm".formatted(heapMegabytes));
+    command.add("-cp");
+    command.add(System.getProperty("java.class.path"));
+    command.add(Runner.class.getName());
+    command.add(archive.toString());
+    command.add(type.name());
+    var process = new ProcessBuilder(command).redirectErrorStream(true).start();
+    var output = new String(process.getInputStream().readAllBytes()).strip();
+    var exit = process.waitFor();
+    assertThat(exit)
+        .as("extraction of %s in %dMB heap failed:%n%s", archive.getFileName(), heapMegabytes, output)
+        .isZero();
+    var fields = output.lines().reduce((_, last) -> last).orElseThrow().split(" ");
+    return new Result(Long.parseLong(fields[0]), Long.parseLong(fields[1]), Long.parseLong(fields[2]));
+  }
+
+  /// The child side of [#extractInChildJvm]: prints `records markdownRecords nanos` on its last line.
+  static final class Runner {
+    public static void main(String[] args) throws Exception {
+      var start = System.nanoTime();
+      var docs = JavaDocExtractor.extractJavaDocs(Path.of(args[0]), ArtefactType.valueOf(args[1]));
+      var nanos = System.nanoTime() - start;
+      var markdown = docs.stream().filter(doc -> doc.documentation().startsWith("///")).count();
+      System.out.println("%d %d %d".formatted(docs.size(), markdown, nanos));
+    }
+  }
+}
@@ -0,0 +1,155 @@
+package io.github.simbo1905.mvn2llm;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+class SymbolTableTests {
+
+  @TempDir
+  Path dir;
+
+  private static final List<JavaDocInfo> OUTER = List.of(
+      new JavaDocInfo("com/example/Outer.java", "/** Outer */", "public class Outer {"),
+      new JavaDocInfo("com/example/Outer.java", "/** Run it */", "public void run() {"),
+      new JavaDocInfo("com/example/Outer.java", "/** Inner */", "public static final class Inner {"),
+      new JavaDocInfo("com/example/Outer.java", "/** Size */", "int size() {"),
+      new JavaDocInfo("com/example/Outer.java", "/** Kind */", "enum Kind {"),
+      new JavaDocInfo("com/example/Outer.java", "/** First */", "FIRST,")
+  );
+
+  @Test
+  void shouldNameTopLevelAndNestedTypes() {
+    var collector = new SymbolTable.Collector("g:a:1");
+    collector.accept(entry("com/example/Outer.java"), OUTER);
+    collector.accept(entry("com/example/package-info.java"),
+        List.of(new JavaDocInfo("com/example/package-info.java", "/** Package */", "package com.example;")));
+
+    assertThat(collector.symbols())
+        .extracting(SymbolTable.Symbol::className, SymbolTable.Symbol::firstRecord, SymbolTable.Symbol::recordCount)
+        .containsExactly(
+            tuple("com.example.Outer", 0, 6),
+            tuple("com.example.Outer.Inner", 2, 2),
+            tuple("com.example.Outer.Kind", 4, 2));
+  }
+
+  @Test
+  void shouldFindEveryCoordinateAndReplaceOnReextraction() throws IOException {
+    SymbolTable.add(dir, "g:a:1", List.of(symbol("com.example.Outer", "g:a:1"), symbol("com.example.Outer.Inner", "g:a:1")));
+    SymbolTable.add(dir, "g:b:2", List.of(symbol("com.example.Outer", "g:b:2"), symbol("org.other.Beta", "g:b:2")));
+
+    var table = SymbolTable.open(dir.resolve(SymbolTable.FILE_NAME));
+    assertThat(table.lookup("com.example.Outer")).extracting(SymbolTable.Symbol::coordinate)
+        .containsExactly("g:a:1", "g:b:2");
+    assertThat(table.lookup("com.example.Outer$Inner")).singleElement()
+        .satisfies(symbol -> assertThat(symbol.crc()).isEqualTo(0xfedc_ba98L));
+    assertThat(table.lookup("com.example.Missing")).isEmpty();
+
+    SymbolTable.add(dir, "g:a:1", List.of(symbol("com.example.Renamed", "g:a:1")));
+
+    table = SymbolTable.open(dir.resolve(SymbolTable.FILE_NAME));
+    assertThat(table.symbols()).isEqualTo(3);
+    assertThat(table.lookup("com.example.Outer")).extracting(SymbolTable.Symbol::coordinate).containsExactly("g:b:2");
+    assertThat(table.lookup("com.example.Outer.Inner")).isEmpty();
+    assertThat(SymbolTable.open(dir.resolve("missing.tbl"))).isNull();
+  }
+
+  @Test
+  void shouldRejectATruncatedTableAndRebuildItOnTheNextAdd() throws IOException {
+    SymbolTable.add(dir, "g:a:1", List.of(symbol("com.example.Outer", "g:a:1"), symbol("com.example.Outer.Inner", "g:a:1")));
+    var file = dir.resolve(SymbolTable.FILE_NAME);
+    var bytes = Files.readAllBytes(file);
+    Files.write(file, Arrays.copyOf(bytes, bytes.length - 10));
+
+    assertThatThrownBy(() -> SymbolTable.open(file).lookup("com.example.Outer.Inner")).isInstanceOf(IOException.class);
+    Files.write(file, Arrays.copyOf(bytes, 40));
+    assertThatThrownBy(() -> SymbolTable.open(file)).isInstanceOf(IOException.class);
+
+    SymbolTable.add(dir, "g:b:2", List.of(symbol("org.other.Beta", "g:b:2")));
+
+    var table = SymbolTable.open(file);
+    assertThat(table.symbols()).isEqualTo(1);
+    assertThat(table.lookup("org.other.Beta")).singleElement()
+        .satisfies(symbol -> assertThat(symbol.coordinate()).isEqualTo("g:b:2"));
+  }
+
+  @Test
+  void shouldRecordClassesWhileExtractingAndAnswerFromTheCache() throws Exception {
+    var jar = new ByteArrayOutputStream();
+    try (var out = new ZipOutputStream(jar)) {
+      out.putNextEntry(new ZipEntry("com/example/Outer.java"));
+      out.write("""
+          package com.example;
+          /** Outer */
+          public class Outer {
+            /** Inner */
+            public static class Inner {
+              /** Run it */
+              public void run() {}
+            }
+          }
+          """.getBytes(StandardCharsets.UTF_8));
+      out.closeEntry();
+    }
+    try (var server = TestRepositoryServer.start(Files.createDirectories(dir.resolve("repo")))) {
+      server.publish("com.example:alpha:1.0", jar.toByteArray());
+      var cache = EntryCache.open(dir.resolve("cache"));
+
+      JavaDocExtractor.extractCoordinate(HttpClient.newBuilder(), server.url(), MavenCoordinate.parse("com.example:alpha:1.0"),
+          cache, ExtractionLimits.DEFAULTS, ExtractionOptions.DEFAULTS);
+
+      var symbol = SymbolTable.open(cache.directory().resolve(SymbolTable.FILE_NAME))
+          .lookup("com.example.Outer$Inner").getFirst();
+      assertThat(symbol.coordinate()).isEqualTo("com.example:alpha:1.0");
+      var docs = cache.get(symbol.entry()).orElseThrow();
+      assertThat(docs.subList(symbol.firstRecord(), symbol.firstRecord() + symbol.recordCount()))
+          .extracting(JavaDocInfo::documentation)
+          .containsExactly("/** Inner */", "/** Run it */");
+    }
+  }
+
+  @Test
+  void shouldReturnAFailureStatusForAnUnknownClass() throws Exception {
+    var cacheDir = dir.resolve("cache").toString();
+
+    assertThat(JavaDocExtractor.run(new String[]{"-l", "OFF", "--cache-dir", cacheDir, "which", "com.example.Missing"}))
+        .isEqualTo(1);
+  }
+
+  @Test
+  void shouldParseTheWhichCommand() {
+    var arguments = MainArguments.parse(new String[]{"which", "com.example.Outer"});
+
+    assertThat(arguments.command()).isEqualTo("which");
+    assertThat(arguments.operands()).containsExactly("com.example.Outer");
+    assertThatThrownBy(() -> MainArguments.parse(new String[]{"which"}))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> MainArguments.parse(new String[]{"which", "--no-cache", "com.example.Outer"}))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  private static ZipEntry entry(String name) {
+    var entry = new ZipEntry(name);
+    entry.setCrc(0x1234);
+    entry.setSize(100);
+    return entry;
+  }
+
+  private static SymbolTable.Symbol symbol(String className, String coordinate) {
+    return new SymbolTable.Symbol(className, coordinate, className.replace('.', '/') + ".java", 0xfedc_ba98L, 42, 0, 1);
+  }
+}
@@ -0,0 +1,214 @@
+package io.github.simbo1905.mvn2llm;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/// A deterministic generator of synthetic sources archives for scale tests.
+///
+/// The same settings always produce the same archive. Entries are generated and written one at a time so a
+/// multi-GB archive needs no more memory than its largest file. Every doc comment is followed by a signature
+/// the state machine terminates, so [Summary#documentedMembers()] is exactly the number of records an
+/// extraction should return.
+record SyntheticArtifact(
+    int entries,
+    long targetBytes,
+    int membersPerFile,
+    double commentDensity,
+    int commentLines,
+    double markdownShare,
+    double pathologicalShare,
+    int pathologicalParameters,
+    long seed) {
+
+  private static final String[] WORDS = {
+      "returns", "the", "value", "of", "this", "buffer", "index", "when", "null", "is", "given", "throws",
+      "if", "a", "connection", "stream", "element", "key", "mapping", "default", "thread", "safe", "not",
+      "with", "for", "each", "entry", "in", "order", "parser", "token", "length", "offset", "limit", "cache"};
+
+  private static final String[] TYPES = {
+      "String", "int", "long", "List<String>", "Map<String, List<Integer>>", "Optional<T>", "byte[]",
+      "java.util.function.Function<? super T, ? extends R>", "CharSequence", "boolean"};
+
+  /// What was written, for asserting on the extraction.
+  record Summary(int entries, long uncompressedBytes, long documentedMembers, long markdownMembers, long documentedChars) {
+  }
+
+  // entries default to the time they are written, which would make two runs differ in their DOS timestamps
+  private static final long ENTRY_TIME = 1_700_000_000_000L;
+
+  static Builder builder() {
+    return new Builder();
+  }
+
+  Summary writeJar(Path file) throws IOException {
+    final var manifest = new Manifest();
+    manifest.getMainAttributes().putValue("Manifest-Version", "1.0");
+    try (final var out = new JarOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16))) {
+      out.putNextEntry(entry(JarFile.MANIFEST_NAME));
+      manifest.write(out);
+      out.closeEntry();
+      return write(out);
+    }
+  }
+
+  Summary writeZip(Path file) throws IOException {
+    try (final var out = new ZipOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16))) {
+      return write(out);
+    }
+  }
+
+  private Summary write(ZipOutputStream out) throws IOException {
+    final var random = new SplittableRandom(seed);
+    final var counts = new long[3];
+    var written = 0;
+    long bytes = 0;
+    // a positive target size wins over the entry count so callers can ask for "about 4GB" directly
+    while (targetBytes > 0 ? bytes < targetBytes : written < entries) {
+      final var name = "synthetic/p%d/Class%d.java".formatted(written % 97, written);
+      final var source = source(random, written, counts).getBytes(StandardCharsets.UTF_8);
+      out.putNextEntry(entry(name));
+      out.write(source);
+      out.closeEntry();
+      bytes += source.length;
+      written++;
+    }
+    return new Summary(written, bytes, counts[0], counts[1], counts[2]);
+  }
+
+  private static ZipEntry entry(String name) {
+    final var entry = new ZipEntry(name);
+    entry.setTime(ENTRY_TIME);
+    return entry;
+  }
+
+  private String source(SplittableRandom random, int index, long[] counts) {
+    final var sb = new StringBuilder(membersPerFile * 256);
+    sb.append("package synthetic.p").append(index % 97).append(";\n\n");
+    sb.append("import java.io.IOException;\nimport java.util.*;\n\n");
+    doc(sb, random, counts, "");
+    sb.append("public class Class").append(index).append("<T extends Comparable<T>> {\n");
+    for (int member = 0; member < membersPerFile; member++) {
+      sb.append('\n');
+      doc(sb, random, counts, "  ");
+      if (member % 5 == 0) {
+        sb.append("  public static final int FIELD_").append(member).append(" = ").append(member).append(";\n");
+      } else if (random.nextDouble() < pathologicalShare) {
+        sb.append("  public <R> Map<String, List<R>> method").append(member).append("(\n");
+        for (int p = 0; p < pathologicalParameters; p++) {
+          sb.append("      final ").append(TYPES[random.nextInt(TYPES.length)]).append(" p").append(p)
+              .append(p + 1 < pathologicalParameters ? ",\n" : ")\n");
+        }
+        sb.append("      throws IOException {\n    return null;\n  }\n");
+      } else {
+        sb.append("  public ").append(TYPES[random.nextInt(TYPES.length)]).append(" method").append(member)
+            .append("(int a, String b) {\n    throw new UnsupportedOperationException();\n  }\n");
+      }
+    }
+    sb.append("}\n");
+    return sb.toString();
+  }
+
+  private void doc(StringBuilder sb, SplittableRandom random, long[] counts, String indent) {
+    if (random.nextDouble() >= commentDensity) {
+      return;
+    }
+    final var start = sb.length();
+    final var markdown = random.nextDouble() < markdownShare;
+    if (!markdown) {
+      sb.append(indent).append("/**\n");
+    }
+    for (int line = 0; line < commentLines; line++) {
+      sb.append(indent).append(markdown ? "/// " : " * ");
+      final var words = 6 + random.nextInt(8);
+      for (int w = 0; w < words; w++) {
+        sb.append(WORDS[random.nextInt(WORDS.length)]).append(w + 1 < words ? ' ' : '\n');
+      }
+    }
+    if (!markdown) {
+      sb.append(indent).append(" */\n");
+    }
+    counts[0]++;
+    counts[1] += markdown ? 1 : 0;
+    counts[2] += sb.length() - start;
+  }
+
+  /// Writes an archive from the command line, for example to produce a multi-GB file once and reuse it:
+  /// `java -cp target/test-classes:target/classes io.github.simbo1905.mvn2llm.SyntheticArtifact big.jar 4g`
+  public static void main(String[] args) throws IOException {
+    final var file = Path.of(args[0]);
+    final var builder = builder().targetBytes(ExtractionLimits.parseSize(args.length > 1 ? args[1] : "64m"));
+    final var summary = file.toString().endsWith(".zip") ? builder.build().writeZip(file) : builder.build().writeJar(file);
+    System.out.println(summary);
+  }
+
+  static final class Builder {
+    private int entries = 1_000;
+    private long targetBytes = 0;
+    private int membersPerFile = 20;
+    private double commentDensity = 0.7;
+    private int commentLines = 4;
+    private double markdownShare = 0.2;
+    private double pathologicalShare = 0.05;
+    private int pathologicalParameters = 40;
+    private long seed = 42;
+
+    Builder entries(int entries) {
+      this.entries = entries;
+      return this;
+    }
+
+    Builder targetBytes(long targetBytes) {
+      this.targetBytes = targetBytes;
+      return this;
+    }
+
+    Builder membersPerFile(int membersPerFile) {
+      this.membersPerFile = membersPerFile;
+      return this;
+    }
+
+    Builder commentDensity(double commentDensity) {
+      this.commentDensity = commentDensity;
+      return this;
+    }
+
+    Builder commentLines(int commentLines) {
+      this.commentLines = commentLines;
+      return this;
+    }
+
+    Builder markdownShare(double markdownShare) {
+      this.markdownShare = markdownShare;
+      return this;
+    }
+
+    Builder pathologicalShare(double pathologicalShare) {
+      this.pathologicalShare = pathologicalShare;
+      return this;
+    }
+
+    Builder pathologicalParameters(int pathologicalParameters) {
+      this.pathologicalParameters = pathologicalParameters;
+      return this;
+    }
+
+    Builder seed(long seed) {
+      this.seed = seed;
+      return this;
+    }
+
+    SyntheticArtifact build() {
+      return new SyntheticArtifact(entries, targetBytes, membersPerFile, commentDensity, commentLines,
+          markdownShare, pathologicalShare, pathologicalParameters, seed);
+    }
+  }
+}
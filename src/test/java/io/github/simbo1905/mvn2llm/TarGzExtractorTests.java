@@ -0,0 +1,105 @@
+package io.github.simbo1905.mvn2llm;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TarGzExtractorTests {
+
+  @Test
+  void shouldExtractJavaMembersInArchiveOrder() throws IOException {
+    var tar = new ByteArrayOutputStream();
+    entry(tar, "repo-main/", '5', new byte[0]);
+    entry(tar, "repo-main/src/B.java", '0', "/** B class */\npublic class B {}\n".getBytes(StandardCharsets.UTF_8));
+    entry(tar, "repo-main/README.md", '0', "/** not java */\nclass Nope {}\n".getBytes(StandardCharsets.UTF_8));
+    entry(tar, "repo-main/src/A.java", '0', "/// A class\npublic class A {}\n".getBytes(StandardCharsets.UTF_8));
+    tar.write(new byte[1024]);
+
+    var docs = TarGzExtractor.extractJavaDocs(new ByteArrayInputStream(gzip(tar.toByteArray())));
+
+    assertThat(docs)
+        .extracting(JavaDocInfo::fileName)
+        .containsExactly("repo-main/src/B.java", "repo-main/src/A.java");
+    assertThat(docs.getLast().documentation()).isEqualTo("/// A class");
+  }
+
+  @Test
+  void shouldUsePaxPathForLongNames() throws IOException {
+    var longName = "repo-main/" + "very/".repeat(30) + "Deep.java";
+    var record = " path=" + longName + "\n";
+    var length = record.length() + 3;
+    var pax = (length + record).getBytes(StandardCharsets.UTF_8);
+    var tar = new ByteArrayOutputStream();
+    entry(tar, "PaxHeaders/Deep.java", 'x', pax);
+    entry(tar, "truncated-name.java", '0', "/** Deep */\nclass Deep {}\n".getBytes(StandardCharsets.UTF_8));
+    tar.write(new byte[1024]);
+
+    var docs = TarGzExtractor.extractJavaDocs(new ByteArrayInputStream(gzip(tar.toByteArray())));
+
+    assertThat(docs).singleElement().satisfies(doc -> assertThat(doc.fileName()).isEqualTo(longName));
+  }
+
+  @Test
+  void shouldSkipMembersOverTheEntryLimit() throws IOException {
+    var tar = new ByteArrayOutputStream();
+    entry(tar, "repo-main/src/Huge.java", '0', ("/** Huge */\nclass Huge {}\n" + " ".repeat(4096)).getBytes(StandardCharsets.UTF_8));
+    entry(tar, "repo-main/src/Small.java", '0', "/** Small */\nclass Small {}\n".getBytes(StandardCharsets.UTF_8));
+    tar.write(new byte[1024]);
+    var limits = ExtractionLimits.DEFAULTS.withFlag("--max-entry-size", "1k");
+
+    var budget = limits.budget();
+    var docs = TarGzExtractor.extractJavaDocs(new ByteArrayInputStream(gzip(tar.toByteArray())), budget);
+
+    assertThat(docs).extracting(JavaDocInfo::fileName).containsExactly("repo-main/src/Small.java");
+    assertThat(budget.skippedCount()).isEqualTo(1);
+  }
+
+  @Test
+  void shouldSkipLongNameHeadersOverTheEntryLimit() throws IOException {
+    var tar = new ByteArrayOutputStream();
+    entry(tar, "././@LongLink", 'L', ("repo-main/" + "x".repeat(4096) + ".java").getBytes(StandardCharsets.UTF_8));
+    entry(tar, "truncated-name.java", '0', "/** Named */\nclass Named {}\n".getBytes(StandardCharsets.UTF_8));
+    entry(tar, "PaxHeaders/Big.java", 'x', ("4106 path=" + "y".repeat(4096) + "\n").getBytes(StandardCharsets.UTF_8));
+    entry(tar, "also-truncated.java", '0', "/** Big */\nclass Big {}\n".getBytes(StandardCharsets.UTF_8));
+    entry(tar, "repo-main/src/Small.java", '0', "/** Small */\nclass Small {}\n".getBytes(StandardCharsets.UTF_8));
+    tar.write(new byte[1024]);
+
+    var budget = ExtractionLimits.DEFAULTS.withFlag("--max-entry-size", "1k").budget();
+    var docs = TarGzExtractor.extractJavaDocs(new ByteArrayInputStream(gzip(tar.toByteArray())), budget);
+
+    // the oversized headers are never buffered and the members they name are skipped with them
+    assertThat(docs).extracting(JavaDocInfo::fileName).containsExactly("repo-main/src/Small.java");
+    assertThat(budget.skippedCount()).isEqualTo(2);
+  }
+
+  private static void entry(ByteArrayOutputStream tar, String name, char type, byte[] content) throws IOException {
+    var header = new byte[512];
+    put(header, 0, name);
+    put(header, 100, "0000644");
+    put(header, 124, "%011o".formatted(content.length));
+    header[156] = (byte) type;
+    put(header, 257, "ustar");
+    tar.write(header);
+    tar.write(content);
+    tar.write(new byte[(512 - content.length % 512) % 512]);
+  }
+
+  private static void put(byte[] header, int offset, String value) {
+    var bytes = value.getBytes(StandardCharsets.UTF_8);
+    System.arraycopy(bytes, 0, header, offset, Math.min(bytes.length, 100));
+  }
+
+  private static byte[] gzip(byte[] data) throws IOException {
+    var out = new ByteArrayOutputStream();
+    try (var gzip = new GZIPOutputStream(out)) {
+      gzip.write(data);
+    }
+    return out.toByteArray();
+  }
+}
@@ -0,0 +1,248 @@
+package io.github.simbo1905.mvn2llm;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/// An in-process stand-in for a Maven repository, serving a directory laid out like Maven Central over
+/// `com.sun.net.httpserver`. Latency, a bandwidth cap and failures can be injected so the network paths can be
+/// benchmarked reproducibly. Requests in absolute form are served too, so it doubles as the HTTP proxy.
+final class TestRepositoryServer implements AutoCloseable {
+
+  enum Failure {
+    /// Answers 503 without a body.
+    SERVER_ERROR,
+    /// Answers 404 even though the file exists.
+    NOT_FOUND,
+    /// Sends the headers for the whole file then closes the connection halfway through the body.
+    TRUNCATED
+  }
+
+  private static final Pattern RANGE = Pattern.compile("bytes=(\\d*)-(\\d*)");
+  private static final int CHUNK = 8 * 1024;
+
+  private final Path root;
+  private final HttpServer server;
+  private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+  private final List<String> requests = Collections.synchronizedList(new ArrayList<>());
+  private final AtomicLong bytesServed = new AtomicLong();
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final AtomicInteger maxConcurrent = new AtomicInteger();
+  private final AtomicInteger proxiedRequests = new AtomicInteger();
+  private final AtomicInteger failuresLeft = new AtomicInteger();
+  private volatile Failure failure = null;
+  private volatile Duration latency = Duration.ZERO;
+  private volatile long bytesPerSecond = 0;
+
+  private TestRepositoryServer(Path root) throws IOException {
+    this.root = root;
+    this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    server.createContext("/", this::handle);
+    server.setExecutor(executor);
+    server.start();
+  }
+
+  static TestRepositoryServer start(Path root) throws IOException {
+    return new TestRepositoryServer(root);
+  }
+
+  String url() {
+    return "http://%s:%d".formatted(server.getAddress().getHostString(), server.getAddress().getPort());
+  }
+
+  /// Delay before the response headers of every request, as a far-away repository would add.
+  TestRepositoryServer latency(Duration latency) {
+    this.latency = latency;
+    return this;
+  }
+
+  /// Paces each response body to at most this many bytes per second, zero for unlimited.
+  TestRepositoryServer bandwidth(long bytesPerSecond) {
+    this.bytesPerSecond = bytesPerSecond;
+    return this;
+  }
+
+  /// The next `count` requests fail with `failure`, then the server behaves again.
+  TestRepositoryServer failNext(int count, Failure failure) {
+    this.failure = failure;
+    this.failuresLeft.set(count);
+    return this;
+  }
+
+  /// Lays out `sourcesJar` as the sources of `coordinate`. A SNAPSHOT gets a timestamped file name and the
+  /// `maven-metadata.xml` that points at it, just like a snapshot repository.
+  void publish(String coordinate, byte[] sourcesJar) throws IOException {
+    final var parsed = MavenCoordinate.parse(coordinate);
+    final var directory = root.resolve(parsed.groupId().replace('.', '/'))
+        .resolve(parsed.artifactId())
+        .resolve(parsed.version());
+    Files.createDirectories(directory);
+    if (!parsed.version().endsWith("-SNAPSHOT")) {
+      Files.write(directory.resolve("%s-%s-sources.jar".formatted(parsed.artifactId(), parsed.version())), sourcesJar);
+      return;
+    }
+    final var timestamped = parsed.version().replace("-SNAPSHOT", "-20250101.120000-1");
+    Files.write(directory.resolve("%s-%s-sources.jar".formatted(parsed.artifactId(), timestamped)), sourcesJar);
+    Files.writeString(directory.resolve("maven-metadata.xml"), """
+        <?xml version="1.0" encoding="UTF-8"?>
+        <metadata modelVersion="1.1.0">
+          <groupId>%s</groupId>
+          <artifactId>%s</artifactId>
+          <version>%s</version>
+          <versioning>
+            <snapshot>
+              <timestamp>20250101.120000</timestamp>
+              <buildNumber>1</buildNumber>
+            </snapshot>
+            <snapshotVersions>
+              <snapshotVersion>
+                <classifier>sources</classifier>
+                <extension>jar</extension>
+                <value>%s</value>
+              </snapshotVersion>
+            </snapshotVersions>
+          </versioning>
+        </metadata>
+        """.formatted(parsed.groupId(), parsed.artifactId(), parsed.version(), timestamped));
+  }
+
+  /// The paths requested so far, in arrival order.
+  List<String> requests() {
+    synchronized (requests) {
+      return List.copyOf(requests);
+    }
+  }
+
+  long bytesServed() {
+    return bytesServed.get();
+  }
+
+  int maxConcurrent() {
+    return maxConcurrent.get();
+  }
+
+  int proxiedRequests() {
+    return proxiedRequests.get();
+  }
+
+  void resetStatistics() {
+    requests.clear();
+    bytesServed.set(0);
+    maxConcurrent.set(0);
+    proxiedRequests.set(0);
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    maxConcurrent.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+    try (exchange) {
+      final var uri = exchange.getRequestURI();
+      if (uri.isAbsolute()) {
+        proxiedRequests.incrementAndGet();
+      }
+      requests.add(uri.getPath());
+      sleep(latency.toNanos());
+
+      final var injected = failuresLeft.getAndUpdate(left -> Math.max(0, left - 1)) > 0 ? failure : null;
+      final var file = root.resolve(uri.getPath().substring(1)).normalize();
+      if (injected == Failure.SERVER_ERROR) {
+        exchange.sendResponseHeaders(503, -1);
+        return;
+      }
+      if (injected == Failure.NOT_FOUND || !file.startsWith(root) || !Files.isRegularFile(file)) {
+        exchange.sendResponseHeaders(404, -1);
+        return;
+      }
+
+      final var content = Files.readAllBytes(file);
+      var start = 0;
+      var end = content.length;
+      var status = 200;
+      final var range = exchange.getRequestHeaders().getFirst("Range");
+      if (range != null) {
+        final var matcher = RANGE.matcher(range.strip());
+        if (!matcher.matches() || (matcher.group(1).isEmpty() && matcher.group(2).isEmpty())) {
+          exchange.getResponseHeaders().set("Content-Range", "bytes */" + content.length);
+          exchange.sendResponseHeaders(416, -1);
+          return;
+        }
+        if (matcher.group(1).isEmpty()) {
+          // a suffix range asks for the last n bytes
+          start = Math.max(0, content.length - Integer.parseInt(matcher.group(2)));
+        } else {
+          start = Integer.parseInt(matcher.group(1));
+          if (!matcher.group(2).isEmpty()) {
+            end = Math.min(content.length, Integer.parseInt(matcher.group(2)) + 1);
+          }
+        }
+        if (start >= content.length || start >= end) {
+          exchange.getResponseHeaders().set("Content-Range", "bytes */" + content.length);
+          exchange.sendResponseHeaders(416, -1);
+          return;
+        }
+        status = 206;
+        exchange.getResponseHeaders().set("Content-Range", "bytes %d-%d/%d".formatted(start, end - 1, content.length));
+      }
+      exchange.getResponseHeaders().set("Accept-Ranges", "bytes");
+      exchange.getResponseHeaders().set("Content-Type", file.toString().endsWith(".xml")
+          ? "application/xml; charset=" + StandardCharsets.UTF_8.name()
+          : "application/java-archive");
+      exchange.sendResponseHeaders(status, end - start);
+      final var stop = injected == Failure.TRUNCATED ? start + (end - start) / 2 : end;
+      write(exchange.getResponseBody(), content, start, stop);
+      if (injected == Failure.TRUNCATED) {
+        // failing the handler makes the server drop the connection short of the promised length
+        throw new IOException("Truncated response injected");
+      }
+    } finally {
+      inFlight.decrementAndGet();
+    }
+  }
+
+  private void write(OutputStream out, byte[] content, int start, int end) throws IOException {
+    final var began = System.nanoTime();
+    for (var offset = start; offset < end; offset += CHUNK) {
+      final var length = Math.min(CHUNK, end - offset);
+      out.write(content, offset, length);
+      out.flush();
+      bytesServed.addAndGet(length);
+      final var rate = bytesPerSecond;
+      if (rate > 0) {
+        final var due = began + (offset - start + length) * 1_000_000_000L / rate;
+        sleep(due - System.nanoTime());
+      }
+    }
+  }
+
+  private static void sleep(long nanos) {
+    if (nanos <= 0) {
+      return;
+    }
+    try {
+      Thread.sleep(Duration.ofNanos(nanos));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  @Override
+  public void close() {
+    server.stop(0);
+    executor.close();
+  }
+}
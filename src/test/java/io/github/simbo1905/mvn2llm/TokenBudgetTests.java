@@ -0,0 +1,67 @@
+package io.github.simbo1905.mvn2llm;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenBudgetTests {
+
+  @TempDir
+  Path dir;
+
+  @Test
+  void shouldEstimateAboutFourCharactersPerToken() {
+    assertThat(TokenBudget.estimate("")).isZero();
+    assertThat(TokenBudget.estimate("   \n\t")).isZero();
+    assertThat(TokenBudget.estimate("returns the value")).isEqualTo(5);
+    assertThat(TokenBudget.estimate("public int size();")).isEqualTo(7);
+  }
+
+  @Test
+  void shouldPreferTypeDocsThenPublicMembersThenShallowPackages() {
+    var type = new JavaDocInfo("com/example/deep/inner/Api.java", "/** The API. */", "public class Api {");
+    var shallow = new JavaDocInfo("com/example/Client.java", "/** Sends it. */", "public void send(String message) {");
+    var deep = new JavaDocInfo("com/example/deep/inner/Api.java", "/** Sends it. */", "public void send(String message) {");
+    var internal = new JavaDocInfo("com/example/Client.java", "/** Retries it. */", "private void retry() {");
+    var docs = List.of(internal, deep, shallow, type);
+    var fits = TokenBudget.estimate(type) + TokenBudget.estimate(shallow);
+
+    var selected = TokenBudget.select(docs, ExtractionOptions.DEFAULTS.withMaxTokens(fits));
+
+    // the survivors keep the order they were extracted in
+    assertThat(selected).containsExactly(shallow, type);
+    assertThat(TokenBudget.select(docs, ExtractionOptions.DEFAULTS)).isSameAs(docs);
+  }
+
+  @Test
+  void shouldCancelTheRemainingEntriesOnceTheBudgetIsMet() throws Exception {
+    var jar = dir.resolve("synthetic-sources.jar");
+    SyntheticArtifact.builder().entries(200).seed(7).build().writeJar(jar);
+    var options = ExtractionOptions.DEFAULTS.withMaxTokens(2000);
+    var budget = ExtractionLimits.DEFAULTS.budget(options);
+    var tokens = new TokenBudget(options.maxTokens(), budget);
+
+    new EntryScheduler(jar, ArtefactType.JAR, EntryCache.disabled(), budget, 4).extract(tokens::offer);
+    var selected = tokens.selected();
+
+    assertThat(budget.cancelled()).isTrue();
+    assertThat(selected).isNotEmpty();
+    assertThat(selected.stream().mapToLong(TokenBudget::estimate).sum()).isLessThanOrEqualTo(2000);
+    var unbudgeted = ExtractionLimits.DEFAULTS.budget();
+    new EntryScheduler(jar, ArtefactType.JAR, EntryCache.disabled(), unbudgeted, 4).extract();
+    assertThat(budget.inflatedBytes()).isLessThan(unbudgeted.inflatedBytes() / 2);
+  }
+
+  @Test
+  void shouldParseTheFlagAndPassItToWorkers() {
+    var arguments = MainArguments.parse(new String[]{"--max-tokens", "100000", "batch"});
+
+    assertThat(arguments.options().maxTokens()).isEqualTo(100_000);
+    assertThat(arguments.workerArguments()).containsSubsequence("--max-tokens", "100000");
+  }
+}
@@ -0,0 +1,61 @@
+package io.github.simbo1905.mvn2llm;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class VersionDiffTests {
+
+  @Test
+  void shouldReportOnlyAddedRemovedAndChangedMembers() {
+    var older = List.of(
+        new JavaDocInfo("A.java", "/** Same */", "public void same() {"),
+        new JavaDocInfo("A.java", "/** Old words */", "public void edited() {"),
+        new JavaDocInfo("A.java", "/** Gone */", "public void gone() {")
+    );
+    var newer = List.of(
+        new JavaDocInfo("A.java", "/** Same */", "public void same() {"),
+        new JavaDocInfo("A.java", "/** New words */", "public void edited() {"),
+        new JavaDocInfo("A.java", "/** Fresh */", "public void fresh() {")
+    );
+
+    var deltas = VersionDiff.diff(older, newer);
+
+    assertThat(deltas)
+        .extracting(VersionDiff.Delta::kind, delta -> delta.doc().vacuum())
+        .containsExactly(
+            tuple(VersionDiff.Kind.CHANGED, "public void edited() {"),
+            tuple(VersionDiff.Kind.ADDED, "public void fresh() {"),
+            tuple(VersionDiff.Kind.REMOVED, "public void gone() {")
+        );
+  }
+
+  @Test
+  void shouldIgnoreReformattedSignaturesAndDocs() {
+    var older = List.of(new JavaDocInfo("A.java", "/**\n * Reflowed\n * text\n */", "public void m(\n  int a) {"));
+    var newer = List.of(new JavaDocInfo("A.java", "/**\n * Reflowed text\n */", "public void m( int a) {"));
+
+    assertThat(VersionDiff.diff(older, newer)).isEmpty();
+  }
+
+  @Test
+  void shouldDiffCompactStores() {
+    // the store hands out a new flyweight on every get, so removals cannot be matched by identity
+    var older = CompactDocStore.of(List.of(
+        new JavaDocInfo("A.java", "/** First */", "public A() {"),
+        new JavaDocInfo("A.java", "/** Second */", "public A() {"),
+        new JavaDocInfo("A.java", "/** Gone */", "public void gone() {")
+    ), false);
+    var newer = CompactDocStore.of(List.of(new JavaDocInfo("A.java", "/** First */", "public A() {")), false);
+
+    assertThat(VersionDiff.diff(older, newer))
+        .extracting(VersionDiff.Delta::kind, delta -> delta.doc().documentation())
+        .containsExactly(
+            tuple(VersionDiff.Kind.REMOVED, "/** Second */"),
+            tuple(VersionDiff.Kind.REMOVED, "/** Gone */")
+        );
+  }
+}
@@ -0,0 +1,59 @@
+#!/bin/bash
+set -e
+
+# Measures time-to-first-output and total time of short runs against the local stand-in repository for the
+# plain jar, the jar with the archive written by startup-training.sh and, when present, the native image
+# built by native-image-compile.sh. Reports the median over a number of runs.
+#
+# Usage: ./startup-benchmark.sh [runs]
+
+source "$(dirname "$0")/startup-repo.sh"
+
+RUNS=${1:-10}
+JAR=target/mvn2llm.jar
+NATIVE=./mvn2llm
+JVM_OPTIONS="--enable-preview --enable-native-access=ALL-UNNAMED"
+
+if [ ! -f "$JAR" ]; then
+    echo "Error: $JAR not found please run 'mvn package' first"
+    exit 1
+fi
+
+require_java_home
+build_training_repo
+start_training_repo
+
+benchmark() {
+    local label=$1
+    shift
+    local results
+    # one untimed run so the first timing does not include the page cache warming up
+    time_run "$@" > /dev/null
+    results=$(for _ in $(seq 1 "$RUNS"); do time_run "$@"; done)
+    printf "%-16s %-12s first output %5s ms   total %5s ms\n" "$label" "$WORKLOAD" \
+        "$(cut -d' ' -f1 <<< "$results" | median)" "$(cut -d' ' -f2 <<< "$results" | median)"
+}
+
+benchmark_all() {
+    benchmark "jar" "$JAVA_HOME/bin/java" $JVM_OPTIONS -jar "$JAR" "$@"
+    if [ -f target/mvn2llm.aot ]; then
+        benchmark "jar+aot" "$JAVA_HOME/bin/java" -XX:AOTCache=target/mvn2llm.aot $JVM_OPTIONS -jar "$JAR" "$@"
+    elif [ -f target/mvn2llm.jsa ]; then
+        benchmark "jar+cds" "$JAVA_HOME/bin/java" -XX:SharedArchiveFile=target/mvn2llm.jsa $JVM_OPTIONS -jar "$JAR" "$@"
+    else
+        echo "No startup archive found, run ./startup-training.sh to include the CDS-enabled jar"
+    fi
+    if [ -x "$NATIVE" ]; then
+        benchmark "native" "$NATIVE" "$@"
+    else
+        echo "No native image at $NATIVE, run ./native-image-compile.sh to include it"
+    fi
+}
+
+echo "Median of $RUNS runs on JDK $(java_feature_version)"
+WORKLOAD=release
+benchmark_all -r "$TRAINING_URL" --no-cache "$TRAINING_RELEASE"
+WORKLOAD=snapshot
+benchmark_all -r "$TRAINING_URL" --no-cache "$TRAINING_SNAPSHOT"
+WORKLOAD=directory
+benchmark_all -d src/main/java
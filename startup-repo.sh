@@ -0,0 +1,121 @@
+#!/bin/bash
+# Shared by the startup and native image scripts. Builds a local stand-in Maven repository from this
+# project's own sources and serves it with jwebserver, so that training and benchmark runs are reproducible
+# and never touch the network.
+
+TRAINING_DIR=${TRAINING_DIR:-target/startup}
+TRAINING_REPO="$TRAINING_DIR/repo"
+TRAINING_GROUP_PATH="io/github/simbo1905/mvn2llm-training"
+TRAINING_RELEASE="io.github.simbo1905:mvn2llm-training:1.0"
+TRAINING_SNAPSHOT="io.github.simbo1905:mvn2llm-training:1.0-SNAPSHOT"
+TRAINING_CORPUS="io.github.simbo1905:mvn2llm-corpus:1.0"
+TRAINING_PORT=${TRAINING_PORT:-18765}
+TRAINING_URL="http://127.0.0.1:$TRAINING_PORT"
+
+# Lays out a release and a timestamped SNAPSHOT with maven-metadata.xml so both the plain download and the
+# SAX metadata path are exercised.
+build_training_repo() {
+    local release_dir="$TRAINING_REPO/$TRAINING_GROUP_PATH/1.0"
+    local snapshot_dir="$TRAINING_REPO/$TRAINING_GROUP_PATH/1.0-SNAPSHOT"
+    local snapshot_version="1.0-20250101.120000-1"
+
+    rm -rf "$TRAINING_REPO"
+    mkdir -p "$release_dir" "$snapshot_dir"
+    "$JAVA_HOME/bin/jar" --create --file "$release_dir/mvn2llm-training-1.0-sources.jar" -C src/main/java .
+    cp "$release_dir/mvn2llm-training-1.0-sources.jar" "$snapshot_dir/mvn2llm-training-$snapshot_version-sources.jar"
+
+    cat > "$snapshot_dir/maven-metadata.xml" <<EOF
+<?xml version="1.0" encoding="UTF-8"?>
+<metadata modelVersion="1.1.0">
+  <groupId>io.github.simbo1905</groupId>
+  <artifactId>mvn2llm-training</artifactId>
+  <version>1.0-SNAPSHOT</version>
+  <versioning>
+    <snapshot>
+      <timestamp>20250101.120000</timestamp>
+      <buildNumber>1</buildNumber>
+    </snapshot>
+    <lastUpdated>20250101120000</lastUpdated>
+    <snapshotVersions>
+      <snapshotVersion>
+        <classifier>sources</classifier>
+        <extension>jar</extension>
+        <value>$snapshot_version</value>
+        <updated>20250101120000</updated>
+      </snapshotVersion>
+    </snapshotVersions>
+  </versioning>
+</metadata>
+EOF
+}
+
+# The JDK sources that ship with every JDK as lib/src.zip: large, offline and full of real-world javadoc.
+build_corpus_artifact() {
+    local corpus_dir="$TRAINING_REPO/io/github/simbo1905/mvn2llm-corpus/1.0"
+    mkdir -p "$corpus_dir"
+    if [ -f "$JAVA_HOME/lib/src.zip" ]; then
+        cp "$JAVA_HOME/lib/src.zip" "$corpus_dir/mvn2llm-corpus-1.0-sources.jar"
+    else
+        echo "Warning: $JAVA_HOME/lib/src.zip not found, using this project's sources as the corpus"
+        cp "$TRAINING_REPO/$TRAINING_GROUP_PATH/1.0/mvn2llm-training-1.0-sources.jar" \
+            "$corpus_dir/mvn2llm-corpus-1.0-sources.jar"
+    fi
+    CORPUS_FILE="$corpus_dir/mvn2llm-corpus-1.0-sources.jar"
+}
+
+start_training_repo() {
+    "$JAVA_HOME/bin/jwebserver" --bind-address 127.0.0.1 --port "$TRAINING_PORT" \
+        --directory "$(cd "$TRAINING_REPO" && pwd)" --output none > /dev/null 2>&1 &
+    TRAINING_SERVER_PID=$!
+    trap stop_training_repo EXIT
+    for _ in $(seq 1 50); do
+        if curl -sf -o /dev/null "$TRAINING_URL/$TRAINING_GROUP_PATH/1.0-SNAPSHOT/maven-metadata.xml"; then
+            return 0
+        fi
+        sleep 0.1
+    done
+    echo "Error: stand-in repository did not start on $TRAINING_URL"
+    exit 1
+}
+
+stop_training_repo() {
+    if [ -n "$TRAINING_SERVER_PID" ]; then
+        kill "$TRAINING_SERVER_PID" 2> /dev/null || true
+        wait "$TRAINING_SERVER_PID" 2> /dev/null || true
+        TRAINING_SERVER_PID=""
+    fi
+}
+
+require_java_home() {
+    if [ -z "$JAVA_HOME" ]; then
+        JAVA_HOME=$(dirname "$(dirname "$(readlink -f "$(command -v java)")")")
+    fi
+    if [ ! -x "$JAVA_HOME/bin/jwebserver" ]; then
+        echo "Error: $JAVA_HOME/bin/jwebserver not found, a JDK 18 or later is required"
+        exit 1
+    fi
+}
+
+java_feature_version() {
+    "$JAVA_HOME/bin/java" -XshowSettings:properties -version 2>&1 \
+        | sed -n 's/^ *java.specification.version = //p'
+}
+
+# Prints "<first output ms> <total ms>" for one run of the command given.
+time_run() {
+    local start first end line pid
+    start=$(date +%s%N)
+    exec {out}< <("$@" 2> /dev/null)
+    pid=$!
+    read -r -u "$out" line || true
+    first=$(date +%s%N)
+    cat <&"$out" > /dev/null
+    exec {out}<&-
+    wait "$pid" 2> /dev/null || true
+    end=$(date +%s%N)
+    echo "$(( (first - start) / 1000000 )) $(( (end - start) / 1000000 ))"
+}
+
+median() {
+    sort -n | awk '{ values[NR] = $1 } END { print values[int((NR + 1) / 2)] }'
+}
@@ -0,0 +1,53 @@
+#!/bin/bash
+set -e
+
+# Records which classes a representative run loads and writes them to an archive that later runs map at
+# startup. On JDK 24 or later this is a JDK AOT cache (target/mvn2llm.aot), on older JDKs a dynamic AppCDS
+# archive (target/mvn2llm.jsa). Either only works with the exact JDK build that wrote it, so to train a cache for
+# a jpackage app image set TRAINING_JAVA to the image's own runtime java and pass the jar inside the image; the
+# stand-in repository is still built and served with $JAVA_HOME.
+#
+# Usage: [TRAINING_JAVA=path/to/java] ./startup-training.sh [path/to/mvn2llm.jar]
+
+source "$(dirname "$0")/startup-repo.sh"
+
+JAR=${1:-target/mvn2llm.jar}
+JVM_OPTIONS="--enable-preview --enable-native-access=ALL-UNNAMED"
+
+if [ ! -f "$JAR" ]; then
+    echo "Error: $JAR not found please run 'mvn package' first"
+    exit 1
+fi
+
+require_java_home
+JAVA=${TRAINING_JAVA:-$JAVA_HOME/bin/java}
+build_training_repo
+start_training_repo
+
+# One run has to touch every subsystem we want archived: HTTP, the SNAPSHOT metadata SAX parse, the zip
+# stack, the parser and the index writer. The entry cache is bypassed so the parser actually runs.
+run_workload() {
+    rm -rf "$TRAINING_DIR/index"
+    "$JAVA" $JVM_OPTIONS "$@" -jar "$JAR" \
+        -r "$TRAINING_URL" --no-cache --index --index-dir "$TRAINING_DIR/index" \
+        "$TRAINING_SNAPSHOT" > /dev/null
+}
+
+FEATURE=$("$JAVA" -XshowSettings:properties -version 2>&1 | sed -n 's/^ *java.specification.version = //p')
+if [ "$FEATURE" -ge 24 ]; then
+    ARCHIVE="$(dirname "$JAR")/mvn2llm.aot"
+    echo "Training JDK $FEATURE AOT cache $ARCHIVE..."
+    rm -f "$ARCHIVE" "$TRAINING_DIR/mvn2llm.aotconf"
+    run_workload -XX:AOTMode=record -XX:AOTConfiguration="$TRAINING_DIR/mvn2llm.aotconf"
+    "$JAVA" $JVM_OPTIONS -XX:AOTMode=create -XX:AOTConfiguration="$TRAINING_DIR/mvn2llm.aotconf" \
+        -XX:AOTCache="$ARCHIVE" -jar "$JAR" --help > /dev/null
+    echo "Run with: $JAVA -XX:AOTCache=$ARCHIVE $JVM_OPTIONS -jar $JAR ..."
+else
+    ARCHIVE="$(dirname "$JAR")/mvn2llm.jsa"
+    echo "Training JDK $FEATURE AppCDS archive $ARCHIVE..."
+    rm -f "$ARCHIVE"
+    run_workload -XX:ArchiveClassesAtExit="$ARCHIVE"
+    echo "Run with: $JAVA -XX:SharedArchiveFile=$ARCHIVE $JVM_OPTIONS -jar $JAR ..."
+fi
+
+ls -la "$ARCHIVE"